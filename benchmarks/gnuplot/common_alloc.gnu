@@ -0,0 +1,4 @@
+load "common.gnu"
+
+set ylabel "allocation per element, in bytes"
+set format y "%.0fB"
@@ -0,0 +1,7 @@
+load "common_alloc.gnu"
+
+data = "../data/map_difference_alloc.csv"
+set output dir."map_difference_alloc".ext
+set title "map difference allocation"
+
+plot data using 1:2, for [i=3:21] '' using 1:i
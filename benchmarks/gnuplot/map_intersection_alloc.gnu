@@ -0,0 +1,7 @@
+load "common_alloc.gnu"
+
+data = "../data/map_intersection_alloc.csv"
+set output dir."map_intersection_alloc".ext
+set title "map intersection allocation"
+
+plot data using 1:2, for [i=3:21] '' using 1:i
@@ -0,0 +1,7 @@
+load "common.gnu"
+
+data = "../data/put_forked.csv"
+set output dir."put_forked".ext
+set title "forked insertion"
+
+plot data using 1:2, for [i=3:21] '' using 1:i
@@ -0,0 +1,7 @@
+load "common_alloc.gnu"
+
+data = "../data/put_forked_alloc.csv"
+set output dir."put_forked_alloc".ext
+set title "forked insertion allocation"
+
+plot data using 1:2, for [i=3:21] '' using 1:i
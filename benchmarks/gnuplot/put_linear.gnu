@@ -0,0 +1,7 @@
+load "common.gnu"
+
+data = "../data/put_linear.csv"
+set output dir."put_linear".ext
+set title "linear insertion"
+
+plot data using 1:2, for [i=3:21] '' using 1:i
@@ -0,0 +1,7 @@
+load "common_alloc.gnu"
+
+data = "../data/put_linear_alloc.csv"
+set output dir."put_linear_alloc".ext
+set title "linear insertion allocation"
+
+plot data using 1:2, for [i=3:21] '' using 1:i
@@ -0,0 +1,7 @@
+load "common_alloc.gnu"
+
+data = "../data/sorted_map_union_alloc.csv"
+set output dir."sorted_map_union_alloc".ext
+set title "sorted map union allocation"
+
+plot data using 1:2, for [i=3:21] '' using 1:i
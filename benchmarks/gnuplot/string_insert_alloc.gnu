@@ -0,0 +1,7 @@
+load "common_alloc.gnu"
+
+data = "../data/string_insert_alloc.csv"
+set output dir."string_insert_alloc".ext
+set title "string insert allocation"
+
+plot data using 1:2, for [i=3:21] '' using 1:i
@@ -0,0 +1,93 @@
+package io.lacuna.bifurcan.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Input generators shared by the benchmarks, which mirror those in {@code benchmark_test.clj}.  All inputs are
+ * generated from a fixed seed, so that every fork of a benchmark sees the same collections.
+ *
+ * @author ztellman
+ */
+final class Inputs {
+
+  private static final long SEED = 0x5eed;
+
+  private Inputs() {
+  }
+
+  /**
+   * A key with minimal overhead within a hash map: the hash is precomputed, and equality is by identity.
+   */
+  static final class Key {
+    private final int hash;
+
+    Key(int hash) {
+      this.hash = hash;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return this == obj;
+    }
+  }
+
+  /**
+   * @return {@code n} keys with random hashes
+   */
+  static Object[] entries(int n) {
+    Random r = new Random(SEED);
+    Object[] ary = new Object[n];
+    for (int i = 0; i < n; i++) {
+      ary[i] = new Key(r.nextInt(Integer.MAX_VALUE));
+    }
+    return ary;
+  }
+
+  /**
+   * @return the numbers within {@code [0, n)}, in a random order
+   */
+  static Long[] numbers(int n) {
+    int[] indices = indices(n);
+    Long[] ary = new Long[n];
+    for (int i = 0; i < n; i++) {
+      ary[i] = (long) indices[i];
+    }
+    return ary;
+  }
+
+  /**
+   * @return the indices within {@code [0, n)}, in a random order
+   */
+  static int[] indices(int n) {
+    Random r = new Random(SEED);
+    int[] ary = new int[n];
+    for (int i = 0; i < n; i++) {
+      ary[i] = i;
+    }
+    for (int i = n - 1; i > 0; i--) {
+      int j = r.nextInt(i + 1);
+      int tmp = ary[i];
+      ary[i] = ary[j];
+      ary[j] = tmp;
+    }
+    return ary;
+  }
+
+  /**
+   * @return a string of {@code n} code points, evenly split between 1, 2, 3, and 4 byte UTF-8 encodings
+   */
+  static String string(int n) {
+    int[] widths = {0, 0x80, 0x800, 0x10000};
+    int[] indices = indices(n);
+    int[] points = new int[n];
+    for (int i = 0; i < n; i++) {
+      points[i] = widths[indices[i] & 3];
+    }
+    return new String(points, 0, n);
+  }
+}
@@ -0,0 +1,93 @@
+package io.lacuna.bifurcan.benchmarks;
+
+import io.lacuna.bifurcan.IList;
+import io.lacuna.bifurcan.LinearList;
+import io.lacuna.bifurcan.List;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the lists, whose results are written to the {@code list_*} and {@code concat} data files.
+ *
+ * @author ztellman
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListBenchmark {
+
+  @Param({"bifurcan.List", "bifurcan.LinearList"})
+  public String collection;
+
+  @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+  public int size;
+
+  private Long[] elements;
+  private int[] indices;
+  private IList<Long> list, empty, left, right;
+
+  @Setup
+  public void setup() {
+    elements = Inputs.numbers(size);
+    indices = Inputs.indices(size);
+    list = construct(elements, 0, size);
+    empty = construct(elements, 0, 0);
+    left = construct(elements, 0, size / 2);
+    right = construct(elements, size / 2, size);
+  }
+
+  private IList<Long> empty() {
+    switch (collection) {
+      case "bifurcan.List":
+        return new List<>();
+      case "bifurcan.LinearList":
+        return new LinearList<>();
+      default:
+        throw new IllegalArgumentException("unknown collection: " + collection);
+    }
+  }
+
+  private IList<Long> construct(Long[] elements, int start, int end) {
+    IList<Long> l = empty().linear();
+    for (int i = start; i < end; i++) {
+      l = l.addLast(elements[i]);
+    }
+    return l;
+  }
+
+  @Benchmark
+  public IList<Long> construct() {
+    return construct(elements, 0, size);
+  }
+
+  @Benchmark
+  public void lookup(Blackhole bh) {
+    for (int i : indices) {
+      bh.consume(list.nth(i));
+    }
+  }
+
+  @Benchmark
+  public void iterate(Blackhole bh) {
+    Iterator<Long> it = list.iterator();
+    while (it.hasNext()) {
+      bh.consume(it.next());
+    }
+  }
+
+  @Benchmark
+  public IList<Long> concat() {
+    return empty.concat(left).concat(right);
+  }
+
+  @Benchmark
+  public IList<? extends IList<Long>> split() {
+    return list.split(Runner.SPLIT_PARTS);
+  }
+}
@@ -0,0 +1,103 @@
+package io.lacuna.bifurcan.benchmarks;
+
+import io.lacuna.bifurcan.IEntry;
+import io.lacuna.bifurcan.IList;
+import io.lacuna.bifurcan.IMap;
+import io.lacuna.bifurcan.LinearMap;
+import io.lacuna.bifurcan.Map;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the hash maps, whose results are written to the {@code map_*} data files.
+ *
+ * @author ztellman
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapBenchmark {
+
+  @Param({"bifurcan.Map", "bifurcan.LinearMap"})
+  public String collection;
+
+  @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+  public int size;
+
+  private Object[] keys;
+  private IMap<Object, Object> map, other;
+
+  @Setup
+  public void setup() {
+    Object[] entries = Inputs.entries((int) Math.ceil(size * 1.5));
+    keys = Arrays.copyOf(entries, size);
+    map = construct(keys);
+    other = construct(Arrays.copyOfRange(entries, size / 2, (size / 2) + size));
+  }
+
+  private IMap<Object, Object> empty() {
+    switch (collection) {
+      case "bifurcan.Map":
+        return new Map<>();
+      case "bifurcan.LinearMap":
+        return new LinearMap<>();
+      default:
+        throw new IllegalArgumentException("unknown collection: " + collection);
+    }
+  }
+
+  private IMap<Object, Object> construct(Object[] keys) {
+    IMap<Object, Object> m = empty().linear();
+    for (Object k : keys) {
+      m = m.put(k, null);
+    }
+    return m;
+  }
+
+  @Benchmark
+  public IMap<Object, Object> construct() {
+    return construct(keys);
+  }
+
+  @Benchmark
+  public void lookup(Blackhole bh) {
+    for (Object k : keys) {
+      bh.consume(map.get(k, null));
+    }
+  }
+
+  @Benchmark
+  public void iterate(Blackhole bh) {
+    Iterator<IEntry<Object, Object>> it = map.iterator();
+    while (it.hasNext()) {
+      bh.consume(it.next().key());
+    }
+  }
+
+  @Benchmark
+  public IMap<Object, Object> union() {
+    return map.union(other);
+  }
+
+  @Benchmark
+  public IMap<Object, Object> intersection() {
+    return map.intersection(other);
+  }
+
+  @Benchmark
+  public IMap<Object, Object> difference() {
+    return map.difference(other);
+  }
+
+  @Benchmark
+  public IList<? extends IMap<Object, Object>> split() {
+    return map.split(Runner.SPLIT_PARTS);
+  }
+}
@@ -0,0 +1,78 @@
+package io.lacuna.bifurcan.benchmarks;
+
+import io.lacuna.bifurcan.IMap;
+import io.lacuna.bifurcan.IntMap;
+import io.lacuna.bifurcan.List;
+import io.lacuna.bifurcan.Map;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for single-element updates, comparing linear and forked collections, whose results are written to the
+ * {@code put_linear} and {@code put_forked} data files.  These are most informative when run with the GC profiler,
+ * since a forked update must copy the path to the modified element.
+ *
+ * @author ztellman
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PutBenchmark {
+
+  @Param({"bifurcan.Map", "bifurcan.IntMap", "bifurcan.List"})
+  public String collection;
+
+  @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+  public int size;
+
+  private Object[] keys;
+  private Long[] numbers;
+
+  @Setup
+  public void setup() {
+    keys = Inputs.entries(size);
+    numbers = Inputs.numbers(size);
+  }
+
+  private Object construct(boolean linear) {
+    switch (collection) {
+      case "bifurcan.Map":
+        IMap<Object, Object> m = linear ? new Map<>().linear() : new Map<>();
+        for (Object k : keys) {
+          m = m.put(k, null);
+        }
+        return m;
+
+      case "bifurcan.IntMap":
+        IntMap<Object> im = linear ? new IntMap<>().linear() : new IntMap<>();
+        for (Long k : numbers) {
+          im = im.put(k, null);
+        }
+        return im;
+
+      case "bifurcan.List":
+        List<Object> l = linear ? new List<>().linear() : new List<>();
+        for (Long n : numbers) {
+          l = l.addLast(n);
+        }
+        return l;
+
+      default:
+        throw new IllegalArgumentException("unknown collection: " + collection);
+    }
+  }
+
+  @Benchmark
+  public Object linear() {
+    return construct(true);
+  }
+
+  @Benchmark
+  public Object forked() {
+    return construct(false);
+  }
+}
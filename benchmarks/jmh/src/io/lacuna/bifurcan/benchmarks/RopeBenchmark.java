@@ -0,0 +1,83 @@
+package io.lacuna.bifurcan.benchmarks;
+
+import io.lacuna.bifurcan.Rope;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.PrimitiveIterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for ropes, whose results are written to the {@code string_*} data files.
+ *
+ * @author ztellman
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RopeBenchmark {
+
+  @Param({"bifurcan.Rope"})
+  public String collection;
+
+  @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+  public int size;
+
+  private String string;
+  private int[] indices;
+  private Rope rope, unit, left, right;
+
+  @Setup
+  public void setup() {
+    string = Inputs.string(size);
+    indices = Inputs.indices(size);
+    rope = Rope.from(string);
+    unit = Rope.from(Inputs.string(1));
+    left = Rope.from(Inputs.string(size / 2));
+    right = Rope.from(Inputs.string(size / 2));
+  }
+
+  @Benchmark
+  public Rope construct() {
+    return Rope.EMPTY.concat(Rope.from(string));
+  }
+
+  @Benchmark
+  public void lookup(Blackhole bh) {
+    for (int i : indices) {
+      bh.consume(rope.nth(i));
+    }
+  }
+
+  @Benchmark
+  public void iterate(Blackhole bh) {
+    PrimitiveIterator.OfInt it = rope.codePoints();
+    while (it.hasNext()) {
+      bh.consume(it.nextInt());
+    }
+  }
+
+  @Benchmark
+  public Rope concat() {
+    return Rope.EMPTY.concat(left).concat(right);
+  }
+
+  @Benchmark
+  public Rope insert() {
+    Rope r = rope;
+    for (int i : indices) {
+      r = r.insert(i, unit);
+    }
+    return r;
+  }
+
+  @Benchmark
+  public void remove(Blackhole bh) {
+    for (int i : indices) {
+      bh.consume(rope.remove(i, i + 1));
+    }
+  }
+}
@@ -0,0 +1,147 @@
+package io.lacuna.bifurcan.benchmarks;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Runs the JMH benchmarks, and writes out the results as CSV files in the format expected by the gnuplot scripts in
+ * {@code benchmarks/gnuplot}, with each value being the nanoseconds per element.  Any arguments are passed to JMH, so
+ * {@code lein jmh Map -p size=1000} will run only the map benchmarks over 1000 elements.
+ * <p>
+ * Results are written to the directory given by the {@code bifurcan.benchmarks.dir} system property, which defaults
+ * to {@code benchmarks/data}.  Unless otherwise specified, the raw JMH results are written to {@code jmh.json} in
+ * that same directory.
+ * <p>
+ * If run with the GC profiler ({@code -prof gc}, or {@code lein jmh-alloc}), the bytes allocated per element are also
+ * written out, to a file with an {@code _alloc} suffix.
+ *
+ * @author ztellman
+ */
+public class Runner {
+
+  /**
+   * The number of pieces each collection is split into by the {@code split} benchmarks.
+   */
+  static final int SPLIT_PARTS = 8;
+
+  private static final String ALLOC_RATE = "gc.alloc.rate.norm";
+
+  public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+    File dir = new File(System.getProperty("bifurcan.benchmarks.dir", "benchmarks/data"));
+    dir.mkdirs();
+
+    CommandLineOptions cmd = new CommandLineOptions(args);
+    OptionsBuilder builder = new OptionsBuilder();
+    builder.parent(cmd);
+    if (!cmd.getResult().hasValue()) {
+      builder.result(new File(dir, "jmh.json").getPath());
+    }
+    if (!cmd.getResultFormat().hasValue()) {
+      builder.resultFormat(ResultFormatType.JSON);
+    }
+    Options opts = builder.build();
+
+    Collection<RunResult> results = new org.openjdk.jmh.runner.Runner(opts).run();
+    writeCsvs(dir, results);
+  }
+
+  /**
+   * @return the name of the data file which the benchmark's results belong in, e.g. {@code map_lookup}
+   */
+  static String fileName(String benchmark) {
+    int idx = benchmark.lastIndexOf('.');
+    String method = benchmark.substring(idx + 1);
+    String cls = benchmark.substring(benchmark.lastIndexOf('.', idx - 1) + 1, idx);
+
+    String prefix;
+    switch (cls) {
+      case "MapBenchmark":
+        prefix = "map";
+        break;
+      case "SetBenchmark":
+        prefix = "set";
+        break;
+      case "SortedMapBenchmark":
+        prefix = "sorted_map";
+        break;
+      case "ListBenchmark":
+        if (method.equals("concat")) {
+          return "concat";
+        }
+        prefix = "list";
+        break;
+      case "RopeBenchmark":
+        prefix = "string";
+        break;
+      case "PutBenchmark":
+        prefix = "put";
+        break;
+      default:
+        prefix = cls.replace("Benchmark", "").toLowerCase();
+    }
+
+    return prefix + "_" + method;
+  }
+
+  private static void writeCsvs(File dir, Collection<RunResult> results) throws IOException {
+
+    // file -> size -> collection -> nanos (or bytes) per element, with collections in the order their parameters are declared
+    SortedMap<String, SortedMap<Integer, Map<String, Double>>> files = new TreeMap<>();
+    for (RunResult r : results) {
+      String file = fileName(r.getParams().getBenchmark());
+      int size = Integer.parseInt(r.getParams().getParam("size"));
+      String collection = r.getParams().getParam("collection");
+
+      files.computeIfAbsent(file, k -> new TreeMap<>())
+          .computeIfAbsent(size, k -> new LinkedHashMap<>())
+          .put(collection, r.getPrimaryResult().getScore() / Math.max(1, size));
+
+      // older versions of JMH prefix secondary results with a '\u00b7'
+      r.getSecondaryResults().forEach((name, result) -> {
+        if (name.endsWith(ALLOC_RATE)) {
+          files.computeIfAbsent(file + "_alloc", k -> new TreeMap<>())
+              .computeIfAbsent(size, k -> new LinkedHashMap<>())
+              .put(collection, result.getScore() / Math.max(1, size));
+        }
+      });
+    }
+
+    for (String file : files.keySet()) {
+      SortedMap<Integer, Map<String, Double>> rows = files.get(file);
+      LinkedHashSet<String> collections = new LinkedHashSet<>();
+      rows.values().forEach(m -> collections.addAll(m.keySet()));
+
+      try (PrintWriter out = new PrintWriter(new File(dir, file + ".csv"), "UTF-8")) {
+        out.print("size");
+        for (String c : collections) {
+          out.print("," + c);
+        }
+        out.print("\n");
+
+        for (int size : rows.keySet()) {
+          out.print(size);
+          for (String c : collections) {
+            Double score = rows.get(size).get(c);
+            out.print("," + (score == null ? "" : (float) (double) score));
+          }
+          out.print("\n");
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package io.lacuna.bifurcan.benchmarks;
+
+import io.lacuna.bifurcan.IList;
+import io.lacuna.bifurcan.ISet;
+import io.lacuna.bifurcan.LinearSet;
+import io.lacuna.bifurcan.Set;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the hash sets, whose results are written to the {@code set_*} data files.
+ *
+ * @author ztellman
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SetBenchmark {
+
+  @Param({"bifurcan.Set", "bifurcan.LinearSet"})
+  public String collection;
+
+  @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+  public int size;
+
+  private Object[] elements;
+  private ISet<Object> set, other;
+
+  @Setup
+  public void setup() {
+    Object[] entries = Inputs.entries((int) Math.ceil(size * 1.5));
+    elements = Arrays.copyOf(entries, size);
+    set = construct(elements);
+    other = construct(Arrays.copyOfRange(entries, size / 2, (size / 2) + size));
+  }
+
+  private ISet<Object> empty() {
+    switch (collection) {
+      case "bifurcan.Set":
+        return new Set<>();
+      case "bifurcan.LinearSet":
+        return new LinearSet<>();
+      default:
+        throw new IllegalArgumentException("unknown collection: " + collection);
+    }
+  }
+
+  private ISet<Object> construct(Object[] elements) {
+    ISet<Object> s = empty().linear();
+    for (Object e : elements) {
+      s = s.add(e);
+    }
+    return s;
+  }
+
+  @Benchmark
+  public ISet<Object> construct() {
+    return construct(elements);
+  }
+
+  @Benchmark
+  public void lookup(Blackhole bh) {
+    for (Object e : elements) {
+      bh.consume(set.contains(e));
+    }
+  }
+
+  @Benchmark
+  public void iterate(Blackhole bh) {
+    Iterator<Object> it = set.iterator();
+    while (it.hasNext()) {
+      bh.consume(it.next());
+    }
+  }
+
+  @Benchmark
+  public ISet<Object> union() {
+    return set.union(other);
+  }
+
+  @Benchmark
+  public ISet<Object> intersection() {
+    return set.intersection(other);
+  }
+
+  @Benchmark
+  public ISet<Object> difference() {
+    return set.difference(other);
+  }
+
+  @Benchmark
+  public IList<? extends ISet<Object>> split() {
+    return set.split(Runner.SPLIT_PARTS);
+  }
+}
@@ -0,0 +1,106 @@
+package io.lacuna.bifurcan.benchmarks;
+
+import io.lacuna.bifurcan.BTreeMap;
+import io.lacuna.bifurcan.IEntry;
+import io.lacuna.bifurcan.IList;
+import io.lacuna.bifurcan.IMap;
+import io.lacuna.bifurcan.IntMap;
+import io.lacuna.bifurcan.SortedMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the sorted maps, whose results are written to the {@code sorted_map_*} data files.
+ *
+ * @author ztellman
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SortedMapBenchmark {
+
+  @Param({"bifurcan.SortedMap", "bifurcan.BTreeMap", "bifurcan.IntMap"})
+  public String collection;
+
+  @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+  public int size;
+
+  private Long[] keys;
+  private IMap<Long, Object> map, other;
+
+  @Setup
+  public void setup() {
+    Long[] numbers = Inputs.numbers((int) Math.ceil(size * 1.5));
+    keys = Arrays.copyOf(numbers, size);
+    map = construct(keys);
+    other = construct(Arrays.copyOfRange(numbers, size / 2, (size / 2) + size));
+  }
+
+  private IMap<Long, Object> empty() {
+    switch (collection) {
+      case "bifurcan.SortedMap":
+        return new SortedMap<>();
+      case "bifurcan.BTreeMap":
+        return new BTreeMap<>();
+      case "bifurcan.IntMap":
+        return new IntMap<>();
+      default:
+        throw new IllegalArgumentException("unknown collection: " + collection);
+    }
+  }
+
+  private IMap<Long, Object> construct(Long[] keys) {
+    IMap<Long, Object> m = empty().linear();
+    for (Long k : keys) {
+      m = m.put(k, null);
+    }
+    return m;
+  }
+
+  @Benchmark
+  public IMap<Long, Object> construct() {
+    return construct(keys);
+  }
+
+  @Benchmark
+  public void lookup(Blackhole bh) {
+    for (Long k : keys) {
+      bh.consume(map.get(k, null));
+    }
+  }
+
+  @Benchmark
+  public void iterate(Blackhole bh) {
+    Iterator<IEntry<Long, Object>> it = map.iterator();
+    while (it.hasNext()) {
+      bh.consume(it.next().key());
+    }
+  }
+
+  @Benchmark
+  public IMap<Long, Object> union() {
+    return map.union(other);
+  }
+
+  @Benchmark
+  public IMap<Long, Object> intersection() {
+    return map.intersection(other);
+  }
+
+  @Benchmark
+  public IMap<Long, Object> difference() {
+    return map.difference(other);
+  }
+
+  @Benchmark
+  public IList<? extends IMap<Long, Object>> split() {
+    return map.split(Runner.SPLIT_PARTS);
+  }
+}
@@ -11,6 +11,9 @@
                    :all       (constantly true)}
   :profiles {:low-mem {:jvm-opts ^:replace ["-server" "-Xmx1g" "-XX:MaxDirectMemorySize=2g" "-XX:+UseG1GC"]}
              :bench   {:jvm-opts ^:replace ["-server" "-Xmx10g" "-XX:+UseG1GC"]}
+             :jmh     {:dependencies      [[org.openjdk.jmh/jmh-core "1.37"]
+                                           [org.openjdk.jmh/jmh-generator-annprocess "1.37"]]
+                       :java-source-paths ["benchmarks/jmh/src"]}
              :dev     {:dependencies [;; for tests
                                       [org.clojure/clojure "1.10.0"]
                                       [org.clojure/test.check "0.10.0"]
@@ -38,6 +41,8 @@
   :aliases {"partest"              ["run" "-m" "bifurcan.run-tests"]
             "benchmark"            ["run" "-m" "bifurcan.benchmark-test" "benchmark"]
             "benchmark-collection" ["run" "-m" "bifurcan.benchmark-test" "benchmark-collection"]
+            "jmh"                  ["with-profile" "dev,bench,jmh" "run" "-m" "io.lacuna.bifurcan.benchmarks.Runner"]
+            "jmh-alloc"            ["with-profile" "dev,bench,jmh" "run" "-m" "io.lacuna.bifurcan.benchmarks.Runner" "-prof" "gc"]
             "benchmark-databases"  ["with-profile" "low-mem,dev" "run" "-m" "bifurcan.durable-benchmark-test" "benchmark"]}
   :jvm-opts ^:replace ["-server"
                        "-XX:+UseG1GC"
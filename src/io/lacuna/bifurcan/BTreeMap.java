@@ -0,0 +1,228 @@
+package io.lacuna.bifurcan;
+
+import io.lacuna.bifurcan.nodes.BTreeMapNodes;
+import io.lacuna.bifurcan.nodes.BTreeMapNodes.Node;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.OptionalLong;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.BinaryOperator;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * A sorted map backed by a persistent B+-tree.  Compared to {@link SortedMap}, each node holds up to
+ * {@link BTreeMapNodes#MAX_BRANCHES} entries in contiguous arrays, which makes iteration and range scans considerably
+ * more cache-friendly, and uses less memory per entry.  Updates, however, must copy an entire node at each level of
+ * the tree.
+ *
+ * @author ztellman
+ */
+public class BTreeMap<K, V> extends ISortedMap.Mixin<K, V> {
+
+  private final Comparator<K> comparator;
+  public Node<K, V> root;
+  private final Object editor;
+
+  public BTreeMap() {
+    this(BTreeMapNodes.EMPTY, false, (Comparator<K>) Comparator.naturalOrder());
+  }
+
+  public BTreeMap(Comparator<K> comparator) {
+    this(BTreeMapNodes.EMPTY, false, comparator);
+  }
+
+  public static <K, V> BTreeMap<K, V> from(java.util.Map<K, V> m) {
+    BTreeMap<K, V> result = new BTreeMap<K, V>().linear();
+    m.entrySet().forEach(e -> result.put(e.getKey(), e.getValue()));
+    return result.forked();
+  }
+
+  public static <K, V> BTreeMap<K, V> from(IMap<K, V> m) {
+    BTreeMap<K, V> result = new BTreeMap<K, V>().linear();
+    m.forEach(e -> result.put(e.key(), e.value()));
+    return result.forked();
+  }
+
+  private BTreeMap(Node<K, V> root, boolean linear, Comparator<K> comparator) {
+    this.root = root;
+    this.comparator = comparator;
+    this.editor = linear ? new Object() : null;
+  }
+
+  @Override
+  public Comparator<K> comparator() {
+    return comparator;
+  }
+
+  @Override
+  public OptionalLong inclusiveFloorIndex(K key) {
+    long idx = BTreeMapNodes.floorIndex(root, key, comparator);
+    return idx < 0 ? OptionalLong.empty() : OptionalLong.of(idx);
+  }
+
+  @Override
+  public OptionalLong ceilIndex(K key) {
+    long idx = BTreeMapNodes.ceilIndex(root, key, comparator);
+    return idx < 0 ? OptionalLong.empty() : OptionalLong.of(idx);
+  }
+
+  @Override
+  public BTreeMap<K, V> update(K key, UnaryOperator<V> update) {
+    return put(key, update.apply(this.get(key, null)));
+  }
+
+  @Override
+  public BTreeMap<K, V> put(K key, V value) {
+    return put(key, value, (BinaryOperator<V>) Maps.MERGE_LAST_WRITE_WINS);
+  }
+
+  @Override
+  public BTreeMap<K, V> put(K key, V value, BinaryOperator<V> merge) {
+    Node<K, V> rootPrime = root.put(isLinear() ? editor : new Object(), key, value, merge, comparator);
+    if (isLinear()) {
+      super.hash = -1;
+      root = rootPrime;
+      return this;
+    } else {
+      return new BTreeMap<>(rootPrime, false, comparator);
+    }
+  }
+
+  @Override
+  public BTreeMap<K, V> remove(K key) {
+    Node<K, V> rootPrime = root.remove(isLinear() ? editor : new Object(), key, comparator);
+    if (isLinear()) {
+      super.hash = -1;
+      root = rootPrime;
+      return this;
+    } else if (rootPrime == root) {
+      return this;
+    } else {
+      return new BTreeMap<>(rootPrime, false, comparator);
+    }
+  }
+
+  @Override
+  public BTreeMap<K, V> merge(IMap<K, V> b, BinaryOperator<V> mergeFn) {
+    return (BTreeMap<K, V>) super.merge(b, mergeFn);
+  }
+
+  @Override
+  public BTreeMap<K, V> union(IMap<K, V> m) {
+    return merge(m, (BinaryOperator<V>) Maps.MERGE_LAST_WRITE_WINS);
+  }
+
+  @Override
+  public BTreeMap<K, V> difference(IMap<K, ?> m) {
+    return (BTreeMap<K, V>) super.difference(m);
+  }
+
+  @Override
+  public BTreeMap<K, V> difference(ISet<K> keys) {
+    return (BTreeMap<K, V>) super.difference(keys);
+  }
+
+  @Override
+  public BTreeMap<K, V> intersection(IMap<K, ?> m) {
+    return intersection(m.keys());
+  }
+
+  @Override
+  public BTreeMap<K, V> intersection(ISet<K> keys) {
+    BTreeMap<K, V> result = (BTreeMap<K, V>) Maps.intersection(new BTreeMap<K, V>(comparator).linear(), this, keys);
+    return isLinear() ? result : result.forked();
+  }
+
+  @Override
+  public List<BTreeMap<K, V>> split(int parts) {
+    IList<Node<K, V>> acc = new LinearList<>();
+    root.split(Math.max(1, (long) Math.ceil((double) size() / parts)), acc);
+
+    return acc.stream()
+        .map(n -> new BTreeMap<>(n, isLinear(), comparator))
+        .collect(Lists.collector());
+  }
+
+  @Override
+  public V get(K key, V defaultValue) {
+    return BTreeMapNodes.get(root, key, defaultValue, comparator);
+  }
+
+  @Override
+  public boolean contains(K key) {
+    return BTreeMapNodes.contains(root, key, comparator);
+  }
+
+  @Override
+  public OptionalLong indexOf(K key) {
+    long idx = BTreeMapNodes.indexOf(root, key, comparator);
+    return idx < 0 ? OptionalLong.empty() : OptionalLong.of(idx);
+  }
+
+  @Override
+  public <U> BTreeMap<K, U> mapValues(BiFunction<K, V, U> f) {
+    return new BTreeMap<>(root.mapValues(f), isLinear(), comparator);
+  }
+
+  @Override
+  public Iterator<IEntry<K, V>> iterator(long startIndex) {
+    if (startIndex < 0 || startIndex > size()) {
+      throw new IndexOutOfBoundsException(String.format("%d must be within [0,%d]", startIndex, size()));
+    }
+    return BTreeMapNodes.iterator(root, startIndex, false);
+  }
+
+  @Override
+  public Iterator<IEntry<K, V>> reverseIterator(long startIndex) {
+    if (startIndex < -1 || startIndex >= size()) {
+      throw new IndexOutOfBoundsException(String.format("%d must be within [-1,%d)", startIndex, size()));
+    }
+    return BTreeMapNodes.iterator(root, startIndex, true);
+  }
+
+  @Override
+  public IEntry<K, V> nth(long idx) {
+    if (idx < 0 || idx >= size()) {
+      throw new IndexOutOfBoundsException(String.format("%d must be within [0,%d)", idx, size()));
+    }
+    return BTreeMapNodes.nth(root, idx);
+  }
+
+  @Override
+  public long size() {
+    return root.size();
+  }
+
+  @Override
+  public BTreeMap<K, V> clone() {
+    return isLinear() ? forked().linear() : this;
+  }
+
+  @Override
+  public boolean isLinear() {
+    return editor != null;
+  }
+
+  @Override
+  public BTreeMap<K, V> forked() {
+    return isLinear() ? new BTreeMap<>(root, false, comparator) : this;
+  }
+
+  @Override
+  public BTreeMap<K, V> linear() {
+    return isLinear() ? this : new BTreeMap<>(root, true, comparator);
+  }
+
+  @Override
+  public ToLongFunction<K> keyHash() {
+    return Maps.DEFAULT_HASH_CODE;
+  }
+
+  @Override
+  public BiPredicate<K, K> keyEquality() {
+    return Maps.DEFAULT_EQUALS;
+  }
+}
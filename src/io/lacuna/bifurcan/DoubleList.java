@@ -0,0 +1,160 @@
+package io.lacuna.bifurcan;
+
+import java.util.PrimitiveIterator;
+
+import static java.lang.Double.doubleToRawLongBits;
+import static java.lang.Double.longBitsToDouble;
+
+/**
+ * A list of primitive {@code double} values, built atop {@link LongList}, with which it shares performance
+ * characteristics.  Each element is stored as its raw bits, so unlike {@link FloatMap} every value, including
+ * {@code NaN} and {@code -0.0}, is preserved exactly.
+ *
+ * @author ztellman
+ */
+public class DoubleList implements Iterable<Double> {
+
+  final LongList list;
+
+  /**
+   * @return a list containing {@code elements}
+   */
+  public static DoubleList of(double... elements) {
+    DoubleList list = new DoubleList().linear();
+    for (double e : elements) {
+      list.addLast(e);
+    }
+    return list.forked();
+  }
+
+  /**
+   * @return a list containing the remaining elements in {@code iterator}
+   */
+  public static DoubleList from(PrimitiveIterator.OfDouble iterator) {
+    DoubleList list = new DoubleList().linear();
+    while (iterator.hasNext()) {
+      list.addLast(iterator.nextDouble());
+    }
+    return list.forked();
+  }
+
+  public DoubleList() {
+    this(new LongList());
+  }
+
+  private DoubleList(LongList list) {
+    this.list = list;
+  }
+
+  ///
+
+  /**
+   * @return the element at {@code idx}
+   * @throws IndexOutOfBoundsException when {@code idx} is not within {@code [0, size)}
+   */
+  public double nth(long idx) {
+    return longBitsToDouble(list.nth(idx));
+  }
+
+  public long size() {
+    return list.size();
+  }
+
+  public boolean isLinear() {
+    return list.isLinear();
+  }
+
+  /**
+   * @return a list with {@code value} appended
+   */
+  public DoubleList addLast(double value) {
+    LongList listPrime = list.addLast(doubleToRawLongBits(value));
+    return list == listPrime ? this : new DoubleList(listPrime);
+  }
+
+  /**
+   * @return the elements within {@code [start, end)}
+   * @throws IndexOutOfBoundsException when the range is not within {@code [0, size)}
+   */
+  public DoubleList slice(long start, long end) {
+    return new DoubleList(list.slice(start, end));
+  }
+
+  /**
+   * @return a list with the elements of {@code l} appended
+   */
+  public DoubleList concat(DoubleList l) {
+    return new DoubleList(list.concat(l.list));
+  }
+
+  public DoubleList forked() {
+    return isLinear() ? new DoubleList(list.forked()) : this;
+  }
+
+  public DoubleList linear() {
+    return isLinear() ? this : new DoubleList(list.linear());
+  }
+
+  @Override
+  public PrimitiveIterator.OfDouble iterator() {
+    return iterator(0);
+  }
+
+  /**
+   * @return an iterator over the elements from {@code startIndex} onwards
+   */
+  public PrimitiveIterator.OfDouble iterator(long startIndex) {
+    PrimitiveIterator.OfLong it = list.iterator(startIndex);
+    return new PrimitiveIterator.OfDouble() {
+      @Override
+      public boolean hasNext() {
+        return it.hasNext();
+      }
+
+      @Override
+      public double nextDouble() {
+        return longBitsToDouble(it.nextLong());
+      }
+    };
+  }
+
+  /**
+   * @return the elements of the list, in an array
+   */
+  public double[] toArray() {
+    long[] bits = list.toArray();
+    double[] result = new double[bits.length];
+    for (int i = 0; i < bits.length; i++) {
+      result[i] = longBitsToDouble(bits[i]);
+    }
+    return result;
+  }
+
+  @Override
+  public int hashCode() {
+    return list.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return obj instanceof DoubleList && list.equals(((DoubleList) obj).list);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("[");
+    PrimitiveIterator.OfDouble it = iterator();
+    while (it.hasNext()) {
+      sb.append(it.nextDouble());
+      if (it.hasNext()) {
+        sb.append(", ");
+      }
+    }
+    return sb.append("]").toString();
+  }
+
+  @Override
+  public DoubleList clone() {
+    return new DoubleList(list.clone());
+  }
+}
@@ -2,6 +2,7 @@ package io.lacuna.bifurcan;
 
 import io.lacuna.bifurcan.ISortedSet.Bound;
 import io.lacuna.bifurcan.utils.Encodings;
+import io.lacuna.bifurcan.utils.Iterators;
 
 import java.util.*;
 import java.util.function.*;
@@ -118,6 +119,16 @@ public class FloatMap<V> extends ISortedMap.Mixin<Double, V> {
     return map.size();
   }
 
+  @Override
+  public Iterator<IEntry<Double, V>> iterator(long startIndex) {
+    return Iterators.map(map.iterator(startIndex), FloatMap::convertEntry);
+  }
+
+  @Override
+  public Iterator<IEntry<Double, V>> reverseIterator(long startIndex) {
+    return Iterators.map(map.reverseIterator(startIndex), FloatMap::convertEntry);
+  }
+
   public OptionalLong floorIndex(double key) {
     return map.floorIndex(doubleToLong(key));
   }
@@ -1,8 +1,10 @@
 package io.lacuna.bifurcan;
 
 import io.lacuna.bifurcan.ISortedSet.Bound;
+import io.lacuna.bifurcan.utils.Iterators;
 
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.OptionalLong;
 import java.util.function.BiPredicate;
 import java.util.function.BinaryOperator;
@@ -51,9 +53,9 @@ public interface ISortedMap<K, V> extends IMap<K, V> {
   }
 
   default ISortedMap<K, V> slice(K min, Bound minBound, K max, Bound maxBound) {
-    OptionalLong start = keys().ceilIndex(min, minBound);
-    OptionalLong end = keys().floorIndex(max, maxBound);
-    return start.isPresent() && end.isPresent()
+    OptionalLong start = ceilIndex(min, minBound);
+    OptionalLong end = floorIndex(max, maxBound);
+    return start.isPresent() && end.isPresent() && start.getAsLong() <= end.getAsLong()
             ? sliceIndices(start.getAsLong(), end.getAsLong() + 1)
             : new SortedMap<>(comparator());
   }
@@ -61,10 +63,11 @@ public interface ISortedMap<K, V> extends IMap<K, V> {
   /**
    * @param startIndex The inclusive starting index
    * @param endIndex   The exclusive ending index
-   * @return a sorted map representing all entries within {@code [startIndex, endIndex)}
+   * @return a sorted map representing all entries within {@code [startIndex, endIndex)}, which is a view atop this
+   * map unless it's linear
    */
   default ISortedMap<K, V> sliceIndices(long startIndex, long endIndex) {
-    return keys().sliceIndices(startIndex, endIndex).zip(this);
+    return Maps.slice(this, startIndex, endIndex);
   }
 
   @Override
@@ -120,6 +123,38 @@ public interface ISortedMap<K, V> extends IMap<K, V> {
             : null;
   }
 
+  /**
+   * @return an iterator over the entries whose keys are greater than {@code key} (or equal to it, if {@code bound} is
+   * inclusive), in ascending order
+   */
+  default Iterator<IEntry<K, V>> iterator(K key, Bound bound) {
+    OptionalLong idx = ceilIndex(key, bound);
+    return idx.isPresent() ? iterator(idx.getAsLong()) : Iterators.EMPTY;
+  }
+
+  /**
+   * @return an iterator over the entries, in descending order
+   */
+  default Iterator<IEntry<K, V>> reverseIterator() {
+    return reverseIterator(size() - 1);
+  }
+
+  /**
+   * @return an iterator over the entries from {@code startIndex} down to the first entry, in descending order
+   */
+  default Iterator<IEntry<K, V>> reverseIterator(long startIndex) {
+    return Iterators.range(startIndex + 1, i -> nth(startIndex - i));
+  }
+
+  /**
+   * @return an iterator over the entries whose keys are less than {@code key} (or equal to it, if {@code bound} is
+   * inclusive), in descending order
+   */
+  default Iterator<IEntry<K, V>> reverseIterator(K key, Bound bound) {
+    OptionalLong idx = floorIndex(key, bound);
+    return idx.isPresent() ? reverseIterator(idx.getAsLong()) : Iterators.EMPTY;
+  }
+
   default ISortedMap<K, V> merge(IMap<K, V> b, BinaryOperator<V> mergeFn) {
     ISortedMap<K, V> result = forked().linear();
     b.forEach(e -> result.put(e.key(), e.value(), mergeFn));
@@ -1,6 +1,9 @@
 package io.lacuna.bifurcan;
 
+import io.lacuna.bifurcan.utils.Iterators;
+
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.OptionalLong;
 import java.util.function.BiPredicate;
 import java.util.function.Function;
@@ -110,6 +113,38 @@ public interface ISortedSet<V> extends ISet<V> {
                 : null;
     }
 
+    /**
+     * @return an iterator over the elements greater than {@code val} (or equal to it, if {@code bound} is inclusive),
+     * in ascending order
+     */
+    default Iterator<V> iterator(V val, Bound bound) {
+        OptionalLong idx = ceilIndex(val, bound);
+        return idx.isPresent() ? iterator(idx.getAsLong()) : Iterators.EMPTY;
+    }
+
+    /**
+     * @return an iterator over the elements, in descending order
+     */
+    default Iterator<V> reverseIterator() {
+        return reverseIterator(size() - 1);
+    }
+
+    /**
+     * @return an iterator over the elements from {@code startIndex} down to the first element, in descending order
+     */
+    default Iterator<V> reverseIterator(long startIndex) {
+        return Iterators.range(startIndex + 1, i -> nth(startIndex - i));
+    }
+
+    /**
+     * @return an iterator over the elements less than {@code val} (or equal to it, if {@code bound} is inclusive), in
+     * descending order
+     */
+    default Iterator<V> reverseIterator(V val, Bound bound) {
+        OptionalLong idx = floorIndex(val, bound);
+        return idx.isPresent() ? reverseIterator(idx.getAsLong()) : Iterators.EMPTY;
+    }
+
     /**
      * @param startIndex The inclusive starting index
      * @param endIndex The exclusive ending index
@@ -0,0 +1,279 @@
+package io.lacuna.bifurcan;
+
+import io.lacuna.bifurcan.nodes.IntLongMapNodes;
+
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.PrimitiveIterator;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.LongBinaryOperator;
+
+import static java.lang.Double.doubleToRawLongBits;
+import static java.lang.Double.longBitsToDouble;
+
+/**
+ * A map of primitive {@code long} keys onto primitive {@code double} values, built atop {@link IntLongMap}, with which
+ * it shares performance characteristics.  Each value is stored as its raw bits.
+ *
+ * @author ztellman
+ */
+public class IntDoubleMap {
+
+  /**
+   * A function which consumes a primitive {@code long} key and its associated {@code double} value.
+   */
+  @FunctionalInterface
+  public interface LongDoubleConsumer {
+    void accept(long key, double value);
+  }
+
+  /**
+   * A cursor over the entries in the map, which exposes each key and value without allocating an entry.
+   */
+  public static class Cursor {
+
+    private final IntLongMapNodes.Cursor cursor;
+
+    private Cursor(IntLongMapNodes.Cursor cursor) {
+      this.cursor = cursor;
+    }
+
+    /**
+     * @return true, if there are entries that haven't been visited
+     */
+    public boolean hasNext() {
+      return cursor.hasNext();
+    }
+
+    /**
+     * Moves to the next entry, which can then be read via {@link #key()} and {@link #value()}.
+     *
+     * @return false, if there are no remaining entries
+     */
+    public boolean advance() {
+      return cursor.advance();
+    }
+
+    public long key() {
+      return cursor.key();
+    }
+
+    public double value() {
+      return longBitsToDouble(cursor.value());
+    }
+  }
+
+  final IntLongMap map;
+
+  /**
+   * @return a forked copy of {@code m}
+   */
+  public static IntDoubleMap from(IMap<? extends Number, ? extends Number> m) {
+    IntDoubleMap map = new IntDoubleMap().linear();
+    for (IEntry<? extends Number, ? extends Number> e : m) {
+      map.put(e.key().longValue(), e.value().doubleValue());
+    }
+    return map.forked();
+  }
+
+  public IntDoubleMap() {
+    this(new IntLongMap());
+  }
+
+  private IntDoubleMap(IntLongMap map) {
+    this.map = map;
+  }
+
+  ///
+
+  /**
+   * @return an updated map with {@code value} under {@code key}
+   */
+  public IntDoubleMap put(long key, double value) {
+    return wrap(map.put(key, doubleToRawLongBits(value)));
+  }
+
+  /**
+   * @param merge a function which will be invoked if there is a pre-existing value under {@code key}, with the current
+   *              value as the first argument and new value as the second, to determine the combined result
+   * @return an updated map
+   */
+  public IntDoubleMap put(long key, double value, DoubleBinaryOperator merge) {
+    return wrap(map.put(key, doubleToRawLongBits(value), bits(merge)));
+  }
+
+  /**
+   * @return an updated map that does not contain {@code key}
+   */
+  public IntDoubleMap remove(long key) {
+    return wrap(map.remove(key));
+  }
+
+  /**
+   * @return the value under {@code key}, or {@code defaultValue} if there is no such key
+   */
+  public double get(long key, double defaultValue) {
+    return longBitsToDouble(map.get(key, doubleToRawLongBits(defaultValue)));
+  }
+
+  /**
+   * @return the value under {@code key}, if it's present
+   */
+  public OptionalDouble get(long key) {
+    OptionalLong bits = map.get(key);
+    return bits.isPresent() ? OptionalDouble.of(longBitsToDouble(bits.getAsLong())) : OptionalDouble.empty();
+  }
+
+  public boolean contains(long key) {
+    return map.contains(key);
+  }
+
+  /**
+   * @return the position of {@code key} within the map, if it's present
+   */
+  public OptionalLong indexOf(long key) {
+    return map.indexOf(key);
+  }
+
+  /**
+   * @return the index of the entry whose key is either equal to {@code key}, or just below it, if there is one
+   */
+  public OptionalLong floorIndex(long key) {
+    return map.floorIndex(key);
+  }
+
+  /**
+   * @return the index of the entry whose key is either equal to {@code key}, or just above it, if there is one
+   */
+  public OptionalLong ceilIndex(long key) {
+    return map.ceilIndex(key);
+  }
+
+  /**
+   * @return the key at {@code idx}
+   * @throws IndexOutOfBoundsException when {@code idx} is not within {@code [0, size)}
+   */
+  public long nthKey(long idx) {
+    return map.nthKey(idx);
+  }
+
+  /**
+   * @return the value at {@code idx}
+   * @throws IndexOutOfBoundsException when {@code idx} is not within {@code [0, size)}
+   */
+  public double nthValue(long idx) {
+    return longBitsToDouble(map.nthValue(idx));
+  }
+
+  public long size() {
+    return map.size();
+  }
+
+  /**
+   * @return a map with the same keys, and each value transformed by {@code f}
+   */
+  public IntDoubleMap mapValues(DoubleUnaryOperator f) {
+    return new IntDoubleMap(map.mapValues(v -> doubleToRawLongBits(f.applyAsDouble(longBitsToDouble(v)))));
+  }
+
+  /**
+   * @return a map which combines the entries of both maps, using {@code mergeFn} to combine the values of any keys
+   * that are shared
+   */
+  public IntDoubleMap merge(IntDoubleMap m, DoubleBinaryOperator mergeFn) {
+    return new IntDoubleMap(map.merge(m.map, bits(mergeFn)));
+  }
+
+  /**
+   * @return a map which combines the entries of both maps, preferring the values in {@code m}
+   */
+  public IntDoubleMap union(IntDoubleMap m) {
+    return new IntDoubleMap(map.union(m.map));
+  }
+
+  /**
+   * @return a map which contains only the entries whose keys are not in {@code m}
+   */
+  public IntDoubleMap difference(IntDoubleMap m) {
+    return new IntDoubleMap(map.difference(m.map));
+  }
+
+  /**
+   * @return a map which contains only the entries whose keys are also in {@code m}
+   */
+  public IntDoubleMap intersection(IntDoubleMap m) {
+    return new IntDoubleMap(map.intersection(m.map));
+  }
+
+  /**
+   * Invokes {@code f} on each key and value in the map, in order.
+   */
+  public void forEach(LongDoubleConsumer f) {
+    map.forEach((k, v) -> f.accept(k, longBitsToDouble(v)));
+  }
+
+  /**
+   * @return an iterator over the keys in the map, in order
+   */
+  public PrimitiveIterator.OfLong keyIterator() {
+    return map.keyIterator();
+  }
+
+  /**
+   * @return a cursor over the entries in the map, in order
+   */
+  public Cursor cursor() {
+    return new Cursor(map.cursor());
+  }
+
+  public boolean isLinear() {
+    return map.isLinear();
+  }
+
+  public IntDoubleMap forked() {
+    return isLinear() ? new IntDoubleMap(map.forked()) : this;
+  }
+
+  public IntDoubleMap linear() {
+    return isLinear() ? this : new IntDoubleMap(map.linear());
+  }
+
+  @Override
+  public int hashCode() {
+    return map.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return obj instanceof IntDoubleMap && map.equals(((IntDoubleMap) obj).map);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    Cursor cursor = cursor();
+    while (cursor.advance()) {
+      sb.append(cursor.key()).append(" ").append(cursor.value());
+      if (cursor.hasNext()) {
+        sb.append(", ");
+      }
+    }
+    return sb.append("}").toString();
+  }
+
+  @Override
+  public IntDoubleMap clone() {
+    return new IntDoubleMap(map.clone());
+  }
+
+  ///
+
+  private IntDoubleMap wrap(IntLongMap mapPrime) {
+    return map == mapPrime ? this : new IntDoubleMap(mapPrime);
+  }
+
+  private static LongBinaryOperator bits(DoubleBinaryOperator f) {
+    return (a, b) -> doubleToRawLongBits(f.applyAsDouble(longBitsToDouble(a), longBitsToDouble(b)));
+  }
+}
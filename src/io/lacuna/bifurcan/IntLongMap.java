@@ -0,0 +1,337 @@
+package io.lacuna.bifurcan;
+
+import io.lacuna.bifurcan.nodes.IntLongMapNodes;
+import io.lacuna.bifurcan.nodes.IntLongMapNodes.Node;
+
+import java.util.NoSuchElementException;
+import java.util.OptionalLong;
+import java.util.PrimitiveIterator;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * A map of primitive {@code long} keys onto primitive {@code long} values, which is equivalent to {@link IntMap} but
+ * stores its values in a {@code long[]} alongside the keys, rather than boxing them.  Like {@link IntMap}, it keeps
+ * its keys in sorted order, and its set operations share structure with their inputs.
+ *
+ * @author ztellman
+ */
+public class IntLongMap {
+
+  private static final LongBinaryOperator MERGE_LAST_WRITE_WINS = (a, b) -> b;
+
+  /**
+   * A function which consumes a primitive {@code long} key and its associated {@code long} value.
+   */
+  @FunctionalInterface
+  public interface LongLongConsumer {
+    void accept(long key, long value);
+  }
+
+  final Object editor;
+  Node neg, pos;
+  private int hash = -1;
+
+  /**
+   * @return a forked copy of {@code m}
+   */
+  public static IntLongMap from(IMap<? extends Number, ? extends Number> m) {
+    IntLongMap map = new IntLongMap().linear();
+    for (IEntry<? extends Number, ? extends Number> e : m) {
+      map.put(e.key().longValue(), e.value().longValue());
+    }
+    return map.forked();
+  }
+
+  public IntLongMap() {
+    this(Node.NEG_EMPTY, Node.POS_EMPTY, false);
+  }
+
+  private IntLongMap(Node neg, Node pos, boolean linear) {
+    this.neg = neg;
+    this.pos = pos;
+    this.editor = linear ? new Object() : null;
+  }
+
+  ///
+
+  /**
+   * @return an updated map with {@code value} under {@code key}
+   */
+  public IntLongMap put(long key, long value) {
+    return put(key, value, MERGE_LAST_WRITE_WINS);
+  }
+
+  /**
+   * @param merge a function which will be invoked if there is a pre-existing value under {@code key}, with the current
+   *              value as the first argument and new value as the second, to determine the combined result
+   * @return an updated map
+   */
+  public IntLongMap put(long key, long value, LongBinaryOperator merge) {
+    Object editor = isLinear() ? this.editor : new Object();
+    if (key < 0) {
+      Node negPrime = neg.put(editor, key, value, merge);
+      return update(negPrime, pos);
+    } else {
+      Node posPrime = pos.put(editor, key, value, merge);
+      return update(neg, posPrime);
+    }
+  }
+
+  /**
+   * @return an updated map that does not contain {@code key}
+   */
+  public IntLongMap remove(long key) {
+    Object editor = isLinear() ? this.editor : new Object();
+    if (key < 0) {
+      return update(neg.remove(editor, key), pos);
+    } else {
+      return update(neg, pos.remove(editor, key));
+    }
+  }
+
+  /**
+   * @return the value under {@code key}, or {@code defaultValue} if there is no such key
+   */
+  public long get(long key, long defaultValue) {
+    return (key < 0 ? neg : pos).get(key, defaultValue);
+  }
+
+  /**
+   * @return the value under {@code key}, if it's present
+   */
+  public OptionalLong get(long key) {
+    Node n = key < 0 ? neg : pos;
+    return n.contains(key) ? OptionalLong.of(n.get(key, 0)) : OptionalLong.empty();
+  }
+
+  public boolean contains(long key) {
+    return (key < 0 ? neg : pos).contains(key);
+  }
+
+  /**
+   * @return the position of {@code key} within the map, if it's present
+   */
+  public OptionalLong indexOf(long key) {
+    if (key < 0) {
+      return neg.indexOf(key);
+    } else {
+      OptionalLong index = pos.indexOf(key);
+      return index.isPresent() ? OptionalLong.of(index.getAsLong() + neg.size()) : index;
+    }
+  }
+
+  /**
+   * @return the index of the entry whose key is either equal to {@code key}, or just below it, if there is one
+   */
+  public OptionalLong floorIndex(long key) {
+    if (key < 0) {
+      long idx = neg.floorIndex(key, 0);
+      return idx < 0 ? OptionalLong.empty() : OptionalLong.of(idx);
+    } else {
+      long idx = pos.floorIndex(key, 0);
+      idx = idx >= 0 ? idx + neg.size() : neg.size() - 1;
+      return idx < 0 ? OptionalLong.empty() : OptionalLong.of(idx);
+    }
+  }
+
+  /**
+   * @return the index of the entry whose key is either equal to {@code key}, or just above it, if there is one
+   */
+  public OptionalLong ceilIndex(long key) {
+    if (key < 0) {
+      long idx = neg.ceilIndex(key, 0);
+      if (idx < 0 && pos.size() > 0) {
+        idx = neg.size();
+      }
+      return idx < 0 ? OptionalLong.empty() : OptionalLong.of(idx);
+    } else {
+      long idx = pos.ceilIndex(key, 0);
+      return idx < 0 ? OptionalLong.empty() : OptionalLong.of(neg.size() + idx);
+    }
+  }
+
+  /**
+   * @return the key at {@code idx}
+   * @throws IndexOutOfBoundsException when {@code idx} is not within {@code [0, size)}
+   */
+  public long nthKey(long idx) {
+    checkIndex(idx);
+    return idx < neg.size() ? neg.nthKey(idx) : pos.nthKey(idx - neg.size());
+  }
+
+  /**
+   * @return the value at {@code idx}
+   * @throws IndexOutOfBoundsException when {@code idx} is not within {@code [0, size)}
+   */
+  public long nthValue(long idx) {
+    checkIndex(idx);
+    return idx < neg.size() ? neg.nthValue(idx) : pos.nthValue(idx - neg.size());
+  }
+
+  public long size() {
+    return neg.size() + pos.size();
+  }
+
+  /**
+   * @return a map with the same keys, and each value transformed by {@code f}
+   */
+  public IntLongMap mapValues(LongUnaryOperator f) {
+    Object editor = new Object();
+    return new IntLongMap(neg.mapValues(editor, f), pos.mapValues(editor, f), isLinear());
+  }
+
+  /**
+   * @return a map which combines the entries of both maps, using {@code mergeFn} to combine the values of any keys
+   * that are shared
+   */
+  public IntLongMap merge(IntLongMap m, LongBinaryOperator mergeFn) {
+    return new IntLongMap(
+        IntLongMapNodes.merge(new Object(), neg, m.neg, mergeFn),
+        IntLongMapNodes.merge(new Object(), pos, m.pos, mergeFn),
+        isLinear()
+    );
+  }
+
+  /**
+   * @return a map which combines the entries of both maps, preferring the values in {@code m}
+   */
+  public IntLongMap union(IntLongMap m) {
+    return merge(m, MERGE_LAST_WRITE_WINS);
+  }
+
+  /**
+   * @return a map which contains only the entries whose keys are not in {@code m}
+   */
+  public IntLongMap difference(IntLongMap m) {
+    Node negPrime = IntLongMapNodes.difference(new Object(), neg, m.neg);
+    Node posPrime = IntLongMapNodes.difference(new Object(), pos, m.pos);
+    return new IntLongMap(
+        negPrime == null ? Node.NEG_EMPTY : negPrime,
+        posPrime == null ? Node.POS_EMPTY : posPrime,
+        isLinear()
+    );
+  }
+
+  /**
+   * @return a map which contains only the entries whose keys are also in {@code m}
+   */
+  public IntLongMap intersection(IntLongMap m) {
+    Node negPrime = IntLongMapNodes.intersection(new Object(), neg, m.neg);
+    Node posPrime = IntLongMapNodes.intersection(new Object(), pos, m.pos);
+    return new IntLongMap(
+        negPrime == null ? Node.NEG_EMPTY : negPrime,
+        posPrime == null ? Node.POS_EMPTY : posPrime,
+        isLinear()
+    );
+  }
+
+  /**
+   * Invokes {@code f} on each key and value in the map, in order.
+   */
+  public void forEach(LongLongConsumer f) {
+    neg.forEach(f);
+    pos.forEach(f);
+  }
+
+  /**
+   * @return an iterator over the keys in the map, in order
+   */
+  public PrimitiveIterator.OfLong keyIterator() {
+    IntLongMapNodes.Cursor cursor = cursor();
+    return new PrimitiveIterator.OfLong() {
+      @Override
+      public boolean hasNext() {
+        return cursor.hasNext();
+      }
+
+      @Override
+      public long nextLong() {
+        if (!cursor.advance()) {
+          throw new NoSuchElementException();
+        }
+        return cursor.key();
+      }
+    };
+  }
+
+  /**
+   * @return a cursor over the entries in the map, in order
+   */
+  public IntLongMapNodes.Cursor cursor() {
+    return new IntLongMapNodes.Cursor(neg, pos);
+  }
+
+  public boolean isLinear() {
+    return editor != null;
+  }
+
+  public IntLongMap forked() {
+    return isLinear() ? new IntLongMap(neg, pos, false) : this;
+  }
+
+  public IntLongMap linear() {
+    return isLinear() ? this : new IntLongMap(neg, pos, true);
+  }
+
+  @Override
+  public int hashCode() {
+    // equivalent to Maps.hash() for an IntMap<Long>, but without boxing the entries
+    if (hash == -1) {
+      long[] h = {0};
+      forEach((k, v) -> h[0] += (k * 31) ^ Long.hashCode(v));
+      hash = (int) h[0];
+    }
+    return hash;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof IntLongMap) {
+      IntLongMap m = (IntLongMap) obj;
+      return neg.equals(m.neg) && pos.equals(m.pos);
+    } else {
+      return false;
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    IntLongMapNodes.Cursor cursor = cursor();
+    while (cursor.advance()) {
+      sb.append(cursor.key()).append(" ").append(cursor.value());
+      if (cursor.hasNext()) {
+        sb.append(", ");
+      }
+    }
+    return sb.append("}").toString();
+  }
+
+  @Override
+  public IntLongMap clone() {
+    return new IntLongMap(neg, pos, isLinear());
+  }
+
+  ///
+
+  private IntLongMap update(Node negPrime, Node posPrime) {
+    if (isLinear()) {
+      // the nodes may have been updated in-place, so we can't rely on identity to tell if anything's changed
+      hash = -1;
+      neg = negPrime;
+      pos = posPrime;
+      return this;
+    } else if (neg == negPrime && pos == posPrime) {
+      return this;
+    } else {
+      return new IntLongMap(negPrime, posPrime, false);
+    }
+  }
+
+  private void checkIndex(long idx) {
+    if (idx < 0 || idx >= size()) {
+      throw new IndexOutOfBoundsException(idx + " must be within [0," + size() + ")");
+    }
+  }
+}
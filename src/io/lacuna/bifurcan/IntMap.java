@@ -25,6 +25,14 @@ import java.util.function.*;
  */
 public class IntMap<V> extends ISortedMap.Mixin<Long, V> {
 
+  /**
+   * A function which consumes a primitive {@code long} key and its associated value.
+   */
+  @FunctionalInterface
+  public interface LongObjConsumer<V> {
+    void accept(long key, V value);
+  }
+
   static final ToLongFunction<Long> HASH = n -> n;
   private static final Object DEFAULT_VALUE = new Object();
 
@@ -360,6 +368,91 @@ public class IntMap<V> extends ISortedMap.Mixin<Long, V> {
     return Iterators.concat(neg.iterator(), pos.iterator());
   }
 
+  @Override
+  public Iterator<IEntry<Long, V>> iterator(long startIndex) {
+    if (startIndex < 0 || startIndex > size()) {
+      throw new IndexOutOfBoundsException(String.format("%d must be within [0,%d]", startIndex, size()));
+    }
+    long negSize = neg.size();
+    return startIndex < negSize
+        ? Iterators.concat(IntMapNodes.iterator(neg, startIndex, false), pos.iterator())
+        : IntMapNodes.iterator(pos, startIndex - negSize, false);
+  }
+
+  @Override
+  public Iterator<IEntry<Long, V>> reverseIterator(long startIndex) {
+    if (startIndex < -1 || startIndex >= size()) {
+      throw new IndexOutOfBoundsException(String.format("%d must be within [-1,%d)", startIndex, size()));
+    }
+    long negSize = neg.size();
+    return startIndex < negSize
+        ? IntMapNodes.iterator(neg, startIndex, true)
+        : Iterators.concat(IntMapNodes.iterator(pos, startIndex - negSize, true), IntMapNodes.iterator(neg, negSize - 1, true));
+  }
+
+  /**
+   * @return the key at {@code idx}
+   * @throws IndexOutOfBoundsException when {@code idx} is not within {@code [0, size)}
+   */
+  public long nthKey(long idx) {
+    checkIndex(idx);
+    return idx < neg.size() ? neg.nthKey(idx) : pos.nthKey(idx - neg.size());
+  }
+
+  /**
+   * @return the value at {@code idx}
+   * @throws IndexOutOfBoundsException when {@code idx} is not within {@code [0, size)}
+   */
+  public V nthValue(long idx) {
+    checkIndex(idx);
+    return idx < neg.size() ? neg.nthValue(idx) : pos.nthValue(idx - neg.size());
+  }
+
+  /**
+   * Invokes {@code f} on each key and value in the map, in order, without boxing the keys.
+   */
+  public void forEach(LongObjConsumer<V> f) {
+    neg.forEach(f);
+    pos.forEach(f);
+  }
+
+  /**
+   * @return an iterator over the keys in the map, in order, without boxing them
+   */
+  public PrimitiveIterator.OfLong keyIterator() {
+    IntMapNodes.Cursor<V> cursor = cursor();
+    return new PrimitiveIterator.OfLong() {
+      @Override
+      public boolean hasNext() {
+        return cursor.hasNext();
+      }
+
+      @Override
+      public long nextLong() {
+        if (!cursor.advance()) {
+          throw new NoSuchElementException();
+        }
+        return cursor.key();
+      }
+    };
+  }
+
+  /**
+   * @return a cursor over the entries in the map, in order, which exposes each key and value without allocating
+   */
+  public IntMapNodes.Cursor<V> cursor() {
+    return new IntMapNodes.Cursor<>(neg, pos);
+  }
+
+  @Override
+  public Spliterator<IEntry<Long, V>> spliterator() {
+    return spliterator(IEntry::of);
+  }
+
+  <T> Spliterator<T> spliterator(BiFunction<Long, V, T> f) {
+    return IntMapNodes.spliterator(neg, pos, f, Spliterator.ORDERED | Spliterator.DISTINCT);
+  }
+
   /**
    * @return the entry whose key is either equal to {@code key}, or just below it. If {@code key} is less than the
    * minimum value in the map, returns {@code null}.
@@ -471,6 +564,12 @@ public class IntMap<V> extends ISortedMap.Mixin<Long, V> {
     }
   }
 
+  private void checkIndex(long idx) {
+    if (idx < 0 || idx >= size()) {
+      throw new IndexOutOfBoundsException(idx + " must be within [0," + size() + ")");
+    }
+  }
+
   @Override
   public IntMap<V> clone() {
     return new IntMap<>(neg, pos, isLinear());
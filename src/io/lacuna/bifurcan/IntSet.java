@@ -1,7 +1,11 @@
 package io.lacuna.bifurcan;
 
+import io.lacuna.bifurcan.utils.Iterators;
+
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.OptionalLong;
+import java.util.Spliterator;
 import java.util.function.BiPredicate;
 import java.util.function.ToLongFunction;
 
@@ -112,6 +116,21 @@ public class IntSet extends ISet.Mixin<Long> implements ISortedSet<Long> {
     return m.nth(idx).key();
   }
 
+  @Override
+  public Iterator<Long> iterator(long startIndex) {
+    return Iterators.map(m.iterator(startIndex), IEntry::key);
+  }
+
+  @Override
+  public Iterator<Long> reverseIterator(long startIndex) {
+    return Iterators.map(m.reverseIterator(startIndex), IEntry::key);
+  }
+
+  @Override
+  public Spliterator<Long> spliterator() {
+    return m.spliterator((k, v) -> k);
+  }
+
   @Override
   public IList<Long> elements() {
     return Lists.lazyMap(m.entries(), IEntry::key);
@@ -0,0 +1,637 @@
+package io.lacuna.bifurcan;
+
+import io.lacuna.bifurcan.LinearMap.Row;
+import io.lacuna.bifurcan.utils.Iterators;
+
+import java.util.*;
+import java.util.function.*;
+
+import static io.lacuna.bifurcan.utils.Bits.log2Ceil;
+import static java.lang.System.arraycopy;
+
+/**
+ * A hash-map with primitive {@code long} keys, which uses the same Robin Hood hashing and table layout as
+ * {@link LinearMap}, but stores its keys in a {@code long[]}.  The {@link #get(long, Object)},
+ * {@link #put(long, Object)}, {@link #remove(long)}, and {@link #indexOf(long)} methods never box their keys, and
+ * equality is checked by comparing the keys directly, rather than through a {@link BiPredicate}.
+ * <p>
+ * Since it implements {@code IMap<Long, V>}, it can be used anywhere another map with {@code Long} keys can, in which
+ * case keys are boxed at the boundary.  Its forked equivalent is an {@link IntMap}.
+ *
+ * @author ztellman
+ */
+@SuppressWarnings("unchecked")
+public class LinearLongMap<V> extends IMap.Mixin<Long, V> {
+
+  /// Fields
+
+  public static final int MAX_CAPACITY = LinearMap.MAX_CAPACITY;
+  private static final float LOAD_FACTOR = 0.95f;
+
+  private static final int NONE = 0;
+  private static final int FALLBACK = 1;
+
+  private static final BiPredicate<Long, Long> EQUALS = Long::equals;
+
+  private int indexMask;
+  long[] table;
+  long[] keys;
+  Object[] values;
+  private int size;
+
+  /// Constructors
+
+  /**
+   * @return a copy of {@code map}
+   */
+  public static <V> LinearLongMap<V> from(IMap<Long, V> map) {
+    if (map instanceof LinearLongMap) {
+      return ((LinearLongMap<V>) map).clone();
+    } else {
+      LinearLongMap<V> result = new LinearLongMap<V>((int) map.size());
+      map.forEach(e -> result.put((long) e.key(), e.value()));
+      return result;
+    }
+  }
+
+  /**
+   * @return a map representing all remaining entries in {@code iterator}
+   */
+  public static <V> LinearLongMap<V> from(Iterator<IEntry<Long, V>> iterator) {
+    LinearLongMap<V> m = new LinearLongMap<>();
+    iterator.forEachRemaining(e -> m.put((long) e.key(), e.value()));
+    return m;
+  }
+
+  public LinearLongMap() {
+    this(16);
+  }
+
+  /**
+   * @param initialCapacity the initial capacity of the map
+   */
+  public LinearLongMap(int initialCapacity) {
+    if (initialCapacity > MAX_CAPACITY) {
+      throw new IllegalArgumentException("initialCapacity cannot be larger than " + MAX_CAPACITY);
+    }
+
+    this.size = 0;
+    resize(initialCapacity);
+  }
+
+  private LinearLongMap(int tableLength, int entriesLength) {
+    this.size = 0;
+    resize(tableLength, entriesLength);
+  }
+
+  /// Accessors
+
+  @Override
+  public ToLongFunction<Long> keyHash() {
+    return IntMap.HASH;
+  }
+
+  @Override
+  public BiPredicate<Long, Long> keyEquality() {
+    return EQUALS;
+  }
+
+  /**
+   * @return the value under {@code key}, or {@code defaultValue} if there is no such key
+   */
+  public V get(long key, V defaultValue) {
+    int idx = tableIndex(keyHash(key), key);
+    return idx >= 0 ? (V) values[Row.keyIndex(table[idx])] : defaultValue;
+  }
+
+  /**
+   * @return an {@link Optional} containing the value under {@code key}, or nothing if the value is {@code null} or
+   * is not contained within the map
+   */
+  public Optional<V> get(long key) {
+    return Optional.ofNullable(get(key, null));
+  }
+
+  @Override
+  public V get(Long key, V defaultValue) {
+    return get((long) key, defaultValue);
+  }
+
+  /**
+   * @return true if {@code key} is in the map, false otherwise
+   */
+  public boolean contains(long key) {
+    return tableIndex(keyHash(key), key) >= 0;
+  }
+
+  @Override
+  public boolean contains(Long key) {
+    return contains((long) key);
+  }
+
+  /**
+   * @return the index of {@code key} within the collection, if it's present
+   */
+  public OptionalLong indexOf(long key) {
+    int idx = tableIndex(keyHash(key), key);
+    return idx >= 0 ? OptionalLong.of(Row.keyIndex(table[idx])) : OptionalLong.empty();
+  }
+
+  @Override
+  public OptionalLong indexOf(Long key) {
+    return indexOf((long) key);
+  }
+
+  /**
+   * @return the key at {@code index}
+   */
+  public long nthKey(long index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(index + " must be within [0," + size + ")");
+    }
+    return keys[(int) index];
+  }
+
+  @Override
+  public IEntry<Long, V> nth(long index) {
+    return IEntry.of(nthKey(index), (V) values[(int) index]);
+  }
+
+  @Override
+  public Iterator<IEntry<Long, V>> iterator() {
+    final long[] keys = this.keys;
+    final Object[] values = this.values;
+    return Iterators.range(size, i -> IEntry.of(keys[(int) i], (V) values[(int) i]));
+  }
+
+  @Override
+  public long size() {
+    return size;
+  }
+
+  /// Updates
+
+  /**
+   * @return the map, with {@code value} stored under {@code key}
+   */
+  public LinearLongMap<V> put(long key, V value) {
+    return put(key, value, Maps.MERGE_LAST_WRITE_WINS);
+  }
+
+  /**
+   * @param merge a function which will be invoked if there is a pre-existing value under {@code key}, with the current
+   *              value as the first argument and new value as the second, to determine the combined result
+   * @return the map, with {@code value} stored under {@code key}
+   */
+  public LinearLongMap<V> put(long key, V value, BinaryOperator<V> merge) {
+    if (size == keys.length) {
+      resize(size << 1);
+    }
+    put(keyHash(key), key, value, merge);
+    super.hash = -1;
+
+    return this;
+  }
+
+  @Override
+  public LinearLongMap<V> put(Long key, V value) {
+    return put((long) key, value, Maps.MERGE_LAST_WRITE_WINS);
+  }
+
+  @Override
+  public LinearLongMap<V> put(Long key, V value, BinaryOperator<V> merge) {
+    return put((long) key, value, merge);
+  }
+
+  /**
+   * @return the map, without {@code key}
+   */
+  public LinearLongMap<V> remove(long key) {
+    int idx = tableIndex(keyHash(key), key);
+
+    if (idx >= 0) {
+      long row = table[idx];
+      size--;
+      int keyIndex = Row.keyIndex(row);
+      int lastKeyIndex = size;
+
+      // if we're not the last entry, swap the last entry into our slot, so we remain dense
+      if (keyIndex != lastKeyIndex) {
+        long lastKey = keys[lastKeyIndex];
+        V lastValue = (V) values[lastKeyIndex];
+        int lastIdx = tableIndex(keyHash(lastKey), lastKey);
+        table[lastIdx] = Row.construct(Row.hash(table[lastIdx]), keyIndex);
+        putEntry(keyIndex, lastKey, lastValue);
+      }
+
+      table[idx] = Row.addTombstone(row);
+      putEntry(lastKeyIndex, 0, null);
+      super.hash = -1;
+    }
+
+    return this;
+  }
+
+  @Override
+  public LinearLongMap<V> remove(Long key) {
+    return remove((long) key);
+  }
+
+  /**
+   * @param update a function which takes the existing value, or {@code null} if none exists, and returns an updated
+   *               value
+   * @return the map, with {@code update(value)} under {@code key}
+   */
+  public LinearLongMap<V> update(long key, UnaryOperator<V> update) {
+    int idx = tableIndex(keyHash(key), key);
+    if (idx >= 0) {
+      int valIdx = Row.keyIndex(table[idx]);
+      values[valIdx] = update.apply((V) values[valIdx]);
+      super.hash = -1;
+    } else {
+      put(key, update.apply(null));
+    }
+
+    return this;
+  }
+
+  @Override
+  public LinearLongMap<V> update(Long key, UnaryOperator<V> update) {
+    return update((long) key, update);
+  }
+
+  public LinearLongMap<V> clear() {
+    Arrays.fill(values, null);
+    Arrays.fill(table, 0);
+    size = 0;
+    super.hash = -1;
+
+    return this;
+  }
+
+  @Override
+  public <U> LinearLongMap<U> mapValues(BiFunction<Long, V, U> f) {
+    LinearLongMap m = clone();
+    for (int i = 0; i < size; i++) {
+      m.values[i] = f.apply(keys[i], (V) values[i]);
+    }
+
+    return m;
+  }
+
+  @Override
+  public LinearLongSet keys() {
+    return new LinearLongSet((LinearLongMap<Void>) this);
+  }
+
+  @Override
+  public boolean isLinear() {
+    return true;
+  }
+
+  @Override
+  public IntMap<V> forked() {
+    IntMap<V> m = new IntMap<V>().linear();
+    for (int i = 0; i < size; i++) {
+      m = m.put(keys[i], (V) values[i]);
+    }
+    return m.forked();
+  }
+
+  @Override
+  public LinearLongMap<V> linear() {
+    return this;
+  }
+
+  @Override
+  public LinearLongMap<V> clone() {
+    LinearLongMap<V> m = new LinearLongMap<V>(table.length, keys.length);
+    m.size = size;
+    m.indexMask = indexMask;
+    arraycopy(table, 0, m.table, 0, table.length);
+    arraycopy(keys, 0, m.keys, 0, size);
+    arraycopy(values, 0, m.values, 0, size);
+    return m;
+  }
+
+  @Override
+  public int hashCode() {
+    // equivalent to Maps.hash(), but without boxing the keys
+    if (super.hash == -1) {
+      long hash = 0;
+      for (int i = 0; i < size; i++) {
+        hash += (keys[i] * 31) ^ Objects.hashCode(values[i]);
+      }
+      super.hash = (int) hash;
+    }
+
+    return super.hash;
+  }
+
+  @Override
+  public List<LinearLongMap<V>> split(int parts) {
+    parts = Math.min(parts, size);
+    List<LinearLongMap<V>> list = new List<LinearLongMap<V>>().linear();
+    if (parts <= 1) {
+      return list.addLast(this).forked();
+    }
+
+    int partSize = table.length / parts;
+    for (int p = 0; p < parts; p++) {
+      int start = p * partSize;
+      int finish = (p == (parts - 1)) ? table.length : start + partSize;
+
+      LinearLongMap<V> m = new LinearLongMap<>(finish - start);
+
+      for (int i = start; i < finish; i++) {
+        long row = table[i];
+        if (Row.populated(row)) {
+          int keyIndex = Row.keyIndex(row);
+          m.append(Row.hash(row), keys[keyIndex], (V) values[keyIndex]);
+        }
+      }
+
+      if (m.size > 0) {
+        list.addLast(m);
+      }
+    }
+
+    return list.forked();
+  }
+
+  @Override
+  public LinearLongMap<V> union(IMap<Long, V> m) {
+    return merge(m, Maps.MERGE_LAST_WRITE_WINS);
+  }
+
+  @Override
+  public LinearLongMap<V> merge(IMap<Long, V> m, BinaryOperator<V> mergeFn) {
+    if (m instanceof LinearLongMap) {
+      return merge((LinearLongMap<V>) m, mergeFn);
+    } else {
+      LinearLongMap<V> result = this.clone();
+      for (IEntry<Long, V> e : m.entries()) {
+        result.put((long) e.key(), e.value(), mergeFn);
+      }
+      return result;
+    }
+  }
+
+  @Override
+  public LinearLongMap<V> difference(IMap<Long, ?> m) {
+    if (m instanceof LinearLongMap) {
+      return combine((LinearLongMap<?>) m, false);
+    } else {
+      return difference(m.keys());
+    }
+  }
+
+  @Override
+  public LinearLongMap<V> difference(ISet<Long> keys) {
+    if (keys instanceof LinearLongSet) {
+      return combine(((LinearLongSet) keys).map, false);
+    } else {
+      LinearLongMap<V> result = new LinearLongMap<>(size);
+      for (int i = 0; i < size; i++) {
+        if (!keys.contains(this.keys[i])) {
+          result.put(this.keys[i], (V) values[i]);
+        }
+      }
+      return result;
+    }
+  }
+
+  @Override
+  public LinearLongMap<V> intersection(IMap<Long, ?> m) {
+    if (m instanceof LinearLongMap) {
+      return combine((LinearLongMap<?>) m, true);
+    } else {
+      return intersection(m.keys());
+    }
+  }
+
+  @Override
+  public LinearLongMap<V> intersection(ISet<Long> keys) {
+    if (keys instanceof LinearLongSet) {
+      return combine(((LinearLongSet) keys).map, true);
+    } else {
+      LinearLongMap<V> result = new LinearLongMap<>((int) Math.min(size, keys.size()));
+      for (int i = 0; i < size; i++) {
+        if (keys.contains(this.keys[i])) {
+          result.put(this.keys[i], (V) values[i]);
+        }
+      }
+      return result;
+    }
+  }
+
+  /// Bookkeeping functions
+
+  private LinearLongMap<V> merge(LinearLongMap<V> m, BinaryOperator<V> mergeFn) {
+    if (m.size > size) {
+      return m.merge(this, (x, y) -> mergeFn.apply(y, x));
+    }
+
+    LinearLongMap<V> result = this.clone();
+
+    result.resize(result.size + m.size);
+    for (long row : m.table) {
+      if (Row.populated(row)) {
+        int keyIndex = Row.keyIndex(row);
+        result.put(Row.hash(row), m.keys[keyIndex], (V) m.values[keyIndex], mergeFn);
+      }
+    }
+    return result;
+  }
+
+  private LinearLongMap<V> combine(LinearLongMap<?> m, boolean contains) {
+    LinearLongMap<V> result = new LinearLongMap<>(contains ? Math.min(size, m.size) : size);
+    for (long row : table) {
+      if (Row.populated(row)) {
+        int keyIndex = Row.keyIndex(row);
+        long key = keys[keyIndex];
+        if ((m.tableIndex(Row.hash(row), key) != -1) == contains) {
+          result.append(Row.hash(row), key, (V) values[keyIndex]);
+        }
+      }
+    }
+    return result;
+  }
+
+  // adds an entry which is known to not already be in the map, and for which there is sufficient capacity
+  private void append(int hash, long key, V value) {
+    putEntry(size, key, value);
+    putTable(hash, size);
+    size++;
+  }
+
+  private void resize(int tableLength, int entriesLength) {
+    indexMask = tableLength - 1;
+
+    // update table
+    if (table == null) {
+      table = new long[tableLength];
+    } else if (table.length != tableLength) {
+      long[] oldTable = table;
+      this.table = new long[tableLength];
+      for (long row : oldTable) {
+        if (Row.populated(row)) {
+          int hash = Row.hash(row);
+          putTable(hash, Row.keyIndex(row), estimatedIndex(hash));
+        }
+      }
+    }
+
+    // update entries
+    if (keys == null) {
+      keys = new long[entriesLength];
+      values = new Object[entriesLength];
+    } else {
+      long[] nKeys = new long[entriesLength];
+      Object[] nValues = new Object[entriesLength];
+      arraycopy(keys, 0, nKeys, 0, size);
+      arraycopy(values, 0, nValues, 0, size);
+      keys = nKeys;
+      values = nValues;
+    }
+  }
+
+  private void resize(int capacity) {
+
+    if (capacity > MAX_CAPACITY) {
+      throw new IllegalStateException("the map cannot be larger than " + MAX_CAPACITY);
+    }
+
+    capacity = Math.max(4, capacity);
+    int tableLength = 1 << log2Ceil((long) Math.ceil(capacity / LOAD_FACTOR));
+    resize(tableLength, capacity);
+  }
+
+  private int tableIndex(int hash, long key) {
+    for (int idx = estimatedIndex(hash), dist = 0; ; idx = nextIndex(idx), dist++) {
+      long row = table[idx];
+      int currHash = Row.hash(row);
+      if (currHash == hash && !Row.tombstone(row) && keys[Row.keyIndex(row)] == key) {
+        return idx;
+      } else if (currHash == NONE || dist > probeDistance(currHash, idx)) {
+        return -1;
+      }
+    }
+  }
+
+  private void putTable(int hash, int keyIndex, int tableIndex) {
+    int tombstoneIdx = -1;
+
+    for (int idx = tableIndex, dist = probeDistance(hash, tableIndex); ; idx = nextIndex(idx), dist++) {
+      long row = table[idx];
+      int currHash = Row.hash(row);
+      boolean isTombstone = Row.tombstone(row);
+
+      if (currHash == NONE) {
+        table[idx] = Row.construct(hash, keyIndex);
+        break;
+      }
+
+      int currDist = probeDistance(currHash, idx);
+      if (!isTombstone && currDist > dist) {
+        tombstoneIdx = -1;
+      } else if (isTombstone && tombstoneIdx == -1) {
+        tombstoneIdx = idx;
+      }
+
+      if (dist > currDist) {
+        long nRow = Row.construct(hash, keyIndex);
+
+        if (tombstoneIdx >= 0) {
+          table[tombstoneIdx] = nRow;
+          break;
+        }
+
+        table[idx] = nRow;
+        if (isTombstone) {
+          break;
+        }
+
+        dist = currDist;
+        keyIndex = Row.keyIndex(row);
+        hash = currHash;
+      }
+    }
+  }
+
+  private void putTable(int hash, int keyIndex) {
+    putTable(hash, keyIndex, estimatedIndex(hash));
+  }
+
+  private void putEntry(int keyIndex, long key, V value) {
+    keys[keyIndex] = key;
+    values[keyIndex] = value;
+  }
+
+  private void put(int hash, long key, V value, BinaryOperator<V> mergeFn) {
+    int tombstoneIdx = -1;
+    for (int idx = estimatedIndex(hash), dist = 0; ; idx = nextIndex(idx), dist++) {
+      long row = table[idx];
+      int currHash = Row.hash(row);
+      boolean isNone = currHash == NONE;
+      boolean isTombstone = Row.tombstone(row);
+
+      if (currHash == hash && !isTombstone) {
+        int keyIndex = Row.keyIndex(row);
+        if (keys[keyIndex] == key) {
+          values[keyIndex] = mergeFn.apply((V) values[keyIndex], value);
+          break;
+        }
+      }
+
+      int currDist = probeDistance(currHash, idx);
+      if (!isTombstone && currDist > dist) {
+        tombstoneIdx = -1;
+      } else if (isTombstone && tombstoneIdx == -1) {
+        tombstoneIdx = idx;
+      }
+
+      if (isNone || dist > currDist) {
+
+        // we know there isn't any collision, so add it to the end
+        int keyIndex = size;
+        putEntry(keyIndex, key, value);
+        size++;
+
+        long nRow = Row.construct(hash, keyIndex);
+        if (tombstoneIdx >= 0) {
+          table[tombstoneIdx] = nRow;
+        } else if (isNone || isTombstone) {
+          table[idx] = nRow;
+        } else {
+          putTable(hash, keyIndex, idx);
+        }
+
+        break;
+      }
+    }
+  }
+
+  /// Utility functions
+
+  private int estimatedIndex(int hash) {
+    return hash & indexMask;
+  }
+
+  private int nextIndex(int idx) {
+    return (idx + 1) & indexMask;
+  }
+
+  private int probeDistance(int hash, int index) {
+    return (index + table.length - (hash & indexMask)) & indexMask;
+  }
+
+  private static int keyHash(long key) {
+    int hash = (int) ((key >> 32) ^ key);
+
+    // make sure we don't have too many collisions in the lower bits
+    hash ^= (hash >>> 20) ^ (hash >>> 12);
+    hash ^= (hash >>> 7) ^ (hash >>> 4);
+    return hash == NONE ? FALLBACK : hash;
+  }
+}
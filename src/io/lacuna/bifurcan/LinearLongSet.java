@@ -0,0 +1,228 @@
+package io.lacuna.bifurcan;
+
+import io.lacuna.bifurcan.utils.Iterators;
+
+import java.util.Iterator;
+import java.util.OptionalLong;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * A set of primitive {@code long} values which builds atop {@code LinearLongMap}, and shares the same performance
+ * characteristics.
+ *
+ * @author ztellman
+ */
+public class LinearLongSet extends ISet.Mixin<Long> {
+
+  LinearLongMap<Void> map;
+
+  ///
+
+  /**
+   * @return a set containing the same elements as {@code set}
+   */
+  public static LinearLongSet from(ISet<Long> set) {
+    if (set instanceof LinearLongSet) {
+      return ((LinearLongSet) set).clone();
+    } else {
+      LinearLongSet result = new LinearLongSet((int) set.size());
+      set.forEach(result::add);
+      return result;
+    }
+  }
+
+  /**
+   * @return a set containing the remaining elements in {@code iterator}
+   */
+  public static LinearLongSet from(Iterator<Long> iterator) {
+    LinearLongSet set = new LinearLongSet();
+    iterator.forEachRemaining(set::add);
+    return set;
+  }
+
+  /**
+   * @return a set containing {@code elements}
+   */
+  public static LinearLongSet of(long... elements) {
+    LinearLongSet set = new LinearLongSet(elements.length);
+    for (long e : elements) {
+      set.add(e);
+    }
+    return set;
+  }
+
+  public LinearLongSet() {
+    this(8);
+  }
+
+  /**
+   * @param initialCapacity the initial capacity of the set
+   */
+  public LinearLongSet(int initialCapacity) {
+    map = new LinearLongMap<>(initialCapacity);
+  }
+
+  LinearLongSet(LinearLongMap<Void> map) {
+    this.map = map;
+  }
+
+  ///
+
+  @Override
+  public boolean isLinear() {
+    return true;
+  }
+
+  @Override
+  public ToLongFunction<Long> valueHash() {
+    return map.keyHash();
+  }
+
+  @Override
+  public BiPredicate<Long, Long> valueEquality() {
+    return map.keyEquality();
+  }
+
+  /**
+   * @return the set, with {@code value} added
+   */
+  public LinearLongSet add(long value) {
+    map.put(value, null);
+    hash = -1;
+    return this;
+  }
+
+  @Override
+  public LinearLongSet add(Long value) {
+    return add((long) value);
+  }
+
+  /**
+   * @return the set, without {@code value}
+   */
+  public LinearLongSet remove(long value) {
+    map.remove(value);
+    hash = -1;
+    return this;
+  }
+
+  @Override
+  public LinearLongSet remove(Long value) {
+    return remove((long) value);
+  }
+
+  public LinearLongSet clear() {
+    map.clear();
+    hash = -1;
+    return this;
+  }
+
+  /**
+   * @return true, if the set contains {@code value}
+   */
+  public boolean contains(long value) {
+    return map.contains(value);
+  }
+
+  @Override
+  public boolean contains(Long value) {
+    return map.contains((long) value);
+  }
+
+  @Override
+  public long size() {
+    return map.size();
+  }
+
+  /**
+   * @return the position of {@code element} within the set, if it's present
+   */
+  public OptionalLong indexOf(long element) {
+    return map.indexOf(element);
+  }
+
+  @Override
+  public OptionalLong indexOf(Long element) {
+    return map.indexOf((long) element);
+  }
+
+  /**
+   * @return the element at {@code idx}
+   */
+  public long nthElement(long idx) {
+    return map.nthKey(idx);
+  }
+
+  @Override
+  public Long nth(long idx) {
+    return map.nthKey(idx);
+  }
+
+  @Override
+  public Iterator<Long> iterator() {
+    final long[] keys = map.keys;
+    return Iterators.range(size(), i -> keys[(int) i]);
+  }
+
+  @Override
+  public <U> LinearLongMap<U> zip(Function<Long, U> f) {
+    return map.mapValues((k, v) -> f.apply(k));
+  }
+
+  @Override
+  public LinearLongSet union(ISet<Long> s) {
+    if (s instanceof LinearLongSet) {
+      return new LinearLongSet(map.union(((LinearLongSet) s).map));
+    } else {
+      LinearLongMap<Void> m = map.clone();
+      s.forEach(e -> m.put((long) e, null));
+      return new LinearLongSet(m);
+    }
+  }
+
+  @Override
+  public LinearLongSet difference(ISet<Long> s) {
+    return new LinearLongSet(map.difference(s));
+  }
+
+  @Override
+  public LinearLongSet intersection(ISet<Long> s) {
+    return new LinearLongSet(map.intersection(s));
+  }
+
+  @Override
+  public IntSet forked() {
+    return new IntSet(map.forked());
+  }
+
+  @Override
+  public LinearLongSet linear() {
+    return this;
+  }
+
+  @Override
+  public List<LinearLongSet> split(int parts) {
+    return map.split(parts).stream().map(LinearLongSet::new).collect(Lists.collector());
+  }
+
+  @Override
+  public int hashCode() {
+    // equivalent to Sets.hash(), but without boxing the elements
+    if (hash == -1) {
+      long h = 0;
+      long[] keys = map.keys;
+      for (int i = 0; i < size(); i++) {
+        h += keys[i];
+      }
+      hash = (int) h;
+    }
+    return hash;
+  }
+
+  @Override
+  public LinearLongSet clone() {
+    return new LinearLongSet(map.clone());
+  }
+}
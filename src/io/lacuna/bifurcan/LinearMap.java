@@ -36,6 +36,9 @@ public class LinearMap<K, V> extends IMap.Mixin<K, V> {
   private static final int NONE = 0;
   private static final int FALLBACK = 1;
 
+  // the number of keys whose hashes and initial probes are batched together by `putAll` and `getAll`
+  private static final int BATCH_SIZE = 16;
+
   private final ToLongFunction<K> hashFn;
   private final BiPredicate<K, K> equalsFn;
 
@@ -154,6 +157,102 @@ public class LinearMap<K, V> extends IMap.Mixin<K, V> {
     return this;
   }
 
+  /**
+   * Equivalent to calling {@code put(keys[i], values[i])} for each index, but resizes the table at most once and
+   * computes the hashes of the keys in batches, which is significantly faster for large numbers of entries.
+   *
+   * @throws IllegalArgumentException if {@code keys} and {@code values} are not the same length
+   */
+  public LinearMap<K, V> putAll(K[] keys, V[] values) {
+    return putAll(keys, values, Maps.MERGE_LAST_WRITE_WINS);
+  }
+
+  /**
+   * Equivalent to calling {@code put(keys[i], values[i], merge)} for each index, but resizes the table at most once
+   * and computes the hashes of the keys in batches, which is significantly faster for large numbers of entries.
+   *
+   * @throws IllegalArgumentException if {@code keys} and {@code values} are not the same length
+   */
+  public LinearMap<K, V> putAll(K[] keys, V[] values, BinaryOperator<V> merge) {
+    if (keys.length != values.length) {
+      throw new IllegalArgumentException("keys and values must be the same length");
+    }
+
+    // this assumes the keys are mostly distinct, and will over-allocate if they're not
+    int capacity = size + keys.length;
+    if ((capacity << 1) > entries.length) {
+      resize(capacity);
+    }
+
+    int[] hashes = new int[BATCH_SIZE];
+    for (int start = 0; start < keys.length; start += BATCH_SIZE) {
+      int end = Math.min(keys.length, start + BATCH_SIZE);
+      for (int i = start; i < end; i++) {
+        hashes[i - start] = keyHash(keys[i]);
+      }
+      for (int i = start; i < end; i++) {
+        put(hashes[i - start], keys[i], values[i], merge);
+      }
+    }
+    super.hash = -1;
+
+    return this;
+  }
+
+  /**
+   * Equivalent to {@code getAll(keys, out, null)}.
+   */
+  public V[] getAll(K[] keys, V[] out) {
+    return getAll(keys, out, null);
+  }
+
+  /**
+   * Writes the value under {@code keys[i]}, or {@code defaultValue} if there is no such key, to {@code out[i]}.
+   * <p>
+   * The keys are processed in batches, where all the hashes are computed and the initial slot for each key is read
+   * before any of the entries are compared.  Since these reads are independent of each other, the cache misses for a
+   * large map can overlap, rather than being paid one key at a time.
+   *
+   * @return {@code out}
+   * @throws IllegalArgumentException if {@code out} is shorter than {@code keys}
+   */
+  public V[] getAll(K[] keys, V[] out, V defaultValue) {
+    if (out.length < keys.length) {
+      throw new IllegalArgumentException("out must be at least as long as keys");
+    }
+
+    int[] hashes = new int[BATCH_SIZE];
+    long[] rows = new long[BATCH_SIZE];
+    for (int start = 0; start < keys.length; start += BATCH_SIZE) {
+      int end = Math.min(keys.length, start + BATCH_SIZE);
+
+      for (int i = start; i < end; i++) {
+        int hash = keyHash(keys[i]);
+        hashes[i - start] = hash;
+        rows[i - start] = table[estimatedIndex(hash)];
+      }
+
+      for (int i = start; i < end; i++) {
+        int hash = hashes[i - start];
+        long row = rows[i - start];
+        K key = keys[i];
+
+        // most keys will be in their estimated slot, otherwise fall back to a full probe
+        int keyIndex;
+        if (Row.hash(row) == hash && !Row.tombstone(row) && equalsFn.test(key, (K) entries[Row.keyIndex(row)])) {
+          keyIndex = Row.keyIndex(row);
+        } else {
+          int idx = tableIndex(hash, key);
+          keyIndex = idx >= 0 ? Row.keyIndex(table[idx]) : -1;
+        }
+
+        out[i] = keyIndex >= 0 ? (V) entries[keyIndex + 1] : defaultValue;
+      }
+    }
+
+    return out;
+  }
+
   @Override
   public LinearMap<K, V> remove(K key) {
     int idx = tableIndex(keyHash(key), key);
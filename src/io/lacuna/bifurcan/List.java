@@ -2,8 +2,15 @@ package io.lacuna.bifurcan;
 
 import io.lacuna.bifurcan.nodes.ListNodes;
 import io.lacuna.bifurcan.nodes.ListNodes.Node;
+import io.lacuna.bifurcan.utils.Iterators;
 
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.OptionalLong;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import static io.lacuna.bifurcan.utils.Bits.log2Ceil;
 import static java.lang.Math.min;
@@ -143,34 +150,43 @@ public class List<V> extends IList.Mixin<V> implements Cloneable {
 
   @Override
   public Iterator<V> iterator() {
+    return iterator(0);
+  }
 
-    final Object[] initChunk;
-    final int initOffset, initLimit;
+  @Override
+  public Iterator<V> iterator(long startIndex) {
     final long size = size();
     final long rootSize = root.size();
 
-    if (prefixLen > 0) {
-      initChunk = prefix;
-      initOffset = pIdx(0);
-      initLimit = prefix.length;
-    } else if (rootSize > 0) {
-      initChunk = (Object[]) root.nth(0, true);
-      initOffset = 0;
-      initLimit = initChunk.length;
-    } else {
-      initChunk = suffix;
-      initOffset = 0;
-      initLimit = suffixLen;
-    }
-
     return new Iterator<V>() {
 
-      long idx = 0;
-
-      Object[] chunk = initChunk;
-      int offset = initOffset;
-      int limit = initLimit;
-      int chunkSize = limit - offset;
+      long idx = startIndex;
+
+      Object[] chunk;
+      int offset, limit;
+      ListNodes.ChunkIterator<Object[]> chunks;
+
+      private void nextChunk() {
+        if (idx < prefixLen) {
+          chunk = prefix;
+          offset = pIdx((int) idx);
+          limit = prefix.length;
+        } else if (idx - prefixLen < rootSize) {
+          if (chunks == null) {
+            chunks = new ListNodes.ChunkIterator<>(root, idx - prefixLen);
+            chunk = chunks.next();
+            offset = chunks.offset;
+          } else {
+            chunk = chunks.next();
+            offset = 0;
+          }
+          limit = chunk.length;
+        } else {
+          chunk = suffix;
+          offset = (int) (idx - (prefixLen + rootSize));
+          limit = suffixLen;
+        }
+      }
 
       @Override
       public boolean hasNext() {
@@ -179,28 +195,92 @@ public class List<V> extends IList.Mixin<V> implements Cloneable {
 
       @Override
       public V next() {
-        V val = (V) chunk[offset++];
-
-        if (offset == limit) {
-          idx += chunkSize;
-          if (idx < size) {
-            if (idx == prefixLen + rootSize) {
-              chunk = suffix;
-              limit = suffixLen;
-            } else {
-              chunk = (Object[]) root.nth(idx - prefixLen, true);
-              limit = chunk.length;
-            }
-            offset = 0;
-            chunkSize = limit;
-          }
+        if (idx >= size) {
+          throw new NoSuchElementException();
+        }
+
+        while (offset == limit) {
+          nextChunk();
         }
 
-        return val;
+        idx++;
+        return (V) chunk[offset++];
       }
     };
   }
 
+  /**
+   * @return an iterator over the contiguous chunks of elements which make up the list, in order
+   */
+  public Iterator<Object[]> chunks() {
+    Iterator<Object[]> chunks = new ListNodes.ChunkIterator<>(root, 0);
+    if (prefixLen > 0) {
+      chunks = Iterators.concat(Iterators.singleton(Arrays.copyOfRange(prefix, pIdx(0), prefix.length)), chunks);
+    }
+    if (suffixLen > 0) {
+      chunks = Iterators.concat(chunks, Iterators.singleton(Arrays.copyOf(suffix, suffixLen)));
+    }
+    return chunks;
+  }
+
+  /**
+   * Invokes {@code f} on each contiguous chunk of elements which make up the list, in order.  The chunks may be shared
+   * with the list, and must not be modified.
+   */
+  public void forEachChunk(Consumer<Object[]> f) {
+    chunks().forEachRemaining(f);
+  }
+
+  /**
+   * @return the combined summary of every element in the list.  If the list is forked, the summary of each subtree is
+   * cached, so that summarizing this list or any other which shares structure with it only requires summarizing
+   * what's different.
+   */
+  public <S> S summarize(Summary<V, S> summary) {
+    S acc = prefixLen > 0 ? ListNodes.summarize(prefix, pIdx(0), prefix.length, summary) : summary.identity;
+    acc = summary.combine(acc, ListNodes.summarize(root, summary, !isLinear()));
+    return suffixLen > 0 ? summary.combine(acc, ListNodes.summarize(suffix, 0, suffixLen, summary)) : acc;
+  }
+
+  /**
+   * Finds the shortest prefix of the list whose summary satisfies {@code predicate}, which can be used to look up an
+   * element by its position within a prefix sum, or to sample elements by weight.  If the list is forked, this takes
+   * {@code O(log n)} time once the list has been summarized.
+   *
+   * @param predicate a predicate which is false for the summaries of every prefix shorter than some length, and true
+   *                  for the rest
+   * @return the index of the last element in the shortest prefix which satisfies {@code predicate}, if there is one
+   */
+  public <S> OptionalLong seek(Summary<V, S> summary, Predicate<S> predicate) {
+    S acc = summary.identity;
+    for (int i = 0; i < prefixLen; i++) {
+      acc = summary.combine(acc, summary.measure((V) prefix[pIdx(i)]));
+      if (predicate.test(acc)) {
+        return OptionalLong.of(i);
+      }
+    }
+
+    S next = summary.combine(acc, ListNodes.summarize(root, summary, !isLinear()));
+    if (predicate.test(next)) {
+      long idx = ListNodes.seek(root, summary, predicate, acc, !isLinear());
+      return idx < 0 ? OptionalLong.empty() : OptionalLong.of(prefixLen + idx);
+    }
+    acc = next;
+
+    for (int i = 0; i < suffixLen; i++) {
+      acc = summary.combine(acc, summary.measure((V) suffix[i]));
+      if (predicate.test(acc)) {
+        return OptionalLong.of(prefixLen + root.size() + i);
+      }
+    }
+    return OptionalLong.empty();
+  }
+
+  @Override
+  public Spliterator<V> spliterator() {
+    return ListNodes.spliterator(prefix, prefix == null ? 0 : pIdx(0), root, suffix, suffixLen);
+  }
+
   @Override
   public List<V> slice(long start, long end) {
     if (start < 0 || end > size()) {
@@ -318,7 +398,7 @@ public class List<V> extends IList.Mixin<V> implements Cloneable {
 
       // overwrite tree
     } else if (idx < (prefixLen + rootSize)) {
-      root = root.set(editor, idx - prefixLen, value);
+      root = root.set(isLinear() ? editor : new Object(), idx - prefixLen, value);
 
       // overwrite suffix
     } else {
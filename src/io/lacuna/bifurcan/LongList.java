@@ -0,0 +1,295 @@
+package io.lacuna.bifurcan;
+
+import io.lacuna.bifurcan.nodes.ListNodes;
+import io.lacuna.bifurcan.nodes.ListNodes.Node;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import static java.lang.Math.min;
+import static java.lang.System.arraycopy;
+
+/**
+ * A list of primitive {@code long} values, which shares the same relaxed radix structure as {@link List}, but stores
+ * its elements in {@code long[]} chunks rather than boxing them.  Elements may only be appended, but {@code slice()}
+ * and {@code concat()} are near-constant time.
+ *
+ * @author ztellman
+ */
+public class LongList implements Iterable<Long> {
+
+  private static final int MAX_CHUNK_SIZE = ListNodes.MAX_BRANCHES;
+
+  private Node root;
+  private byte suffixLen;
+  private long[] suffix;
+  private final Object editor;
+  private int hash = -1;
+
+  /**
+   * @return a list containing {@code elements}
+   */
+  public static LongList of(long... elements) {
+    LongList list = new LongList().linear();
+    for (long e : elements) {
+      list.addLast(e);
+    }
+    return list.forked();
+  }
+
+  /**
+   * @return a list containing the remaining elements in {@code iterator}
+   */
+  public static LongList from(PrimitiveIterator.OfLong iterator) {
+    LongList list = new LongList().linear();
+    while (iterator.hasNext()) {
+      list.addLast(iterator.nextLong());
+    }
+    return list.forked();
+  }
+
+  public LongList() {
+    this(false, Node.EMPTY, 0, null);
+  }
+
+  private LongList(boolean linear, Node root, int suffixLen, long[] suffix) {
+    this.editor = linear ? new Object() : null;
+    this.root = root;
+    this.suffixLen = (byte) suffixLen;
+    this.suffix = suffix;
+  }
+
+  ///
+
+  /**
+   * @return the element at {@code idx}
+   * @throws IndexOutOfBoundsException when {@code idx} is not within {@code [0, size)}
+   */
+  public long nth(long idx) {
+    long rootSize = root.size();
+    if (idx < 0 || idx >= (rootSize + suffixLen)) {
+      throw new IndexOutOfBoundsException(idx + " must be within [0," + size() + ")");
+    }
+
+    return idx < rootSize ? root.nthLong(idx) : suffix[(int) (idx - rootSize)];
+  }
+
+  public long size() {
+    return root.size() + suffixLen;
+  }
+
+  public boolean isLinear() {
+    return editor != null;
+  }
+
+  /**
+   * @return a list with {@code value} appended
+   */
+  public LongList addLast(long value) {
+    return (isLinear() ? this : clone()).pushLast(value);
+  }
+
+  /**
+   * @return the elements within {@code [start, end)}
+   * @throws IndexOutOfBoundsException when the range is not within {@code [0, size)}
+   */
+  public LongList slice(long start, long end) {
+    if (start < 0 || end > size()) {
+      throw new IndexOutOfBoundsException("[" + start + "," + end + ") isn't a subset of [0," + size() + ")");
+    } else if (end <= start) {
+      return new LongList(isLinear(), Node.EMPTY, 0, null);
+    }
+
+    long rootSize = root.size();
+    int sStart = (int) Math.max(0, start - rootSize);
+    int sLen = (int) Math.max(0, end - rootSize) - sStart;
+    long[] suf = null;
+    if (sLen > 0) {
+      suf = new long[MAX_CHUNK_SIZE];
+      arraycopy(suffix, sStart, suf, 0, sLen);
+    }
+
+    return new LongList(
+        isLinear(),
+        root.slice(min(rootSize, start), min(rootSize, end), new Object()),
+        sLen, suf
+    );
+  }
+
+  /**
+   * @return a list with the elements of {@code l} appended
+   */
+  public LongList concat(LongList l) {
+    Node r = root;
+    Object editor = new Object();
+
+    if (suffixLen > 0) {
+      long[] suf = new long[suffixLen];
+      arraycopy(suffix, 0, suf, 0, suffixLen);
+      r = r.pushLast(suf, editor);
+    }
+
+    if (l.root.size() > 0) {
+      r = r.concat(l.root, editor);
+    }
+
+    return new LongList(isLinear(), r, l.suffixLen, l.suffixLen > 0 ? l.suffix.clone() : null);
+  }
+
+  public LongList forked() {
+    return isLinear() ? new LongList(false, root, suffixLen, suffix).clone() : this;
+  }
+
+  public LongList linear() {
+    return isLinear() ? this : new LongList(true, root, suffixLen, suffix).clone();
+  }
+
+  @Override
+  public PrimitiveIterator.OfLong iterator() {
+    return iterator(0);
+  }
+
+  /**
+   * @return an iterator over the elements from {@code startIndex} onwards
+   */
+  public PrimitiveIterator.OfLong iterator(long startIndex) {
+    final long size = size();
+    final long rootSize = root.size();
+
+    return new PrimitiveIterator.OfLong() {
+
+      long idx = startIndex;
+
+      long[] chunk;
+      int offset, limit;
+      ListNodes.ChunkIterator<long[]> chunks;
+
+      private void nextChunk() {
+        if (idx < rootSize) {
+          if (chunks == null) {
+            chunks = new ListNodes.ChunkIterator<>(root, idx);
+            chunk = chunks.next();
+            offset = chunks.offset;
+          } else {
+            chunk = chunks.next();
+            offset = 0;
+          }
+          limit = chunk.length;
+        } else {
+          chunk = suffix;
+          offset = (int) (idx - rootSize);
+          limit = suffixLen;
+        }
+      }
+
+      @Override
+      public boolean hasNext() {
+        return idx < size;
+      }
+
+      @Override
+      public long nextLong() {
+        if (idx >= size) {
+          throw new NoSuchElementException();
+        }
+
+        while (offset == limit) {
+          nextChunk();
+        }
+
+        idx++;
+        return chunk[offset++];
+      }
+    };
+  }
+
+  /**
+   * @return the elements of the list, in an array
+   */
+  public long[] toArray() {
+    long[] result = new long[(int) size()];
+    PrimitiveIterator.OfLong it = iterator();
+    for (int i = 0; i < result.length; i++) {
+      result[i] = it.nextLong();
+    }
+    return result;
+  }
+
+  @Override
+  public int hashCode() {
+    // equivalent to Lists.hash(), but without boxing the elements
+    if (hash == -1) {
+      long h = 0;
+      PrimitiveIterator.OfLong it = iterator();
+      while (it.hasNext()) {
+        h = (h * 31) + Long.hashCode(it.nextLong());
+      }
+      hash = (int) h;
+    }
+    return hash;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    } else if (obj instanceof LongList) {
+      LongList l = (LongList) obj;
+      if (l.size() != size()) {
+        return false;
+      }
+
+      PrimitiveIterator.OfLong a = iterator();
+      PrimitiveIterator.OfLong b = l.iterator();
+      while (a.hasNext()) {
+        if (a.nextLong() != b.nextLong()) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("[");
+    PrimitiveIterator.OfLong it = iterator();
+    while (it.hasNext()) {
+      sb.append(it.nextLong());
+      if (it.hasNext()) {
+        sb.append(", ");
+      }
+    }
+    return sb.append("]").toString();
+  }
+
+  @Override
+  public LongList clone() {
+    return new LongList(isLinear(), root, suffixLen, suffix == null ? null : suffix.clone());
+  }
+
+  ///
+
+  private LongList pushLast(long value) {
+    if (suffix == null) {
+      suffix = new long[2];
+    } else if (suffixLen == suffix.length) {
+      long[] newSuffix = new long[min(MAX_CHUNK_SIZE, suffix.length << 1)];
+      arraycopy(suffix, 0, newSuffix, 0, suffix.length);
+      suffix = newSuffix;
+    }
+
+    suffix[suffixLen++] = value;
+    hash = -1;
+
+    if (suffixLen == MAX_CHUNK_SIZE) {
+      Object editor = isLinear() ? this.editor : new Object();
+      root = root.pushLast(suffix, editor);
+      suffix = null;
+      suffixLen = 0;
+    }
+
+    return this;
+  }
+}
@@ -7,6 +7,8 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.Objects;
 import java.util.OptionalLong;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.*;
 
 /**
@@ -30,6 +32,7 @@ public class Map<K, V> extends IMap.Mixin<K, V> {
 
   private final BiPredicate<K, K> equalsFn;
   private final ToLongFunction<K> hashFn;
+  private final boolean compareHashes;
   private Node<K, V> root;
   final Object editor;
 
@@ -81,17 +84,39 @@ public class Map<K, V> extends IMap.Mixin<K, V> {
    * @param equalsFn a function which checks equality of keys
    */
   public Map(ToLongFunction<K> hashFn, BiPredicate<K, K> equalsFn) {
-    this(Node.EMPTY, hashFn, equalsFn, false);
+    this(hashFn, equalsFn, false);
+  }
+
+  /**
+   * Creates a map.
+   * <p>
+   * If {@code compareHashes} is true, the cached hash of each entry will be compared before calling
+   * {@code equalsFn}, for lookups, set operations, and equality checks.  This adds a memory access to each comparison,
+   * and so is only worthwhile if {@code equalsFn} is expensive.
+   *
+   * @param hashFn        a function which yields the hash value of keys
+   * @param equalsFn      a function which checks equality of keys
+   * @param compareHashes whether hashes should be compared before calling {@code equalsFn}
+   */
+  public Map(ToLongFunction<K> hashFn, BiPredicate<K, K> equalsFn, boolean compareHashes) {
+    this(Node.EMPTY, hashFn, equalsFn, compareHashes, false);
   }
 
   public Map() {
-    this(Node.EMPTY, Maps.DEFAULT_HASH_CODE, Maps.DEFAULT_EQUALS, false);
+    this(Node.EMPTY, Maps.DEFAULT_HASH_CODE, Maps.DEFAULT_EQUALS, false, false);
   }
 
-  private Map(Node<K, V> root, ToLongFunction<K> hashFn, BiPredicate<K, K> equalsFn, boolean linear) {
+  private Map(
+      Node<K, V> root,
+      ToLongFunction<K> hashFn,
+      BiPredicate<K, K> equalsFn,
+      boolean compareHashes,
+      boolean linear
+  ) {
     this.root = root;
     this.hashFn = hashFn;
     this.equalsFn = equalsFn;
+    this.compareHashes = compareHashes;
     this.editor = linear ? new Object() : null;
   }
 
@@ -118,7 +143,7 @@ public class Map<K, V> extends IMap.Mixin<K, V> {
 
   @Override
   public V get(K key, V defaultValue) {
-    Object val = MapNodes.get(root, 0, keyHash(key), key, equalsFn, DEFAULT_VALUE);
+    Object val = MapNodes.get(root, 0, keyHash(key), key, equalsFn, compareHashes, DEFAULT_VALUE);
     return val == DEFAULT_VALUE ? defaultValue : (V) val;
   }
 
@@ -135,7 +160,7 @@ public class Map<K, V> extends IMap.Mixin<K, V> {
       super.hash = -1;
       return this;
     } else {
-      return new Map<K, V>(rootPrime, hashFn, equalsFn, false);
+      return new Map<K, V>(rootPrime, hashFn, equalsFn, compareHashes, false);
     }
   }
 
@@ -161,18 +186,18 @@ public class Map<K, V> extends IMap.Mixin<K, V> {
       super.hash = -1;
       return this;
     } else {
-      return new Map<K, V>(rootPrime, hashFn, equalsFn, false);
+      return new Map<K, V>(rootPrime, hashFn, equalsFn, compareHashes, false);
     }
   }
 
   @Override
   public boolean contains(K key) {
-    return MapNodes.contains(root, 0, keyHash(key), key, equalsFn);
+    return MapNodes.contains(root, 0, keyHash(key), key, equalsFn, compareHashes);
   }
 
   @Override
   public OptionalLong indexOf(K key) {
-    long idx = root.indexOf(0, keyHash(key), key, keyEquality());
+    long idx = root.indexOf(0, keyHash(key), key, keyEquality(), compareHashes);
     return idx < 0 ? OptionalLong.empty() : OptionalLong.of(idx);
   }
 
@@ -187,7 +212,7 @@ public class Map<K, V> extends IMap.Mixin<K, V> {
   @Override
   public Map<K, V> forked() {
     if (isLinear()) {
-      return new Map<>(root, hashFn, equalsFn, false);
+      return new Map<>(root, hashFn, equalsFn, compareHashes, false);
     } else {
       return this;
     }
@@ -198,13 +223,13 @@ public class Map<K, V> extends IMap.Mixin<K, V> {
     if (isLinear()) {
       return this;
     } else {
-      return new Map<>(root, hashFn, equalsFn, true);
+      return new Map<>(root, hashFn, equalsFn, compareHashes, true);
     }
   }
 
   @Override
   public <U> Map<K, U> mapValues(BiFunction<K, V, U> f) {
-    return new Map<K, U>(root.mapVals(new Object(), f), hashFn, equalsFn, isLinear());
+    return new Map<K, U>(root.mapVals(new Object(), f), hashFn, equalsFn, compareHashes, isLinear());
   }
 
   @Override
@@ -212,7 +237,7 @@ public class Map<K, V> extends IMap.Mixin<K, V> {
     List<Map<K, V>> list = new List<Map<K, V>>().linear();
     MapNodes.split(new Object(), root, (int) Math.ceil(size() / (float) parts))
         .stream()
-        .map(n -> new Map<K, V>(n, hashFn, equalsFn, false))
+        .map(n -> new Map<K, V>(n, hashFn, equalsFn, compareHashes, false))
         .forEach(list::addLast);
     return list.forked();
   }
@@ -226,7 +251,7 @@ public class Map<K, V> extends IMap.Mixin<K, V> {
   public Map<K, V> merge(IMap<K, V> m, BinaryOperator<V> mergeFn) {
     if (m instanceof Map && Maps.equivEquality(this, m)) {
       Node<K, V> rootPrime = MapNodes.merge(0, editor, root, ((Map) m).root, equalsFn, mergeFn);
-      return new Map<>(rootPrime, hashFn, equalsFn, isLinear());
+      return new Map<>(rootPrime, hashFn, equalsFn, compareHashes, isLinear());
     } else {
       return (Map<K, V>) Maps.merge(this.clone(), m, mergeFn);
     }
@@ -246,7 +271,7 @@ public class Map<K, V> extends IMap.Mixin<K, V> {
     if (keys instanceof Set && Maps.equivEquality(this, keys)) {
       return intersection(((Set<K>) keys).map);
     } else {
-      Map<K, V> map = (Map<K, V>) Maps.intersection(new Map<K, V>(hashFn, equalsFn).linear(), this, keys);
+      Map<K, V> map = (Map<K, V>) Maps.intersection(new Map<K, V>(hashFn, equalsFn, compareHashes).linear(), this, keys);
       return isLinear() ? map : map.forked();
     }
   }
@@ -254,8 +279,8 @@ public class Map<K, V> extends IMap.Mixin<K, V> {
   @Override
   public Map<K, V> difference(IMap<K, ?> m) {
     if (m instanceof Map && Maps.equivEquality(this, m)) {
-      Node<K, V> rootPrime = MapNodes.difference(0, editor, root, ((Map) m).root, equalsFn);
-      return new Map<>(rootPrime == null ? Node.EMPTY : rootPrime, hashFn, equalsFn, isLinear());
+      Node<K, V> rootPrime = MapNodes.difference(0, editor, root, ((Map) m).root, equalsFn, compareHashes);
+      return new Map<>(rootPrime == null ? Node.EMPTY : rootPrime, hashFn, equalsFn, compareHashes, isLinear());
     } else {
       return difference(m.keys());
     }
@@ -264,13 +289,64 @@ public class Map<K, V> extends IMap.Mixin<K, V> {
   @Override
   public Map<K, V> intersection(IMap<K, ?> m) {
     if (m instanceof Map && Maps.equivEquality(this, m)) {
-      Node<K, V> rootPrime = MapNodes.intersection(0, editor, root, ((Map) m).root, equalsFn);
-      return new Map<>(rootPrime == null ? Node.EMPTY : rootPrime, hashFn, equalsFn, isLinear());
+      Node<K, V> rootPrime = MapNodes.intersection(0, editor, root, ((Map) m).root, equalsFn, compareHashes);
+      return new Map<>(rootPrime == null ? Node.EMPTY : rootPrime, hashFn, equalsFn, compareHashes, isLinear());
     } else {
       return intersection(m.keys());
     }
   }
 
+  /**
+   * Equivalent to {@link #union(IMap)}, but if {@code m} is also a {@code Map}, subtrees above a certain size are
+   * combined in parallel on {@code pool}.
+   */
+  public Map<K, V> union(IMap<K, V> m, ForkJoinPool pool) {
+    return merge(m, Maps.MERGE_LAST_WRITE_WINS, pool);
+  }
+
+  /**
+   * Equivalent to {@link #merge(IMap, BinaryOperator)}, but if {@code m} is also a {@code Map}, subtrees above a
+   * certain size are combined in parallel on {@code pool}.  Since {@code mergeFn} may be invoked on multiple threads,
+   * it must be thread-safe.
+   */
+  public Map<K, V> merge(IMap<K, V> m, BinaryOperator<V> mergeFn, ForkJoinPool pool) {
+    if (m instanceof Map && Maps.equivEquality(this, m)) {
+      Object editor = isLinear() ? this.editor : new Object();
+      Node<K, V> rootPrime = MapNodes.merge(editor, root, ((Map) m).root, equalsFn, mergeFn, pool);
+      return new Map<>(rootPrime, hashFn, equalsFn, compareHashes, isLinear());
+    } else {
+      return merge(m, mergeFn);
+    }
+  }
+
+  /**
+   * Equivalent to {@link #difference(IMap)}, but if {@code m} is also a {@code Map}, subtrees above a certain size are
+   * compared in parallel on {@code pool}.
+   */
+  public Map<K, V> difference(IMap<K, ?> m, ForkJoinPool pool) {
+    if (m instanceof Map && Maps.equivEquality(this, m)) {
+      Object editor = isLinear() ? this.editor : new Object();
+      Node<K, V> rootPrime = MapNodes.difference(editor, root, ((Map) m).root, equalsFn, compareHashes, pool);
+      return new Map<>(rootPrime == null ? Node.EMPTY : rootPrime, hashFn, equalsFn, compareHashes, isLinear());
+    } else {
+      return difference(m);
+    }
+  }
+
+  /**
+   * Equivalent to {@link #intersection(IMap)}, but if {@code m} is also a {@code Map}, subtrees above a certain size
+   * are compared in parallel on {@code pool}.
+   */
+  public Map<K, V> intersection(IMap<K, ?> m, ForkJoinPool pool) {
+    if (m instanceof Map && Maps.equivEquality(this, m)) {
+      Object editor = isLinear() ? this.editor : new Object();
+      Node<K, V> rootPrime = MapNodes.intersection(editor, root, ((Map) m).root, equalsFn, compareHashes, pool);
+      return new Map<>(rootPrime == null ? Node.EMPTY : rootPrime, hashFn, equalsFn, compareHashes, isLinear());
+    } else {
+      return intersection(m);
+    }
+  }
+
   @Override
   public long size() {
     return root.size();
@@ -286,10 +362,27 @@ public class Map<K, V> extends IMap.Mixin<K, V> {
     return root.iterator();
   }
 
+  @Override
+  public Spliterator<IEntry<K, V>> spliterator() {
+    return spliterator(IEntry::of);
+  }
+
+  <T> Spliterator<T> spliterator(BiFunction<K, V, T> f) {
+    return MapNodes.spliterator(root, f, Spliterator.DISTINCT);
+  }
+
+  /**
+   * Since {@link #keys()} wraps this map in a {@link Set} regardless of its value type, this must not assume the values
+   * are {@code Void}.
+   */
+  Spliterator<K> keySpliterator() {
+    return spliterator((k, v) -> k);
+  }
+
   @Override
   public boolean equals(IMap<K, V> m, BiPredicate<V, V> valEquals) {
     if (m instanceof Map && keyHash() == m.keyHash()) {
-      return root.equals(((Map<K, V>) m).root, equalsFn, valEquals);
+      return root.equals(((Map<K, V>) m).root, equalsFn, valEquals, compareHashes);
     } else {
       return Maps.equals(this, m, valEquals);
     }
@@ -202,6 +202,151 @@ public class Maps {
     };
   }
 
+  /**
+   * A read-only view of the entries within {@code [start, end)} of a sorted map, which answers every query by
+   * translating it into an index-bounded query against the underlying map.  Slicing a slice yields another view over
+   * the same map, and any update will first copy the entries into a {@link SortedMap}.
+   */
+  public static class SortedMapSlice<K, V> extends ISortedMap.Mixin<K, V> {
+    private final ISortedMap<K, V> map;
+    private final long start, end;
+
+    SortedMapSlice(ISortedMap<K, V> map, long start, long end) {
+      this.map = map;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    public Comparator<K> comparator() {
+      return map.comparator();
+    }
+
+    @Override
+    public ToLongFunction<K> keyHash() {
+      return map.keyHash();
+    }
+
+    @Override
+    public BiPredicate<K, K> keyEquality() {
+      return map.keyEquality();
+    }
+
+    @Override
+    public long size() {
+      return end - start;
+    }
+
+    @Override
+    public IEntry<K, V> nth(long idx) {
+      if (idx < 0 || idx >= size()) {
+        throw new IndexOutOfBoundsException(String.format("%d must be within [0,%d)", idx, size()));
+      }
+      return map.nth(start + idx);
+    }
+
+    @Override
+    public OptionalLong indexOf(K key) {
+      return local(map.indexOf(key));
+    }
+
+    @Override
+    public V get(K key, V defaultValue) {
+      OptionalLong idx = indexOf(key);
+      return idx.isPresent() ? map.nth(start + idx.getAsLong()).value() : defaultValue;
+    }
+
+    @Override
+    public boolean contains(K key) {
+      return indexOf(key).isPresent();
+    }
+
+    @Override
+    public OptionalLong inclusiveFloorIndex(K key) {
+      OptionalLong idx = map.inclusiveFloorIndex(key);
+      if (!idx.isPresent() || idx.getAsLong() < start) {
+        return OptionalLong.empty();
+      }
+      return OptionalLong.of(Math.min(idx.getAsLong(), end - 1) - start);
+    }
+
+    @Override
+    public OptionalLong ceilIndex(K key) {
+      OptionalLong idx = map.ceilIndex(key);
+      if (!idx.isPresent() || idx.getAsLong() >= end) {
+        return OptionalLong.empty();
+      }
+      return OptionalLong.of(Math.max(idx.getAsLong(), start) - start);
+    }
+
+    @Override
+    public ISortedMap<K, V> sliceIndices(long startIndex, long endIndex) {
+      if (startIndex < 0 || endIndex > size() || startIndex > endIndex) {
+        throw new IndexOutOfBoundsException(String.format("[%d,%d) must be within [0,%d)", startIndex, endIndex, size()));
+      }
+      return new SortedMapSlice<>(map, start + startIndex, start + endIndex);
+    }
+
+    @Override
+    public Iterator<IEntry<K, V>> iterator(long startIndex) {
+      if (startIndex < 0 || startIndex > size()) {
+        throw new IndexOutOfBoundsException(String.format("%d must be within [0,%d]", startIndex, size()));
+      }
+      Iterator<IEntry<K, V>> it = map.iterator(start + startIndex);
+      return Iterators.range(startIndex, size(), i -> it.next());
+    }
+
+    @Override
+    public Iterator<IEntry<K, V>> reverseIterator(long startIndex) {
+      if (startIndex < -1 || startIndex >= size()) {
+        throw new IndexOutOfBoundsException(String.format("%d must be within [-1,%d)", startIndex, size()));
+      }
+      Iterator<IEntry<K, V>> it = map.reverseIterator(start + startIndex);
+      return Iterators.range(startIndex + 1, i -> it.next());
+    }
+
+    @Override
+    public ISortedMap<K, V> put(K key, V value, BinaryOperator<V> merge) {
+      return materialize().put(key, value, merge);
+    }
+
+    @Override
+    public ISortedMap<K, V> remove(K key) {
+      return materialize().remove(key);
+    }
+
+    @Override
+    public ISortedMap<K, V> linear() {
+      return materialize().linear();
+    }
+
+    private OptionalLong local(OptionalLong idx) {
+      return idx.isPresent() && idx.getAsLong() >= start && idx.getAsLong() < end
+          ? OptionalLong.of(idx.getAsLong() - start)
+          : OptionalLong.empty();
+    }
+
+    private SortedMap<K, V> materialize() {
+      return SortedMap.fromSorted(iterator(), size(), comparator());
+    }
+  }
+
+  /**
+   * @return a view of the entries within {@code [start, end)} of {@code m}, or a copy of them if {@code m} is linear
+   * and may still be updated in-place
+   */
+  public static <K, V> ISortedMap<K, V> slice(ISortedMap<K, V> m, long start, long end) {
+    if (start < 0 || end > m.size() || start > end) {
+      throw new IndexOutOfBoundsException(String.format("[%d,%d) must be within [0,%d)", start, end, m.size()));
+    } else if (m.isLinear()) {
+      return SortedMap.fromSorted(m.iterator(start), end - start, m.comparator());
+    } else if (m instanceof SortedMapSlice) {
+      return m.sliceIndices(start, end);
+    } else {
+      return new SortedMapSlice<>(m, start, end);
+    }
+  }
+
   public static <K, V> IMap<K, V> from(ISet<K> keys, Function<K, V> lookup) {
     return from(keys, lookup, () -> Iterators.map(keys.iterator(), k -> IEntry.of(k, lookup.apply(k))));
   }
@@ -8,9 +8,22 @@ import io.lacuna.bifurcan.utils.IntIterators;
 import io.lacuna.bifurcan.utils.Iterators;
 import io.lacuna.bifurcan.utils.UnicodeChunk;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.MalformedInputException;
 import java.util.Iterator;
+import java.util.OptionalInt;
 import java.util.PrimitiveIterator;
+import java.util.function.Predicate;
 import java.util.stream.IntStream;
 
 import static io.lacuna.bifurcan.nodes.RopeNodes.MAX_CHUNK_CODE_UNITS;
@@ -18,9 +31,9 @@ import static java.lang.Character.isHighSurrogate;
 
 /**
  * A tree-based immutable string representation, indexed on both full Unicode code points and Java's UTF-16 code
- * units.  Storage at the leaves uses UTF-8 encoding.  It allows for efficient {@code insert}, {@code remove},
- * {@code slice}, and {@code concat} calls, and can be converted in constant time to a Java {@code CharSequence}
- * via {@code toCharSequence()}.
+ * units, which also tracks the position of each line.  Storage at the leaves uses UTF-8 encoding.  It allows for
+ * efficient {@code insert}, {@code remove}, {@code slice}, and {@code concat} calls, and can be converted in constant
+ * time to a Java {@code CharSequence} via {@code toCharSequence()}.
  *
  * @author ztellman
  */
@@ -51,6 +64,127 @@ public class Rope implements Comparable<Rope> {
 
   }
 
+  /**
+   * Reads UTF-8 encoded text from {@code channel} until it's exhausted, decoding it directly into the rope's chunks
+   * rather than an intermediate {@code String}.  The channel is not closed.
+   *
+   * @return a rope corresponding to the text
+   * @throws MalformedInputException if the text is not valid UTF-8
+   */
+  public static Rope from(ReadableByteChannel channel) throws IOException {
+
+    Object editor = new Object();
+    Node root = new Node(editor, RopeNodes.SHIFT_INCREMENT);
+
+    ByteBuffer buf = ByteBuffer.allocate(1 << 16);
+    byte[] bytes = buf.array();
+
+    // the chunk currently being accumulated, which is no more than 3 bytes per code unit
+    byte[] chunk = new byte[MAX_CHUNK_CODE_UNITS * 3];
+    int chunkBytes = 0, chunkPoints = 0, chunkUnits = 0, chunkNewlines = 0;
+
+    for (boolean eof = false; !eof; ) {
+      eof = channel.read(buf) < 0;
+
+      int offset = 0;
+      int limit = buf.position();
+      while (offset < limit) {
+        byte b = bytes[offset];
+        int len = b >= 0 ? 1 : UnicodeChunk.prefixLength(b);
+
+        // wait for the rest of the code point
+        if (offset + len > limit && len > 0) {
+          break;
+        } else if (!UnicodeChunk.isValidUtf8(bytes, offset, len)) {
+          throw new MalformedInputException(Math.max(1, len));
+        }
+
+        int units = len == 4 ? 2 : 1;
+        if (chunkUnits + units > MAX_CHUNK_CODE_UNITS) {
+          byte[] full = UnicodeChunk.fromUtf8(chunk, 0, chunkBytes, chunkPoints, chunkUnits, chunkNewlines);
+          root = root.pushLast(full, editor);
+          chunkBytes = chunkPoints = chunkUnits = chunkNewlines = 0;
+        }
+
+        for (int i = 0; i < len; i++) {
+          chunk[chunkBytes++] = bytes[offset++];
+        }
+        chunkPoints++;
+        chunkUnits += units;
+        if (b == '\n') {
+          chunkNewlines++;
+        }
+      }
+
+      // retain any partial code point for the next read, casting to Buffer so that we link against the methods which
+      // exist on Java 8, rather than the covariant overrides added in Java 9
+      ((Buffer) buf).flip();
+      ((Buffer) buf).position(offset);
+      buf.compact();
+
+      if (eof && buf.position() > 0) {
+        throw new MalformedInputException(buf.position());
+      }
+    }
+
+    if (chunkUnits > 0) {
+      root = root.pushLast(UnicodeChunk.fromUtf8(chunk, 0, chunkBytes, chunkPoints, chunkUnits, chunkNewlines), editor);
+    }
+
+    return new Rope(root, false);
+  }
+
+  /**
+   * Reads UTF-8 encoded text from {@code in} until it's exhausted.  The stream is not closed.
+   *
+   * @return a rope corresponding to the text
+   * @throws MalformedInputException if the text is not valid UTF-8
+   */
+  public static Rope from(InputStream in) throws IOException {
+    return from(Channels.newChannel(in));
+  }
+
+  /**
+   * Reads text from {@code reader} until it's exhausted, encoding it into the rope's chunks as it's read rather than
+   * building an intermediate {@code String}.  The reader is not closed.
+   *
+   * @return a rope corresponding to the text
+   */
+  public static Rope from(Reader reader) throws IOException {
+
+    Object editor = new Object();
+    Node root = new Node(editor, RopeNodes.SHIFT_INCREMENT);
+
+    char[] buf = new char[1 << 13];
+    int len = 0;
+
+    for (boolean eof = false; !eof; ) {
+
+      // fill the buffer, so that short reads don't leave us with a long tail of short chunks
+      while (len < buf.length) {
+        int n = reader.read(buf, len, buf.length - len);
+        if (n < 0) {
+          eof = true;
+          break;
+        }
+        len += n;
+      }
+
+      // don't separate a surrogate pair which straddles two reads
+      int end = !eof && len > 0 && isHighSurrogate(buf[len - 1]) ? len - 1 : len;
+
+      Iterator<byte[]> it = chunks(CharBuffer.wrap(buf, 0, end));
+      while (it.hasNext()) {
+        root = root.pushLast(it.next(), editor);
+      }
+
+      System.arraycopy(buf, end, buf, 0, len - end);
+      len -= end;
+    }
+
+    return new Rope(root, false);
+  }
+
   Rope(Node node, boolean linear) {
     this.editor = linear ? new Object() : null;
     this.root = node;
@@ -83,6 +217,68 @@ public class Rope implements Comparable<Rope> {
     return root.numCodePoints();
   }
 
+  /**
+   * @return the number of lines in the rope, which is one more than the number of {@code '\n'} code points
+   */
+  public int lineCount() {
+    return root.numNewlines() + 1;
+  }
+
+  /**
+   * @return the index of the first code point in the {@code line}-th line, counting from zero
+   * @throws IndexOutOfBoundsException if {@code line} is not within {@code [0, lineCount)}
+   */
+  public int lineStart(int line) {
+    if (line < 0 || line >= lineCount()) {
+      throw new IndexOutOfBoundsException(line + " is not within [0," + lineCount() + ")");
+    }
+    return line == 0 ? 0 : root.nthNewline(line - 1) + 1;
+  }
+
+  /**
+   * @return the line containing the code point at {@code idx}, counting from zero, where a {@code '\n'} is part of
+   * the line it terminates
+   * @throws IndexOutOfBoundsException if {@code idx} is not within {@code [0, size]}
+   */
+  public int lineOf(int idx) {
+    if (idx < 0 || idx > size()) {
+      throw new IndexOutOfBoundsException(idx + " is not within [0," + size() + "]");
+    }
+    return root.numNewlines(idx);
+  }
+
+  /**
+   * @return the code points in the {@code line}-th line, counting from zero, without the trailing {@code '\n'}
+   * @throws IndexOutOfBoundsException if {@code line} is not within {@code [0, lineCount)}
+   */
+  public Rope line(int line) {
+    int start = lineStart(line);
+    int end = line == lineCount() - 1 ? size() : lineStart(line + 1) - 1;
+    return slice(start, end);
+  }
+
+  /**
+   * @return the combined summary of every code point in the rope.  If the rope is forked, the summary of each subtree
+   * is cached, so that summarizing this rope or any other which shares structure with it only requires summarizing
+   * what's different.
+   */
+  public <S> S summarize(Summary<Integer, S> summary) {
+    return RopeNodes.summarize(root, summary, !isLinear());
+  }
+
+  /**
+   * Finds the shortest prefix of the rope whose summary satisfies {@code predicate}.  If the rope is forked, this takes
+   * {@code O(log n)} time once the rope has been summarized.
+   *
+   * @param predicate a predicate which is false for the summaries of every prefix shorter than some length, and true
+   *                  for the rest
+   * @return the index of the last code point in the shortest prefix which satisfies {@code predicate}, if there is one
+   */
+  public <S> OptionalInt seek(Summary<Integer, S> summary, Predicate<S> predicate) {
+    int idx = RopeNodes.seek(root, summary, predicate, summary.identity, !isLinear());
+    return idx < 0 ? OptionalInt.empty() : OptionalInt.of(idx);
+  }
+
   /**
    * @return a rope without the code points within {@code [start, end)}
    * @throws IllegalArgumentException if {@code start} or {@code end} are not within {@code [0, size) }
@@ -217,7 +413,81 @@ public class Rope implements Comparable<Rope> {
    * @return a sequence of bytes representing the UTF-8 encoding of the rope
    */
   public Iterator<ByteBuffer> bytes() {
-    return Iterators.map(chunks(), ary -> ByteBuffer.wrap(ary, 2, ary.length - 2).slice());
+    int offset = UnicodeChunk.HEADER_LENGTH;
+    return Iterators.map(chunks(), ary -> ByteBuffer.wrap(ary, offset, ary.length - offset).slice());
+  }
+
+  /**
+   * Copies the UTF-8 encoding of the rope into {@code dst}, starting at the code point at {@code fromIndex}, until
+   * either the rope is exhausted or there isn't room for the next code point.  Code points are never split across
+   * calls, so the returned index can be used to resume copying into another buffer.
+   *
+   * @return the index of the first code point which wasn't copied, which is {@code size()} if all were copied
+   * @throws IndexOutOfBoundsException if {@code fromIndex} is not within {@code [0, size()]}
+   */
+  public int copyTo(ByteBuffer dst, int fromIndex) {
+    if (fromIndex < 0 || fromIndex > size()) {
+      throw new IndexOutOfBoundsException(fromIndex + " must be within [0," + size() + "]");
+    }
+
+    int idx = fromIndex;
+    while (idx < size()) {
+      int start = root.chunkStart(idx);
+      byte[] chunk = root.chunkFor(idx);
+      idx += UnicodeChunk.copyUtf8(chunk, idx - start, dst);
+
+      // we've run out of room
+      if (idx < start + UnicodeChunk.numCodePoints(chunk)) {
+        break;
+      }
+    }
+
+    return idx;
+  }
+
+  /**
+   * Writes the UTF-8 encoding of the rope directly from its chunks to {@code channel}, using gathering writes when
+   * possible.  The channel should be in blocking mode, and is not closed.
+   */
+  public void writeTo(WritableByteChannel channel) throws IOException {
+    Iterator<ByteBuffer> it = bytes();
+
+    if (channel instanceof GatheringByteChannel) {
+      GatheringByteChannel gather = (GatheringByteChannel) channel;
+      ByteBuffer[] bufs = new ByteBuffer[64];
+      while (it.hasNext()) {
+        int len = 0;
+        while (len < bufs.length && it.hasNext()) {
+          bufs[len++] = it.next();
+        }
+
+        for (int offset = 0; offset < len; ) {
+          gather.write(bufs, offset, len - offset);
+          while (offset < len && !bufs[offset].hasRemaining()) {
+            offset++;
+          }
+        }
+      }
+    } else {
+      while (it.hasNext()) {
+        ByteBuffer buf = it.next();
+        while (buf.hasRemaining()) {
+          channel.write(buf);
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes the UTF-8 encoding of the rope directly from its chunks to {@code out}.  The stream is neither flushed nor
+   * closed.
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    Iterator<byte[]> it = chunks();
+    while (it.hasNext()) {
+      byte[] chunk = it.next();
+      out.write(chunk, UnicodeChunk.HEADER_LENGTH, chunk.length - UnicodeChunk.HEADER_LENGTH);
+    }
   }
 
   /**
@@ -267,6 +537,8 @@ public class Rope implements Comparable<Rope> {
    * @return a corresponding Java-style {@link CharSequence} in {@code O(1)} time
    */
   public CharSequence toCharSequence() {
+    // a linear rope may be updated in-place, so we can't cache our position within it
+    RopeNodes.UnitCursor cursor = isLinear() ? null : new RopeNodes.UnitCursor(root);
     return new CharSequence() {
       @Override
       public int length() {
@@ -275,7 +547,7 @@ public class Rope implements Comparable<Rope> {
 
       @Override
       public char charAt(int index) {
-        return root.nthUnit(index);
+        return cursor != null ? cursor.nthUnit(index) : root.nthUnit(index);
       }
 
       @Override
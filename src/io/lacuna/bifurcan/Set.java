@@ -4,6 +4,8 @@ import io.lacuna.bifurcan.utils.Iterators;
 
 import java.util.Iterator;
 import java.util.OptionalLong;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.*;
 
 /**
@@ -69,6 +71,16 @@ public class Set<V> extends ISet.Mixin<V> {
     map = new Map<>(hashFn, equalsFn);
   }
 
+  /**
+   * @param hashFn        the hash function used by the set
+   * @param equalsFn      the equality semantics used by the set
+   * @param compareHashes whether hashes should be compared before calling {@code equalsFn}, which is only worthwhile
+   *                      if {@code equalsFn} is expensive
+   */
+  public Set(ToLongFunction<V> hashFn, BiPredicate<V, V> equalsFn, boolean compareHashes) {
+    map = new Map<>(hashFn, equalsFn, compareHashes);
+  }
+
   Set(Map<V, Void> map) {
     this.map = map;
   }
@@ -156,6 +168,11 @@ public class Set<V> extends ISet.Mixin<V> {
     return Iterators.map(map.iterator(), IEntry::key);
   }
 
+  @Override
+  public Spliterator<V> spliterator() {
+    return map.keySpliterator();
+  }
+
   @Override
   public <U> Map<V, U> zip(Function<V, U> f) {
     return map.mapValues((k, v) -> f.apply(k)).forked();
@@ -188,6 +205,42 @@ public class Set<V> extends ISet.Mixin<V> {
     }
   }
 
+  /**
+   * Equivalent to {@link #union(ISet)}, but if {@code s} is also a {@code Set}, subtrees above a certain size are
+   * combined in parallel on {@code pool}.
+   */
+  public Set<V> union(ISet<V> s, ForkJoinPool pool) {
+    if (s instanceof Set) {
+      return new Set<V>(map.union(((Set<V>) s).map, pool));
+    } else {
+      return union(s);
+    }
+  }
+
+  /**
+   * Equivalent to {@link #difference(ISet)}, but if {@code s} is also a {@code Set}, subtrees above a certain size are
+   * compared in parallel on {@code pool}.
+   */
+  public Set<V> difference(ISet<V> s, ForkJoinPool pool) {
+    if (s instanceof Set) {
+      return new Set<V>(map.difference(((Set<V>) s).map, pool));
+    } else {
+      return difference(s);
+    }
+  }
+
+  /**
+   * Equivalent to {@link #intersection(ISet)}, but if {@code s} is also a {@code Set}, subtrees above a certain size
+   * are compared in parallel on {@code pool}.
+   */
+  public Set<V> intersection(ISet<V> s, ForkJoinPool pool) {
+    if (s instanceof Set) {
+      return new Set<V>(map.intersection(((Set<V>) s).map, pool));
+    } else {
+      return intersection(s);
+    }
+  }
+
   @Override
   public Set<V> forked() {
     return map.isLinear() ? new Set<V>(map.forked()) : this;
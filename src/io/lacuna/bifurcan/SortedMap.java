@@ -6,6 +6,7 @@ import io.lacuna.bifurcan.nodes.SortedMapNodes.Node;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.OptionalLong;
+import java.util.Spliterator;
 import java.util.function.*;
 
 /**
@@ -33,6 +34,31 @@ public class SortedMap<K, V> extends ISortedMap.Mixin<K, V> {
     return result.forked();
   }
 
+  /**
+   * Builds a balanced tree from the entries in linear time, rather than inserting each one.
+   *
+   * @param entries an iterator over at least {@code size} entries, whose keys are in strictly ascending natural order
+   * @param size    the number of entries to take from {@code entries}
+   * @return a map containing the first {@code size} entries
+   * @throws IllegalArgumentException if the keys are not in strictly ascending order
+   */
+  public static <K, V> SortedMap<K, V> fromSorted(Iterator<IEntry<K, V>> entries, long size) {
+    return fromSorted(entries, size, (Comparator<K>) Comparator.naturalOrder());
+  }
+
+  /**
+   * Builds a balanced tree from the entries in linear time, rather than inserting each one.
+   *
+   * @param entries    an iterator over at least {@code size} entries, whose keys are in strictly ascending order
+   * @param size       the number of entries to take from {@code entries}
+   * @param comparator the ordering of the keys
+   * @return a map containing the first {@code size} entries
+   * @throws IllegalArgumentException if the keys are not in strictly ascending order
+   */
+  public static <K, V> SortedMap<K, V> fromSorted(Iterator<IEntry<K, V>> entries, long size, Comparator<K> comparator) {
+    return new SortedMap<>(SortedMapNodes.fromSorted(entries, size, comparator), false, comparator);
+  }
+
   private SortedMap(Node<K, V> root, boolean linear, Comparator<K> comparator) {
     this.root = root;
     this.comparator = comparator;
@@ -82,7 +108,7 @@ public class SortedMap<K, V> extends ISortedMap.Mixin<K, V> {
 
   @Override
   public SortedMap<K, V> put(K key, V value, BinaryOperator<V> merge) {
-    Node<K, V> rootPrime = root.put(key, value, merge, comparator);
+    Node<K, V> rootPrime = root.put(isLinear() ? editor : new Object(), key, value, merge, comparator);
     //rootPrime.checkInvariant();
     if (isLinear()) {
       super.hash = -1;
@@ -95,7 +121,7 @@ public class SortedMap<K, V> extends ISortedMap.Mixin<K, V> {
 
   @Override
   public SortedMap<K, V> remove(K key) {
-    Node<K, V> rootPrime = root.remove(key, comparator);
+    Node<K, V> rootPrime = root.remove(isLinear() ? editor : new Object(), key, comparator);
     //rootPrime.checkInvariant();
     if (isLinear()) {
       super.hash = -1;
@@ -106,6 +132,57 @@ public class SortedMap<K, V> extends ISortedMap.Mixin<K, V> {
     }
   }
 
+  @Override
+  public SortedMap<K, V> merge(IMap<K, V> b, BinaryOperator<V> mergeFn) {
+    if (isCompatible(b)) {
+      return create(SortedMapNodes.merge(root, ((SortedMap<K, V>) b).root, mergeFn, comparator));
+    } else {
+      return (SortedMap<K, V>) super.merge(b, mergeFn);
+    }
+  }
+
+  @Override
+  public SortedMap<K, V> union(IMap<K, V> m) {
+    return merge(m, (BinaryOperator<V>) Maps.MERGE_LAST_WRITE_WINS);
+  }
+
+  @Override
+  public SortedMap<K, V> difference(IMap<K, ?> m) {
+    if (isCompatible(m)) {
+      return create(SortedMapNodes.difference(root, ((SortedMap<K, ?>) m).root, comparator));
+    } else {
+      return (SortedMap<K, V>) super.difference(m);
+    }
+  }
+
+  @Override
+  public SortedMap<K, V> difference(ISet<K> keys) {
+    if (keys instanceof SortedSet && isCompatible(((SortedSet<K>) keys).m)) {
+      return create(SortedMapNodes.difference(root, ((SortedSet<K>) keys).m.root, comparator));
+    } else {
+      return (SortedMap<K, V>) super.difference(keys);
+    }
+  }
+
+  @Override
+  public SortedMap<K, V> intersection(IMap<K, ?> m) {
+    if (isCompatible(m)) {
+      return create(SortedMapNodes.intersection(root, ((SortedMap<K, ?>) m).root, comparator));
+    } else {
+      return (SortedMap<K, V>) super.intersection(m);
+    }
+  }
+
+  @Override
+  public SortedMap<K, V> intersection(ISet<K> keys) {
+    if (keys instanceof SortedSet && isCompatible(((SortedSet<K>) keys).m)) {
+      return create(SortedMapNodes.intersection(root, ((SortedSet<K>) keys).m.root, comparator));
+    } else {
+      SortedMap<K, V> result = (SortedMap<K, V>) Maps.intersection(new SortedMap<K, V>(comparator).linear(), this, keys);
+      return isLinear() ? result : result.forked();
+    }
+  }
+
   @Override
   public V get(K key, V defaultValue) {
     Node<K, V> n = SortedMapNodes.find(root, key, comparator);
@@ -133,6 +210,27 @@ public class SortedMap<K, V> extends ISortedMap.Mixin<K, V> {
     return SortedMapNodes.iterator(root);
   }
 
+  @Override
+  public Iterator<IEntry<K, V>> iterator(long startIndex) {
+    if (startIndex < 0 || startIndex > size()) {
+      throw new IndexOutOfBoundsException(String.format("%d must be within [0,%d]", startIndex, size()));
+    }
+    return SortedMapNodes.iterator(root, startIndex);
+  }
+
+  @Override
+  public Iterator<IEntry<K, V>> reverseIterator(long startIndex) {
+    if (startIndex < -1 || startIndex >= size()) {
+      throw new IndexOutOfBoundsException(String.format("%d must be within [-1,%d)", startIndex, size()));
+    }
+    return SortedMapNodes.iterator(root, startIndex, true);
+  }
+
+  @Override
+  public Spliterator<IEntry<K, V>> spliterator() {
+    return SortedMapNodes.spliterator(root, IEntry::of, Spliterator.ORDERED | Spliterator.DISTINCT);
+  }
+
   @Override
   public IEntry<K, V> nth(long idx) {
     if (idx < 0 || idx >= size()) {
@@ -166,6 +264,17 @@ public class SortedMap<K, V> extends ISortedMap.Mixin<K, V> {
     return isLinear() ? this : new SortedMap<>(root, true, comparator);
   }
 
+  /**
+   * @return true, if {@code m} is a {@code SortedMap} with the same ordering, whose tree can be combined with ours
+   */
+  private boolean isCompatible(IMap<K, ?> m) {
+    return m instanceof SortedMap && comparator.equals(((SortedMap<K, ?>) m).comparator);
+  }
+
+  private SortedMap<K, V> create(Node<K, V> rootPrime) {
+    return new SortedMap<>(rootPrime, isLinear(), comparator);
+  }
+
   @Override
   public ToLongFunction<K> keyHash() {
     return Maps.DEFAULT_HASH_CODE;
@@ -1,7 +1,12 @@
 package io.lacuna.bifurcan;
 
+import io.lacuna.bifurcan.nodes.SortedMapNodes;
+import io.lacuna.bifurcan.utils.Iterators;
+
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.OptionalLong;
+import java.util.Spliterator;
 import java.util.function.BiPredicate;
 import java.util.function.Function;
 import java.util.function.ToLongFunction;
@@ -22,6 +27,31 @@ public class SortedSet<V> extends ISortedSet.Mixin<V> {
     this.m = m;
   }
 
+  /**
+   * Builds a balanced tree from the values in linear time, rather than inserting each one.
+   *
+   * @param values an iterator over at least {@code size} values, which are in strictly ascending natural order
+   * @param size   the number of values to take from {@code values}
+   * @return a set containing the first {@code size} values
+   * @throws IllegalArgumentException if the values are not in strictly ascending order
+   */
+  public static <V> SortedSet<V> fromSorted(Iterator<V> values, long size) {
+    return fromSorted(values, size, (Comparator<V>) Comparator.naturalOrder());
+  }
+
+  /**
+   * Builds a balanced tree from the values in linear time, rather than inserting each one.
+   *
+   * @param values     an iterator over at least {@code size} values, which are in strictly ascending order
+   * @param size       the number of values to take from {@code values}
+   * @param comparator the ordering of the values
+   * @return a set containing the first {@code size} values
+   * @throws IllegalArgumentException if the values are not in strictly ascending order
+   */
+  public static <V> SortedSet<V> fromSorted(Iterator<V> values, long size, Comparator<V> comparator) {
+    return new SortedSet<>(SortedMap.fromSorted(Iterators.map(values, v -> IEntry.of(v, null)), size, comparator));
+  }
+
   @Override
   public Comparator<V> comparator() {
     return m.comparator();
@@ -59,6 +89,25 @@ public class SortedSet<V> extends ISortedSet.Mixin<V> {
     }
   }
 
+  @Override
+  public SortedSet<V> union(ISet<V> s) {
+    if (s instanceof SortedSet) {
+      return new SortedSet<>(m.union(((SortedSet<V>) s).m));
+    } else {
+      return (SortedSet<V>) super.union(s);
+    }
+  }
+
+  @Override
+  public SortedSet<V> difference(ISet<V> s) {
+    return new SortedSet<>(m.difference(s));
+  }
+
+  @Override
+  public SortedSet<V> intersection(ISet<V> s) {
+    return new SortedSet<>(m.intersection(s));
+  }
+
   @Override
   public <U> SortedMap<V, U> zip(Function<V, U> f) {
     return m.mapValues((k, v) -> f.apply(k));
@@ -94,6 +143,27 @@ public class SortedSet<V> extends ISortedSet.Mixin<V> {
     return m.nth(idx).key();
   }
 
+  @Override
+  public Iterator<V> iterator(long startIndex) {
+    if (startIndex < 0 || startIndex > size()) {
+      throw new IndexOutOfBoundsException(String.format("%d must be within [0,%d]", startIndex, size()));
+    }
+    return Iterators.map(SortedMapNodes.iterator(m.root, startIndex), IEntry::key);
+  }
+
+  @Override
+  public Iterator<V> reverseIterator(long startIndex) {
+    if (startIndex < -1 || startIndex >= size()) {
+      throw new IndexOutOfBoundsException(String.format("%d must be within [-1,%d)", startIndex, size()));
+    }
+    return Iterators.map(SortedMapNodes.iterator(m.root, startIndex, true), IEntry::key);
+  }
+
+  @Override
+  public Spliterator<V> spliterator() {
+    return SortedMapNodes.spliterator(m.root, (k, v) -> k, Spliterator.ORDERED | Spliterator.DISTINCT);
+  }
+
   @Override
   public IList<V> elements() {
     return Lists.lazyMap(m.entries(), IEntry::key);
@@ -0,0 +1,75 @@
+package io.lacuna.bifurcan;
+
+import io.lacuna.bifurcan.nodes.IntLongMapNodes;
+
+/**
+ * Linear algebra over sparse vectors, represented as {@link IntDoubleMap}s, and sparse matrices, represented as an
+ * {@link IntMap} of rows.  Operations over two vectors walk both trees in lockstep, so any subtrees whose key ranges
+ * don't overlap are skipped entirely.
+ *
+ * @author ztellman
+ */
+public class SparseVectors {
+
+  /**
+   * @return the dot product of {@code a} and {@code b}
+   */
+  public static double dot(IntDoubleMap a, IntDoubleMap b) {
+    IntLongMap x = a.map;
+    IntLongMap y = b.map;
+    return IntLongMapNodes.dot(x.neg, y.neg) + IntLongMapNodes.dot(x.pos, y.pos);
+  }
+
+  /**
+   * @return the sum of {@code a} and {@code b}, which shares structure with both
+   */
+  public static IntDoubleMap add(IntDoubleMap a, IntDoubleMap b) {
+    return a.merge(b, Double::sum);
+  }
+
+  /**
+   * @return {@code a} with every value multiplied by {@code alpha}
+   */
+  public static IntDoubleMap scale(IntDoubleMap a, double alpha) {
+    return a.mapValues(v -> v * alpha);
+  }
+
+  /**
+   * @return {@code alpha * x + y}
+   */
+  public static IntDoubleMap axpy(double alpha, IntDoubleMap x, IntDoubleMap y) {
+    return add(scale(x, alpha), y);
+  }
+
+  /**
+   * @return the Euclidean norm of {@code a}
+   */
+  public static double norm(IntDoubleMap a) {
+    double[] sum = {0};
+    a.forEach((k, v) -> sum[0] += v * v);
+    return Math.sqrt(sum[0]);
+  }
+
+  /**
+   * @return the cosine similarity of {@code a} and {@code b}, which is {@code NaN} if either has a norm of zero
+   */
+  public static double cosine(IntDoubleMap a, IntDoubleMap b) {
+    return dot(a, b) / (norm(a) * norm(b));
+  }
+
+  /**
+   * @param matrix a sparse matrix, as a map of row indices onto rows
+   * @param x      a sparse vector
+   * @return the product of {@code matrix} and {@code x}, which only contains entries for non-zero values
+   */
+  public static IntDoubleMap multiply(IntMap<IntDoubleMap> matrix, IntDoubleMap x) {
+    IntDoubleMap result = new IntDoubleMap().linear();
+    matrix.forEach((row, v) -> {
+      double d = dot(v, x);
+      if (d != 0) {
+        result.put(row, d);
+      }
+    });
+    return result.forked();
+  }
+}
@@ -0,0 +1,52 @@
+package io.lacuna.bifurcan;
+
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * An associative summary of a sequence of values, such as their sum, their maximum, or their total weight, which can
+ * be computed over a {@link List} or {@link Rope} and cached on the interior nodes of its tree.  Since only the nodes
+ * which have changed need to be summarized again, summarizing an updated collection typically takes {@code O(log n)}
+ * time.
+ * <p>
+ * {@code combine} must be associative, and {@code identity} must be its identity value, but {@code combine} need not
+ * be commutative.  Cached values are looked up by the identity of the {@code Summary}, so a single instance should be
+ * reused rather than created anew for each call.
+ *
+ * @author ztellman
+ */
+public final class Summary<V, S> {
+
+  public final S identity;
+  private final Function<V, S> measure;
+  private final BinaryOperator<S> combine;
+
+  private Summary(S identity, Function<V, S> measure, BinaryOperator<S> combine) {
+    this.identity = identity;
+    this.measure = measure;
+    this.combine = combine;
+  }
+
+  /**
+   * @param identity the summary of an empty sequence
+   * @param measure  a function which returns the summary of a single value
+   * @param combine  an associative function which returns the summary of two adjacent sequences
+   */
+  public static <V, S> Summary<V, S> of(S identity, Function<V, S> measure, BinaryOperator<S> combine) {
+    return new Summary<>(identity, measure, combine);
+  }
+
+  /**
+   * @return the summary of {@code value}
+   */
+  public S measure(V value) {
+    return measure.apply(value);
+  }
+
+  /**
+   * @return the summary of the sequence summarized by {@code a}, followed by the sequence summarized by {@code b}
+   */
+  public S combine(S a, S b) {
+    return combine.apply(a, b);
+  }
+}
@@ -0,0 +1,20 @@
+package io.lacuna.bifurcan.nodes;
+
+import io.lacuna.bifurcan.Summary;
+
+/**
+ * The most recently computed {@link Summary} of a tree node.  It's replaced wholesale rather than updated, so that a
+ * reader on another thread never sees a value paired with the wrong summary.
+ *
+ * @author ztellman
+ */
+final class Annotation {
+
+  final Summary<?, ?> summary;
+  final Object value;
+
+  Annotation(Summary<?, ?> summary, Object value) {
+    this.summary = summary;
+    this.value = value;
+  }
+}
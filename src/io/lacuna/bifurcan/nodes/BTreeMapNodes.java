@@ -0,0 +1,469 @@
+package io.lacuna.bifurcan.nodes;
+
+import io.lacuna.bifurcan.IEntry;
+import io.lacuna.bifurcan.IList;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+
+/**
+ * Nodes for a persistent B+-tree, where every entry is stored in a leaf, and each branch stores the smallest key and
+ * cumulative size of each of its children.
+ *
+ * @author ztellman
+ */
+public class BTreeMapNodes {
+
+  public static final int MAX_BRANCHES = 32;
+  public static final int MIN_BRANCHES = MAX_BRANCHES / 2;
+
+  public static final Node EMPTY = new Node(null, 0, new Object[0], new Object[0], null, null);
+
+  public static class Node<K, V> {
+    public final Object editor;
+    public int n;
+
+    // for branches, the smallest key within each child
+    public Object[] keys;
+
+    // only for leaves
+    public Object[] values;
+
+    // only for branches, where offsets[i] is the number of entries within children[0..i]
+    public Node<K, V>[] children;
+    public long[] offsets;
+
+    private Node(Object editor, int n, Object[] keys, Object[] values, Node<K, V>[] children, long[] offsets) {
+      this.editor = editor;
+      this.n = n;
+      this.keys = keys;
+      this.values = values;
+      this.children = children;
+      this.offsets = offsets;
+    }
+
+    public boolean isLeaf() {
+      return children == null;
+    }
+
+    public long size() {
+      return isLeaf() ? n : offsets[n - 1];
+    }
+
+    public Node<K, V> put(Object editor, K key, V value, BinaryOperator<V> merge, Comparator<K> comparator) {
+      Node<K, V> node = _put(editor, key, value, merge, comparator);
+      if (node.n > MAX_BRANCHES) {
+        int mid = node.n >> 1;
+        Node<K, V> l = node.slice(editor, 0, mid);
+        Node<K, V> r = node.slice(editor, mid, node.n);
+        return branch(editor, 2, new Object[] {l.keys[0], r.keys[0]}, new Node[] {l, r});
+      }
+      return node;
+    }
+
+    public Node<K, V> remove(Object editor, K key, Comparator<K> comparator) {
+      Node<K, V> node = _remove(editor, key, comparator);
+      return !node.isLeaf() && node.n == 1 ? node.children[0] : node;
+    }
+
+    public void split(long targetSize, IList<Node<K, V>> acc) {
+      if (!isLeaf() && size() >= targetSize * 2) {
+        for (int i = 0; i < n; i++) {
+          children[i].split(targetSize, acc);
+        }
+      } else if (size() > 0) {
+        acc.addLast(this);
+      }
+    }
+
+    public <U> Node<K, U> mapValues(BiFunction<K, V, U> f) {
+      if (isLeaf()) {
+        Object[] valuesPrime = new Object[n];
+        for (int i = 0; i < n; i++) {
+          valuesPrime[i] = f.apply((K) keys[i], (V) values[i]);
+        }
+        return new Node<>(null, n, Arrays.copyOf(keys, n), valuesPrime, null, null);
+      } else {
+        Node<K, U>[] childrenPrime = new Node[n];
+        for (int i = 0; i < n; i++) {
+          childrenPrime[i] = children[i].mapValues(f);
+        }
+        return new Node<>(null, n, Arrays.copyOf(keys, n), null, childrenPrime, Arrays.copyOf(offsets, n));
+      }
+    }
+
+    /**
+     * @return the depth of the tree
+     * @throws IllegalStateException if the keys are out of order, a node is over- or under-filled, or a branch's keys
+     *                               or offsets don't match its children
+     */
+    public int checkInvariant(Comparator<K> comparator, boolean isRoot) {
+      if (n > MAX_BRANCHES || (!isRoot && n < MIN_BRANCHES) || (isRoot && !isLeaf() && n < 2)) {
+        throw new IllegalStateException();
+      }
+
+      for (int i = 1; i < n; i++) {
+        if (comparator.compare((K) keys[i - 1], (K) keys[i]) >= 0) {
+          throw new IllegalStateException();
+        }
+      }
+
+      if (isLeaf()) {
+        return 1;
+      }
+
+      int depth = -1;
+      for (int i = 0; i < n; i++) {
+        Node<K, V> c = children[i];
+        int d = c.checkInvariant(comparator, false);
+        if ((depth >= 0 && d != depth) || keys[i] != c.keys[0] || offsets[i] != offset(i) + c.size()) {
+          throw new IllegalStateException();
+        }
+        depth = d;
+      }
+
+      return depth + 1;
+    }
+
+    ///
+
+    private Node<K, V> _put(Object editor, K key, V value, BinaryOperator<V> merge, Comparator<K> comparator) {
+      if (isLeaf()) {
+        int idx = search(key, comparator);
+        if (idx >= 0) {
+          Node<K, V> node = editable(editor, n);
+          node.keys[idx] = key;
+          node.values[idx] = merge.apply((V) values[idx], value);
+          return node;
+        }
+
+        idx = -idx - 1;
+        Node<K, V> node = editable(editor, n + 1);
+        System.arraycopy(node.keys, idx, node.keys, idx + 1, n - idx);
+        System.arraycopy(node.values, idx, node.values, idx + 1, n - idx);
+        node.keys[idx] = key;
+        node.values[idx] = value;
+        node.n++;
+        return node;
+      }
+
+      int i = childIndex(key, comparator);
+      Node<K, V> child = children[i]._put(editor, key, value, merge, comparator);
+      if (child.n <= MAX_BRANCHES) {
+        return setChild(editor, i, child);
+      }
+
+      int mid = child.n >> 1;
+      Node<K, V> node = editable(editor, n + 1);
+      System.arraycopy(node.keys, i + 1, node.keys, i + 2, n - i - 1);
+      System.arraycopy(node.children, i + 1, node.children, i + 2, n - i - 1);
+      node.n++;
+      node.setChild(i, child.slice(editor, 0, mid));
+      node.setChild(i + 1, child.slice(editor, mid, child.n));
+      node.updateOffsets(i);
+      return node;
+    }
+
+    private Node<K, V> _remove(Object editor, K key, Comparator<K> comparator) {
+      if (isLeaf()) {
+        int idx = search(key, comparator);
+        if (idx < 0) {
+          return this;
+        }
+
+        Node<K, V> node = editable(editor, n);
+        System.arraycopy(node.keys, idx + 1, node.keys, idx, n - idx - 1);
+        System.arraycopy(node.values, idx + 1, node.values, idx, n - idx - 1);
+        node.n--;
+        node.keys[node.n] = null;
+        node.values[node.n] = null;
+        return node;
+      }
+
+      int i = childIndex(key, comparator);
+      long prevSize = offsets[i] - offset(i);
+      Node<K, V> child = children[i]._remove(editor, key, comparator);
+      if (child.size() == prevSize) {
+        return this;
+      } else if (child.n >= MIN_BRANCHES || n == 1) {
+        return setChild(editor, i, child);
+      }
+
+      // borrow from, or merge with, a neighboring child
+      int lo = i == 0 ? 0 : i - 1;
+      Node<K, V> merged = i == 0 ? concat(editor, child, children[1]) : concat(editor, children[i - 1], child);
+      Node<K, V> node = editable(editor, n);
+      if (merged.n > MAX_BRANCHES) {
+        int mid = merged.n >> 1;
+        node.setChild(lo, merged.slice(editor, 0, mid));
+        node.setChild(lo + 1, merged.slice(editor, mid, merged.n));
+      } else {
+        node.setChild(lo, merged);
+        System.arraycopy(node.keys, lo + 2, node.keys, lo + 1, n - lo - 2);
+        System.arraycopy(node.children, lo + 2, node.children, lo + 1, n - lo - 2);
+        node.n--;
+        node.keys[node.n] = null;
+        node.children[node.n] = null;
+      }
+      node.updateOffsets(lo);
+      return node;
+    }
+
+    private Node<K, V> setChild(Object editor, int i, Node<K, V> child) {
+      Node<K, V> node = editable(editor, n);
+      node.setChild(i, child);
+      node.updateOffsets(i);
+      return node;
+    }
+
+    private void setChild(int i, Node<K, V> child) {
+      keys[i] = child.keys[0];
+      children[i] = child;
+    }
+
+    private void updateOffsets(int start) {
+      for (int i = start; i < n; i++) {
+        offsets[i] = offset(i) + children[i].size();
+      }
+    }
+
+    private long offset(int i) {
+      return i == 0 ? 0 : offsets[i - 1];
+    }
+
+    private boolean isOwned(Object editor) {
+      return editor != null && editor == this.editor;
+    }
+
+    /**
+     * @return this node if it's owned by {@code editor}, with room for at least {@code capacity} entries, otherwise a
+     * copy owned by {@code editor} with exactly that much room
+     */
+    private Node<K, V> editable(Object editor, int capacity) {
+      if (!isOwned(editor)) {
+        return isLeaf()
+            ? new Node<>(editor, n, Arrays.copyOf(keys, capacity), Arrays.copyOf(values, capacity), null, null)
+            : new Node<>(editor, n, Arrays.copyOf(keys, capacity), null, Arrays.copyOf(children, capacity), Arrays.copyOf(offsets, capacity));
+      }
+
+      if (keys.length < capacity) {
+        int len = Math.min(MAX_BRANCHES + 1, Math.max(capacity, keys.length << 1));
+        keys = Arrays.copyOf(keys, len);
+        if (isLeaf()) {
+          values = Arrays.copyOf(values, len);
+        } else {
+          children = Arrays.copyOf(children, len);
+          offsets = Arrays.copyOf(offsets, len);
+        }
+      }
+      return this;
+    }
+
+    private Node<K, V> slice(Object editor, int start, int end) {
+      Object[] keysPrime = Arrays.copyOfRange(keys, start, end);
+      return isLeaf()
+          ? new Node<>(editor, end - start, keysPrime, Arrays.copyOfRange(values, start, end), null, null)
+          : branch(editor, end - start, keysPrime, Arrays.copyOfRange(children, start, end));
+    }
+
+    /**
+     * @return the index of {@code key} within {@code keys}, or {@code -(insertionPoint + 1)} if it isn't present
+     */
+    private int search(K key, Comparator<K> comparator) {
+      int lo = 0;
+      int hi = n - 1;
+      while (lo <= hi) {
+        int mid = (lo + hi) >>> 1;
+        int cmp = comparator.compare((K) keys[mid], key);
+        if (cmp < 0) {
+          lo = mid + 1;
+        } else if (cmp > 0) {
+          hi = mid - 1;
+        } else {
+          return mid;
+        }
+      }
+      return -(lo + 1);
+    }
+
+    /**
+     * @return the index of the child which would contain {@code key}
+     */
+    private int childIndex(K key, Comparator<K> comparator) {
+      int idx = search(key, comparator);
+      return idx >= 0 ? idx : Math.max(0, -idx - 2);
+    }
+
+    /**
+     * @return the index of the child which contains the entry at {@code idx}
+     */
+    private int childIndex(long idx) {
+      int lo = 0;
+      int hi = n - 1;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (offsets[mid] > idx) {
+          hi = mid;
+        } else {
+          lo = mid + 1;
+        }
+      }
+      return lo;
+    }
+  }
+
+  private static <K, V> Node<K, V> branch(Object editor, int n, Object[] keys, Node<K, V>[] children) {
+    Node<K, V> node = new Node<>(editor, n, keys, null, children, new long[children.length]);
+    node.updateOffsets(0);
+    return node;
+  }
+
+  private static <K, V> Node<K, V> concat(Object editor, Node<K, V> a, Node<K, V> b) {
+    int n = a.n + b.n;
+    Object[] keys = Arrays.copyOf(a.keys, n);
+    System.arraycopy(b.keys, 0, keys, a.n, b.n);
+
+    if (a.isLeaf()) {
+      Object[] values = Arrays.copyOf(a.values, n);
+      System.arraycopy(b.values, 0, values, a.n, b.n);
+      return new Node<>(editor, n, keys, values, null, null);
+    } else {
+      Node<K, V>[] children = Arrays.copyOf(a.children, n);
+      System.arraycopy(b.children, 0, children, a.n, b.n);
+      return branch(editor, n, keys, children);
+    }
+  }
+
+  ///
+
+  public static <K, V> V get(Node<K, V> n, K key, V defaultValue, Comparator<K> comparator) {
+    while (!n.isLeaf()) {
+      n = n.children[n.childIndex(key, comparator)];
+    }
+    int idx = n.search(key, comparator);
+    return idx < 0 ? defaultValue : (V) n.values[idx];
+  }
+
+  public static <K, V> boolean contains(Node<K, V> n, K key, Comparator<K> comparator) {
+    while (!n.isLeaf()) {
+      n = n.children[n.childIndex(key, comparator)];
+    }
+    return n.search(key, comparator) >= 0;
+  }
+
+  public static <K, V> long indexOf(Node<K, V> n, K key, Comparator<K> comparator) {
+    long offset = 0;
+    while (!n.isLeaf()) {
+      int i = n.childIndex(key, comparator);
+      offset += n.offset(i);
+      n = n.children[i];
+    }
+    int idx = n.search(key, comparator);
+    return idx < 0 ? -1 : offset + idx;
+  }
+
+  public static <K, V> long floorIndex(Node<K, V> n, K key, Comparator<K> comparator) {
+    long offset = 0;
+    for (; ; ) {
+      int idx = n.search(key, comparator);
+      if (idx < 0) {
+        idx = -idx - 2;
+        if (idx < 0) {
+          return -1;
+        }
+      }
+
+      if (n.isLeaf()) {
+        return offset + idx;
+      }
+      offset += n.offset(idx);
+      n = n.children[idx];
+    }
+  }
+
+  public static <K, V> long ceilIndex(Node<K, V> n, K key, Comparator<K> comparator) {
+    long offset = 0;
+    long fallback = -1;
+    for (; ; ) {
+      int idx = n.search(key, comparator);
+      if (n.isLeaf()) {
+        if (idx < 0) {
+          idx = -idx - 1;
+        }
+        return idx < n.n ? offset + idx : fallback;
+      }
+
+      if (idx < 0) {
+        idx = -idx - 2;
+        if (idx < 0) {
+          return offset;
+        }
+      }
+
+      // if the key is greater than everything in this child, the ceiling is the first entry of the next child
+      if (idx + 1 < n.n) {
+        fallback = offset + n.offsets[idx];
+      }
+      offset += n.offset(idx);
+      n = n.children[idx];
+    }
+  }
+
+  public static <K, V> IEntry<K, V> nth(Node<K, V> n, long idx) {
+    while (!n.isLeaf()) {
+      int i = n.childIndex(idx);
+      idx -= n.offset(i);
+      n = n.children[i];
+    }
+    return IEntry.of((K) n.keys[(int) idx], (V) n.values[(int) idx]);
+  }
+
+  /**
+   * @param reverse if true, the entries are returned in descending order, from {@code startIndex} down to the first
+   *                entry
+   * @return an iterator over the entries from {@code startIndex} onwards, which walks each leaf's arrays directly
+   */
+  public static <K, V> Iterator<IEntry<K, V>> iterator(Node<K, V> root, long startIndex, boolean reverse) {
+    return new Iterator<IEntry<K, V>>() {
+      final int step = reverse ? -1 : 1;
+      final long size = root.size();
+      long idx = startIndex;
+      Node<K, V> leaf = EMPTY;
+      int leafIdx = -1;
+
+      @Override
+      public boolean hasNext() {
+        return reverse ? idx >= 0 : idx < size;
+      }
+
+      @Override
+      public IEntry<K, V> next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+
+        // we've walked off either end of the leaf, so descend to the one containing idx
+        if (leafIdx < 0 || leafIdx >= leaf.n) {
+          Node<K, V> n = root;
+          long i = idx;
+          while (!n.isLeaf()) {
+            int c = n.childIndex(i);
+            i -= n.offset(c);
+            n = n.children[c];
+          }
+          leaf = n;
+          leafIdx = (int) i;
+        }
+
+        idx += step;
+        int i = leafIdx;
+        leafIdx += step;
+        return IEntry.of((K) leaf.keys[i], (V) leaf.values[i]);
+      }
+    };
+  }
+}
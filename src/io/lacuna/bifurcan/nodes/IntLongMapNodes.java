@@ -0,0 +1,680 @@
+package io.lacuna.bifurcan.nodes;
+
+import io.lacuna.bifurcan.IntLongMap;
+
+import java.util.NoSuchElementException;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongUnaryOperator;
+
+import static io.lacuna.bifurcan.nodes.Util.*;
+import static java.lang.Double.longBitsToDouble;
+import static java.lang.Integer.bitCount;
+import static java.lang.System.arraycopy;
+
+/**
+ * Equivalent to {@link IntMapNodes}, except that values are primitive {@code long}s stored in an array parallel to the
+ * keys, and child nodes are stored in a separate array.
+ *
+ * @author ztellman
+ */
+public class IntLongMapNodes {
+
+  private static final Node[] NO_NODES = new Node[0];
+
+  public static class Node extends IntTrieNode<Node> {
+
+    public final static Node POS_EMPTY = new Node(new Object(), 0, 0);
+    public final static Node NEG_EMPTY = new Node(new Object(), -1, 0);
+
+    public long[] values;
+    public Node[] nodes;
+
+    // constructors
+
+    private Node(Object editor, long prefix, int offset, boolean empty) {
+      super(editor, prefix, offset);
+    }
+
+    public Node(Object editor, long prefix, int offset) {
+      super(editor, prefix, offset);
+      this.keys = new long[2];
+      this.values = new long[2];
+      this.nodes = NO_NODES;
+    }
+
+    // lookup
+
+    public long get(long k, long defaultVal) {
+      Node n = this;
+      for (; ; ) {
+        int mask = n.mask(k);
+        if (n.isEntry(mask)) {
+          int idx = n.entryIndex(mask);
+          return n.keys[idx] == k ? n.values[idx] : defaultVal;
+        } else if (n.isNode(mask)) {
+          n = n.node(mask);
+        } else {
+          return defaultVal;
+        }
+      }
+    }
+
+    public long nthValue(long idx) {
+      Slot<Node> slot = slot(idx);
+      return slot.node.values[slot.idx];
+    }
+
+    // update
+
+    public Node put(Object editor, long k, long v, LongBinaryOperator mergeFn) {
+
+      if (editor != this.editor) {
+        return clone(editor).put(editor, k, v, mergeFn);
+      } else if (size == 0) {
+        Node n = new Node(editor, k, 0);
+        return n.putEntry(n.mask(k), k, v);
+      }
+
+      int offsetPrime = offset(k, prefix);
+
+      // common parent
+      if (offsetPrime > this.offset) {
+        Node n = new Node(editor, k, offsetPrime);
+        if (size == 1) {
+          n = n.putEntry(n.mask(prefix), keys[0], values[0]);
+        } else if (size > 0) {
+          n = n.putNode(n.mask(prefix), this);
+        }
+        return n.putEntry(n.mask(k), k, v);
+
+        // somewhere at or below our level
+      } else {
+
+        int mask = mask(k);
+        if (isEntry(mask)) {
+          int idx = entryIndex(mask);
+          if (k == keys[idx]) {
+            values[idx] = mergeFn.applyAsLong(values[idx], v);
+            return this;
+          } else {
+            Node n = new Node(editor, k, offset(k, keys[idx]));
+            n = n
+                .putEntry(n.mask(keys[idx]), keys[idx], values[idx])
+                .putEntry(n.mask(k), k, v);
+            return removeEntry(mask).putNode(mask, n);
+          }
+        } else if (isNode(mask)) {
+          Node n = node(mask);
+          long prevSize = n.size();
+          Node nPrime = n.put(editor, k, v, mergeFn);
+          setNode(mask, nPrime);
+          if (n == nPrime) {
+            size += nPrime.size() - prevSize;
+          }
+          return this;
+        } else {
+          return putEntry(mask, k, v);
+        }
+      }
+    }
+
+    public Node mapValues(Object editor, LongUnaryOperator f) {
+      Node n = clone(editor);
+      for (int i = bitCount(datamap) - 1; i >= 0; i--) {
+        n.values[i] = f.applyAsLong(values[i]);
+      }
+
+      for (int i = bitCount(nodemap) - 1; i >= 0; i--) {
+        n.nodes[i] = nodes[i].mapValues(editor, f);
+      }
+
+      return n;
+    }
+
+    // iteration
+
+    public void forEach(IntLongMap.LongLongConsumer f) {
+      int bits = nodemap | datamap;
+      while (bits != 0) {
+        int mask = bits & -bits;
+        bits &= ~mask;
+        if (isEntry(mask)) {
+          int idx = entryIndex(mask);
+          f.accept(keys[idx], values[idx]);
+        } else {
+          node(mask).forEach(f);
+        }
+      }
+    }
+
+    public boolean equals(Node n) {
+
+      if (n == this) {
+        return true;
+      }
+
+      if (size == n.size && datamap == n.datamap && nodemap == n.nodemap) {
+        int numEntries = bitCount(datamap);
+        for (int i = 0; i < numEntries; i++) {
+          if (keys[i] != n.keys[i] || values[i] != n.values[i]) {
+            return false;
+          }
+        }
+
+        int numNodes = bitCount(nodemap);
+        for (int i = 0; i < numNodes; i++) {
+          if (!nodes[i].equals(n.nodes[i])) {
+            return false;
+          }
+        }
+
+        return true;
+      }
+
+      return false;
+    }
+
+    /// private
+
+    @Override
+    Node node(int mask) {
+      return nodes[nodeIndex(mask)];
+    }
+
+    @Override
+    Node clone(Object editor) {
+      Node n = new Node(editor, prefix, offset, false);
+      n.datamap = datamap;
+      n.nodemap = nodemap;
+      n.size = size;
+      n.keys = keys.clone();
+      n.values = values.clone();
+      n.nodes = nodes.length == 0 ? NO_NODES : nodes.clone();
+
+      return n;
+    }
+
+    @Override
+    Node create(Object editor, long prefix, int offset) {
+      return new Node(editor, prefix, offset);
+    }
+
+    @Override
+    Node copyEntry(int mask, Node src, int idx) {
+      return putEntry(mask, src.keys[idx], src.values[idx]);
+    }
+
+    Node putEntry(int mask, long key, long value) {
+
+      assert ((datamap | nodemap) & mask) == 0;
+
+      int numEntries = bitCount(datamap);
+      if (numEntries == keys.length) {
+        long[] k = new long[numEntries << 1];
+        long[] v = new long[numEntries << 1];
+        arraycopy(keys, 0, k, 0, numEntries);
+        arraycopy(values, 0, v, 0, numEntries);
+        keys = k;
+        values = v;
+      }
+
+      int idx = entryIndex(mask);
+      if (idx != numEntries) {
+        arraycopy(keys, idx, keys, idx + 1, numEntries - idx);
+        arraycopy(values, idx, values, idx + 1, numEntries - idx);
+      }
+      datamap |= mask;
+      size++;
+
+      keys[idx] = key;
+      values[idx] = value;
+
+      return this;
+    }
+
+    @Override
+    Node removeEntry(final int mask) {
+
+      assert (mask & datamap) > 0;
+
+      final int idx = entryIndex(mask);
+      final int numEntries = bitCount(datamap);
+      if (idx != numEntries - 1) {
+        arraycopy(keys, idx + 1, keys, idx, numEntries - 1 - idx);
+        arraycopy(values, idx + 1, values, idx, numEntries - 1 - idx);
+      }
+      datamap &= ~mask;
+      size--;
+
+      keys[numEntries - 1] = 0;
+      values[numEntries - 1] = 0;
+
+      return this;
+    }
+
+    @Override
+    Node setNode(int mask, Node node) {
+
+      assert (nodemap & mask) > 0;
+
+      int idx = nodeIndex(mask);
+      size += node.size() - nodes[idx].size();
+      nodes[idx] = node;
+
+      return this;
+    }
+
+    @Override
+    Node putNode(final int mask, Node node) {
+
+      assert ((nodemap | datamap) & mask) == 0;
+      assert node.offset < this.offset;
+
+      if (node.size() == 1) {
+        return putEntry(mask, node.keys[0], node.values[0]);
+      }
+
+      int numNodes = bitCount(nodemap);
+      if (numNodes == nodes.length) {
+        Node[] n = new Node[Math.max(2, numNodes << 1)];
+        arraycopy(nodes, 0, n, 0, numNodes);
+        nodes = n;
+      }
+
+      int idx = nodeIndex(mask);
+      if (idx != numNodes) {
+        arraycopy(nodes, idx, nodes, idx + 1, numNodes - idx);
+      }
+      nodemap |= mask;
+      size += node.size();
+
+      nodes[idx] = node;
+
+      return this;
+    }
+
+    @Override
+    Node removeNode(final int mask) {
+
+      int idx = nodeIndex(mask);
+      int numNodes = bitCount(nodemap);
+      size -= nodes[idx].size();
+      if (idx != numNodes - 1) {
+        arraycopy(nodes, idx + 1, nodes, idx, numNodes - 1 - idx);
+      }
+      nodemap &= ~mask;
+
+      nodes[numNodes - 1] = null;
+
+      return this;
+    }
+  }
+
+  private static int offset(long a, long b) {
+    return IntTrieNode.offset(a, b);
+  }
+
+  /**
+   * A cursor over the entries in one or more nodes, which exposes each key and value without allocating an entry.
+   */
+  public static class Cursor extends IntTrieNode.Cursor<Node> {
+
+    public Cursor(Node a, Node b) {
+      super(a, b);
+    }
+
+    /**
+     * @return the value of the current entry
+     * @throws NoSuchElementException if {@link #advance()} hasn't returned true
+     */
+    public long value() {
+      return node().values[entryIndex()];
+    }
+  }
+
+  public static Node merge(Object editor, Node a, Node b, LongBinaryOperator mergeFn) {
+
+    if (a.size() == 0) {
+      return b;
+    } else if (b.size() == 0) {
+      return a;
+    }
+
+    int offsetPrime = offset(a.prefix, b.prefix);
+
+    // don't overlap, share a common parent
+    if (offsetPrime > a.offset && offsetPrime > b.offset) {
+      Node n = new Node(editor, a.prefix, offsetPrime);
+      return merge(editor, n.putNode(n.mask(a.prefix), a), b, mergeFn);
+    }
+
+    // a contains b
+    if (a.offset > b.offset) {
+      int mask = a.mask(b.prefix);
+      if (a.isEntry(mask)) {
+        int idx = a.entryIndex(mask);
+        long key = a.keys[idx];
+        long val = a.values[idx];
+        return a.clone(editor)
+            .removeEntry(mask)
+            .putNode(mask, b)
+            .put(editor, key, val, (x, y) -> mergeFn.applyAsLong(y, x));
+
+      } else if (a.isNode(mask)) {
+        return a.clone(editor)
+            .setNode(mask, merge(editor, a.node(mask), b, mergeFn));
+
+      } else {
+        return a.clone(editor)
+            .putNode(mask, b);
+      }
+
+      // b contains a
+    } else if (a.offset < b.offset) {
+      return merge(editor, b, a, (x, y) -> mergeFn.applyAsLong(y, x));
+
+      // a and b are siblings
+    } else {
+      Node result = new Node(editor, a.prefix, a.offset);
+
+      int bits = a.datamap | a.nodemap | b.datamap | b.nodemap;
+      while (bits != 0) {
+        int mask = bits & -bits;
+        bits &= ~mask;
+
+        int state = mergeState(mask, a.nodemap, a.datamap, b.nodemap, b.datamap);
+        int idx;
+        switch (state) {
+          case NODE_NONE:
+          case NONE_NODE:
+            result = transferNode(mask, state == NODE_NONE ? a : b, result);
+            break;
+          case ENTRY_NONE:
+          case NONE_ENTRY:
+            result = transferEntry(mask, state == ENTRY_NONE ? a : b, result);
+            break;
+          case ENTRY_ENTRY:
+            result = transferEntry(mask, a, result);
+            idx = b.entryIndex(mask);
+            result = result.put(editor, b.keys[idx], b.values[idx], mergeFn);
+            break;
+          case NODE_NODE:
+            result = result.putNode(mask, merge(editor, a.node(mask), b.node(mask), mergeFn));
+            break;
+          case NODE_ENTRY:
+            idx = b.entryIndex(mask);
+            result = result
+                .putNode(mask, a.node(mask))
+                .put(editor, b.keys[idx], b.values[idx], mergeFn);
+            break;
+          case ENTRY_NODE:
+            idx = a.entryIndex(mask);
+            result = result
+                .putNode(mask, b.node(mask))
+                .put(editor, a.keys[idx], a.values[idx], (x, y) -> mergeFn.applyAsLong(y, x));
+            break;
+          case NONE_NONE:
+            break;
+        }
+      }
+
+      return result;
+    }
+  }
+
+  public static Node difference(Object editor, Node a, Node b) {
+
+    int offsetPrime = offset(a.prefix, b.prefix);
+
+    // don't overlap, share a common parent
+    if (offsetPrime > a.offset && offsetPrime > b.offset) {
+      return a;
+    }
+
+    Node result = null;
+
+    // a contains b
+    if (a.offset > b.offset) {
+      int mask = a.mask(b.prefix);
+      if (a.isEntry(mask)) {
+        long key = a.key(mask);
+        Node nPrime = b.contains(key)
+            ? a.clone(editor).remove(editor, key)
+            : a;
+        result = nPrime.size() == 0 ? null : nPrime;
+      } else if (a.isNode(mask)) {
+        result = a.clone(editor).removeNode(mask);
+        Node nPrime = difference(editor, a.node(mask), b);
+        if (nPrime != null) {
+          result = result.putNode(mask, nPrime);
+        }
+      } else {
+        result = a;
+      }
+
+      // b contains a
+    } else if (a.offset < b.offset) {
+      int mask = b.mask(a.prefix);
+      if (b.isEntry(mask)) {
+        Node nPrime = a.remove(editor, b.key(mask));
+
+        result = nPrime.size() == 0 ? null : nPrime;
+      } else if (b.isNode(mask)) {
+        result = difference(editor, a, b.node(mask));
+      } else {
+        result = a;
+      }
+
+      // a and b are siblings
+    } else {
+      result = new Node(editor, a.prefix, a.offset);
+
+      int bits = a.datamap | a.nodemap;
+      while (bits != 0) {
+        int mask = bits & -bits;
+        bits &= ~mask;
+
+        int state = mergeState(mask, a.nodemap, a.datamap, b.nodemap, b.datamap);
+        switch (state) {
+          case NODE_NONE:
+            result = transferNode(mask, a, result);
+            break;
+          case ENTRY_NONE:
+            result = transferEntry(mask, a, result);
+            break;
+          case ENTRY_ENTRY:
+            if (a.key(mask) != b.key(mask)) {
+              result = transferEntry(mask, a, result);
+            }
+            break;
+          case NODE_NODE:
+            Node nPrime = difference(editor, a.node(mask), b.node(mask));
+            if (nPrime != null) {
+              result = result.putNode(mask, nPrime);
+            }
+            break;
+          case NODE_ENTRY:
+            nPrime = a.node(mask).remove(editor, b.key(mask));
+            if (nPrime.size > 0) {
+              result = result.putNode(mask, nPrime);
+            }
+            break;
+          case ENTRY_NODE:
+            if (!b.contains(a.key(mask))) {
+              result = transferEntry(mask, a, result);
+            }
+            break;
+          default:
+            throw new IllegalStateException();
+        }
+      }
+    }
+
+    return result == null || result.size() == 0 ? null : result.collapse();
+  }
+
+  public static Node intersection(Object editor, Node a, Node b) {
+
+    int offsetPrime = offset(a.prefix, b.prefix);
+
+    // don't overlap, share a common parent
+    if (offsetPrime > a.offset && offsetPrime > b.offset) {
+      return null;
+    }
+
+    Node result = null;
+
+    // a contains b
+    if (a.offset > b.offset) {
+      int mask = a.mask(b.prefix);
+      if (a.isEntry(mask)) {
+        result = b.contains(a.key(mask))
+            ? transferEntry(mask, a, new Node(editor, a.prefix, a.offset))
+            : null;
+      } else if (a.isNode(mask)) {
+        result = intersection(editor, a.node(mask), b);
+      } else {
+        result = null;
+      }
+
+      // b contains a
+    } else if (a.offset < b.offset) {
+      int mask = b.mask(a.prefix);
+      if (b.isEntry(mask)) {
+        long key = b.key(mask);
+        result = a.contains(key)
+            ? new Node(editor, a.prefix, a.offset).putEntry(a.mask(key), key, a.get(key, 0))
+            : null;
+      } else if (b.isNode(mask)) {
+        result = intersection(editor, a, b.node(mask));
+      } else {
+        result = null;
+      }
+
+      // a and b are siblings
+    } else {
+      result = new Node(editor, a.prefix, a.offset);
+
+      int bits = (a.datamap | a.nodemap) & (b.datamap | b.nodemap);
+      while (bits != 0) {
+        int mask = bits & -bits;
+        bits &= ~mask;
+
+        int state = mergeState(mask, a.nodemap, a.datamap, b.nodemap, b.datamap);
+        switch (state) {
+          case ENTRY_ENTRY:
+            if (a.key(mask) == b.key(mask)) {
+              result = transferEntry(mask, a, result);
+            }
+            break;
+          case NODE_NODE:
+            Node n = intersection(editor, a.node(mask), b.node(mask));
+            if (n != null) {
+              result = result.putNode(mask, n);
+            }
+            break;
+          case NODE_ENTRY:
+            long key = b.key(mask);
+            Node child = a.node(mask);
+            if (child.contains(key)) {
+              result = result.putEntry(mask, key, child.get(key, 0));
+            }
+            break;
+          case ENTRY_NODE:
+            if (b.contains(a.key(mask))) {
+              result = transferEntry(mask, a, result);
+            }
+            break;
+          default:
+            throw new IllegalStateException();
+        }
+      }
+    }
+
+    return (result == null || result.size() == 0) ? null : result.collapse();
+  }
+
+  /**
+   * Treating the values as the raw bits of {@code double}s, returns the sum of the products of the values for every
+   * key shared by {@code a} and {@code b}.  This walks both trees in lockstep, in the same manner as
+   * {@link #intersection(Object, Node, Node)}, so subtrees whose key ranges don't overlap are never visited.
+   */
+  public static double dot(Node a, Node b) {
+
+    if (a.size() == 0 || b.size() == 0) {
+      return 0;
+    }
+
+    int offsetPrime = offset(a.prefix, b.prefix);
+
+    // don't overlap, share a common parent
+    if (offsetPrime > a.offset && offsetPrime > b.offset) {
+      return 0;
+    }
+
+    // a contains b
+    if (a.offset > b.offset) {
+      int mask = a.mask(b.prefix);
+      if (a.isEntry(mask)) {
+        int idx = a.entryIndex(mask);
+        return product(a.values[idx], b, a.keys[idx]);
+      } else if (a.isNode(mask)) {
+        return dot(a.node(mask), b);
+      } else {
+        return 0;
+      }
+
+      // b contains a
+    } else if (a.offset < b.offset) {
+      return dot(b, a);
+
+      // a and b are siblings
+    } else {
+      double sum = 0;
+
+      int bits = (a.datamap | a.nodemap) & (b.datamap | b.nodemap);
+      while (bits != 0) {
+        int mask = bits & -bits;
+        bits &= ~mask;
+
+        int state = mergeState(mask, a.nodemap, a.datamap, b.nodemap, b.datamap);
+        int idx;
+        switch (state) {
+          case ENTRY_ENTRY:
+            idx = a.entryIndex(mask);
+            sum += product(a.values[idx], b, a.keys[idx]);
+            break;
+          case NODE_NODE:
+            sum += dot(a.node(mask), b.node(mask));
+            break;
+          case NODE_ENTRY:
+            idx = b.entryIndex(mask);
+            sum += product(b.values[idx], a.node(mask), b.keys[idx]);
+            break;
+          case ENTRY_NODE:
+            idx = a.entryIndex(mask);
+            sum += product(a.values[idx], b.node(mask), a.keys[idx]);
+            break;
+          default:
+            throw new IllegalStateException();
+        }
+      }
+
+      return sum;
+    }
+  }
+
+  private static double product(long value, Node n, long key) {
+    // the default is the bits for 0.0
+    return longBitsToDouble(value) * longBitsToDouble(n.get(key, 0));
+  }
+
+  private static Node transferNode(int mask, Node src, Node dst) {
+    return dst.putNode(mask, src.node(mask));
+  }
+
+  private static Node transferEntry(int mask, Node src, Node dst) {
+    int idx = src.entryIndex(mask);
+    return dst.putEntry(mask, src.keys[idx], src.values[idx]);
+  }
+}
@@ -2,21 +2,20 @@ package io.lacuna.bifurcan.nodes;
 
 import io.lacuna.bifurcan.IEntry;
 import io.lacuna.bifurcan.IList;
-import io.lacuna.bifurcan.LinearList;
+import io.lacuna.bifurcan.IntMap;
 import io.lacuna.bifurcan.Maps;
-import io.lacuna.bifurcan.utils.Bits;
 import io.lacuna.bifurcan.utils.Iterators;
 
 import java.util.Iterator;
-import java.util.OptionalLong;
+import java.util.NoSuchElementException;
 import java.util.PrimitiveIterator;
+import java.util.Spliterator;
 import java.util.function.BiFunction;
 import java.util.function.BiPredicate;
 import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
 
 import static io.lacuna.bifurcan.nodes.Util.*;
-import static io.lacuna.bifurcan.utils.Bits.bitOffset;
-import static io.lacuna.bifurcan.utils.Bits.highestBit;
 import static java.lang.Integer.bitCount;
 import static java.lang.System.arraycopy;
 
@@ -25,34 +24,21 @@ import static java.lang.System.arraycopy;
  */
 public class IntMapNodes {
 
-  public static class Node<V> {
+  public static class Node<V> extends IntTrieNode<Node<V>> {
 
     public final static Node POS_EMPTY = new Node(new Object(), 0, 0);
     public final static Node NEG_EMPTY = new Node(new Object(), -1, 0);
 
-    public final Object editor;
-    public final long prefix;
-    public final int offset;
-
-    public int datamap;
-    public int nodemap;
-    public long size;
-
-    public long[] keys;
     public Object[] content;
 
     // constructors
 
     private Node(Object editor, long prefix, int offset, boolean empty) {
-      this.editor = editor;
-      this.prefix = prefix;
-      this.offset = offset;
+      super(editor, prefix, offset);
     }
 
     public Node(Object editor, long prefix, int offset) {
-      this.editor = editor;
-      this.prefix = prefix;
-      this.offset = offset;
+      super(editor, prefix, offset);
       this.keys = new long[2];
       this.content = new Object[2];
     }
@@ -75,114 +61,13 @@ public class IntMapNodes {
     }
 
     public IEntry<Long, V> nth(long idx) {
-      PrimitiveIterator.OfInt masks = masks();
-      while (masks.hasNext()) {
-        int mask = masks.nextInt();
-        if (isEntry(mask)) {
-          if (idx-- == 0) {
-            int entryIdx = entryIndex(mask);
-            return IEntry.of(keys[entryIdx], (V) content[entryIdx]);
-          }
-
-        } else if (isNode(mask)) {
-          Node<V> node = node(mask);
-          if (idx < node.size()) {
-            return node.nth(idx);
-          } else {
-            idx -= node.size();
-          }
-        }
-      }
-
-      throw new IndexOutOfBoundsException();
-    }
-
-    public OptionalLong indexOf(long key) {
-      Node<V> n = this;
-      long idx = 0;
-
-      for (; ; ) {
-        int mask = n.mask(key);
-        if (n.isEntry(mask) || n.isNode(mask)) {
-          PrimitiveIterator.OfInt masks = n.masks();
-          while (masks.hasNext()) {
-            int m = masks.next();
-            if (mask == m) {
-              if (n.isEntry(mask)) {
-                return OptionalLong.of(idx);
-              } else {
-                n = n.node(mask);
-                break;
-              }
-            } else {
-              idx += n.isEntry(m) ? 1 : n.node(m).size();
-            }
-          }
-        } else {
-          return OptionalLong.empty();
-        }
-      }
+      Slot<Node<V>> slot = slot(idx);
+      return IEntry.of(slot.node.keys[slot.idx], (V) slot.node.content[slot.idx]);
     }
 
-    public long floorIndex(long key, long offset) {
-
-      if (min() > key) {
-        return -1;
-
-      } else {
-        offset += size;
-        PrimitiveIterator.OfInt masks = reverseMasks();
-        while (masks.hasNext()) {
-          int mask = masks.next();
-          if (isEntry(mask)) {
-            offset--;
-            int idx = entryIndex(mask);
-            if (keys[idx] <= key) {
-              return offset;
-            }
-          } else if (isNode(mask)) {
-            Node<V> n = node(mask);
-            offset -= n.size;
-            long idx = n.floorIndex(key, offset);
-            if (idx >= 0) {
-              return idx;
-            }
-          }
-        }
-      }
-
-      return -1;
-    }
-
-    public long ceilIndex(long key, long offset) {
-
-      if (max() < key) {
-        return -1;
-
-      } else {
-        PrimitiveIterator.OfInt masks = masks();
-        while (masks.hasNext()) {
-          int mask = masks.next();
-          if (isEntry(mask)) {
-            int idx = entryIndex(mask);
-            if (keys[idx] >= key) {
-              return offset;
-            }
-            offset++;
-
-          } else if (isNode(mask)) {
-            Node<V> n = node(mask);
-            long idx = n.ceilIndex(key, offset);
-            if (idx >= 0) {
-              return idx;
-            }
-            offset += n.size;
-
-          }
-        }
-      }
-
-      return -1;
+    public V nthValue(long idx) {
+      Slot<Node<V>> slot = slot(idx);
+      return (V) slot.node.content[slot.idx];
     }
 
     // update
@@ -252,116 +137,24 @@ public class IntMapNodes {
       }
     }
 
-    public Node<V> remove(Object editor, long k) {
-      int mask = mask(k);
-      if ((mask & (nodemap | datamap)) == 0) {
-        return this;
-      } else if (editor != this.editor) {
-        return clone(editor).remove(editor, k);
-      }
-
-      Node<V> result = null;
-
-      if (isEntry(mask)) {
-        int idx = entryIndex(mask);
-        result = keys[idx] == k ? removeEntry(mask) : this;
-      } else if (isNode(mask)) {
-        Node<V> n = node(mask);
-        long prevSize = n.size();
-        boolean isLinear = n.editor == editor;
-        Node<V> nPrime = n.remove(editor, k);
-        if (isLinear) {
-          size -= prevSize - nPrime.size();
-        }
+    // iteration
 
-        if (nPrime.size == 0) {
-          result = removeNode(mask);
-        } else if (nPrime.size == 1) {
-          result = removeNode(mask).putEntry(mask, nPrime.keys[0], (V) nPrime.content[0]);
+    public void forEach(IntMap.LongObjConsumer<V> f) {
+      int bits = nodemap | datamap;
+      while (bits != 0) {
+        int mask = bits & -bits;
+        bits &= ~mask;
+        if (isEntry(mask)) {
+          int idx = entryIndex(mask);
+          f.accept(keys[idx], (V) content[idx]);
         } else {
-          result = setNode(mask, nPrime);
+          node(mask).forEach(f);
         }
       }
-
-      return result.collapse();
-    }
-
-
-    // iteration
-
-    private PrimitiveIterator.OfInt masks() {
-      return Util.masks(nodemap | datamap);
-    }
-
-    private PrimitiveIterator.OfInt reverseMasks() {
-      return Util.reverseMasks(nodemap | datamap);
     }
 
     public Iterator<IEntry<Long, V>> iterator() {
-
-      if (size() == 0) {
-        return Iterators.EMPTY;
-      }
-
-      return new Iterator<IEntry<Long, V>>() {
-
-        final Node<V>[] stack = new Node[16];
-        final byte[] cursors = new byte[32];
-        int depth = 0;
-
-        {
-          stack[0] = Node.this;
-          int bits = Node.this.nodemap | Node.this.datamap;
-          cursors[0] = (byte) Util.startIndex(bits);
-          cursors[1] = (byte) Util.endIndex(bits);
-          nextValue();
-        }
-
-        private void nextValue() {
-          while (depth >= 0) {
-            int pos = depth << 1;
-            int idx = cursors[pos];
-            int limit = cursors[pos + 1];
-
-            if (idx <= limit) {
-              Node<V> curr = stack[depth];
-              int mask = 1 << idx;
-
-              if (curr.isEntry(mask)) {
-                return;
-              } else if (curr.isNode(mask)) {
-                Node<V> next = curr.node(mask);
-                stack[++depth] = next;
-                int bits = next.nodemap | next.datamap;
-                cursors[pos + 2] = (byte) Util.startIndex(bits);
-                cursors[pos + 3] = (byte) Util.endIndex(bits);
-                cursors[pos]++;
-              } else {
-                cursors[pos]++;
-              }
-            } else {
-              depth--;
-            }
-          }
-        }
-
-        @Override
-        public boolean hasNext() {
-          return depth >= 0;
-        }
-
-        @Override
-        public IEntry<Long, V> next() {
-          Node<V> n = stack[depth];
-          int mask = 1 << cursors[depth << 1];
-          int idx = n.entryIndex(mask);
-          IEntry<Long, V> e = IEntry.of(n.keys[idx], (V) n.content[idx]);
-
-          cursors[depth << 1]++;
-          nextValue();
-          return e;
-        }
-      };
+      return IntMapNodes.iterator(this, 0, false);
     }
 
     // set operations
@@ -398,10 +191,6 @@ public class IntMapNodes {
 
     // misc
 
-    public long size() {
-      return size;
-    }
-
     public boolean equals(Node<V> n, BiPredicate<V, V> equalsFn) {
 
       if (n == this) {
@@ -432,55 +221,13 @@ public class IntMapNodes {
 
     /// private
 
-    private int mask(long key) {
-      return 1 << ((key & (0xFL << offset)) >>> offset);
-    }
-
-    public long key(int mask) {
-      return keys[entryIndex(mask)];
-    }
-
-    private boolean isEntry(int mask) {
-      return (datamap & mask) != 0;
-    }
-
-    public boolean isNode(int mask) {
-      return (nodemap & mask) != 0;
-    }
-
-    private int entryIndex(int mask) {
-      return compressedIndex(datamap, mask);
-    }
-
-    private int nodeIndex(int mask) {
-      return compressedIndex(nodemap, mask);
-    }
-
-    private long min() {
-      long mask = prefix;
-      mask &= ~(offset == 60 ? -1 : ((1L << (offset + 4)) - 1));
-      mask |= prefix & ~Long.MAX_VALUE;
-
-      return mask;
-    }
-
-    private long max() {
-      long mask = prefix;
-      mask |= offset == 60 ? (prefix < 0 ? -1 : Long.MAX_VALUE) : ((1L << (offset + 4)) - 1);
-      mask |= prefix & ~Long.MAX_VALUE;
-
-      return mask;
-    }
-
-    private boolean overlap(long min, long max) {
-      return IntMapNodes.overlap(min, max, min(), max());
-    }
-
+    @Override
     public Node<V> node(int mask) {
       return (Node<V>) content[content.length - 1 - nodeIndex(mask)];
     }
 
-    private Node<V> clone(Object editor) {
+    @Override
+    Node<V> clone(Object editor) {
       Node<V> n = new Node<V>(editor, prefix, offset, false);
       n.datamap = datamap;
       n.nodemap = nodemap;
@@ -509,16 +256,14 @@ public class IntMapNodes {
       this.content = c;
     }
 
-    private Node<V> collapse() {
-      if (datamap == 0 && nodemap > 0 && Bits.isPowerOfTwo(nodemap)) {
-        return node(nodemap);
-      } else if (size() == 1) {
-        long key = keys[0];
-        Node<V> n = new Node<V>(editor, key, 0);
-        return n.putEntry(n.mask(key), key, (V) content[0]);
-      } else {
-        return this;
-      }
+    @Override
+    Node<V> create(Object editor, long prefix, int offset) {
+      return new Node<V>(editor, prefix, offset);
+    }
+
+    @Override
+    Node<V> copyEntry(int mask, Node<V> src, int idx) {
+      return putEntry(mask, src.keys[idx], (V) src.content[idx]);
     }
 
     Node<V> putEntry(int mask, long key, V value) {
@@ -545,6 +290,7 @@ public class IntMapNodes {
       return this;
     }
 
+    @Override
     Node<V> removeEntry(final int mask) {
 
       assert (mask & datamap) > 0;
@@ -566,6 +312,7 @@ public class IntMapNodes {
       return this;
     }
 
+    @Override
     Node<V> setNode(int mask, Node<V> node) {
 
       assert (nodemap & mask) > 0;
@@ -577,6 +324,7 @@ public class IntMapNodes {
       return this;
     }
 
+    @Override
     Node<V> putNode(final int mask, Node<V> node) {
 
       assert ((nodemap | datamap) & mask) == 0;
@@ -604,6 +352,7 @@ public class IntMapNodes {
       return this;
     }
 
+    @Override
     Node<V> removeNode(final int mask) {
       // shrink?
 
@@ -621,47 +370,132 @@ public class IntMapNodes {
   }
 
   public static int offset(long a, long b) {
-    return bitOffset(highestBit(a ^ b)) & ~0x3;
+    return IntTrieNode.offset(a, b);
   }
 
-  private static boolean overlap(long min0, long max0, long min1, long max1) {
-    return (max1 - min0) >= 0 && (max0 - min1) >= 0;
+  public static <V> IList<Node<V>> split(Object editor, Node<V> node, long targetSize) {
+    return IntTrieNode.split(editor, node, targetSize);
   }
 
-  public static <V> IList<Node<V>> split(Object editor, Node<V> node, long targetSize) {
-    IList<Node<V>> result = new LinearList<>();
-    if ((node.size() >> 1) < targetSize) {
-      result.addLast(node);
-    } else {
-      Node<V> acc = new Node<>(editor, node.prefix, node.offset);
+  /**
+   * A cursor over the entries in one or more nodes, which exposes each key and value without allocating an entry.
+   */
+  public static class Cursor<V> extends IntTrieNode.Cursor<Node<V>> {
 
-      PrimitiveIterator.OfInt masks = Util.masks(node.datamap | node.nodemap);
-      while (masks.hasNext()) {
-        int mask = masks.nextInt();
+    public Cursor(Node<V> a, Node<V> b) {
+      super(a, b);
+    }
 
-        if (acc.size() >= targetSize) {
-          result.addLast(acc);
-          acc = new Node<>(editor, node.prefix, node.offset);
-        }
+    /**
+     * @return the value of the current entry
+     * @throws NoSuchElementException if {@link #advance()} hasn't returned true
+     */
+    public V value() {
+      return (V) node().content[entryIndex()];
+    }
+  }
 
-        if (node.isEntry(mask)) {
-          acc = transferEntry(mask, node, acc);
-        } else if (node.isNode(mask)) {
-          Node<V> child = node.node(mask);
-          if (child.size() >= (targetSize << 1)) {
-            split(editor, child, targetSize).forEach(result::addLast);
-          } else {
-            acc = acc.putNode(mask, child);
-          }
+  /**
+   * @param reverse if true, the entries are returned in descending order, from {@code startIndex} down to the first
+   *                entry
+   * @return an iterator over the entries from {@code startIndex} onwards, which descends directly to that entry
+   */
+  public static <V> Iterator<IEntry<Long, V>> iterator(Node<V> root, long startIndex, boolean reverse) {
+
+    if (startIndex < 0 || startIndex >= root.size()) {
+      return Iterators.EMPTY;
+    }
+
+    IntTrieNode.Path<Node<V>> path = new IntTrieNode.Path<>(root, startIndex, reverse);
+    return new Iterator<IEntry<Long, V>>() {
+
+      @Override
+      public boolean hasNext() {
+        return path.hasNext();
+      }
+
+      @Override
+      public IEntry<Long, V> next() {
+        if (!path.hasNext()) {
+          throw new NoSuchElementException();
         }
+
+        Node<V> n = path.node();
+        int idx = path.entryIndex();
+        IEntry<Long, V> e = IEntry.of(n.keys[idx], (V) n.content[idx]);
+
+        path.advance();
+        return e;
       }
+    };
+  }
+
+  /**
+   * @return a spliterator over the entries in {@code neg} and then {@code pos}, with each key and value transformed by
+   * {@code f}
+   */
+  public static <V, T> Spliterator<T> spliterator(
+      Node<V> neg,
+      Node<V> pos,
+      BiFunction<Long, V, T> f,
+      int characteristics
+  ) {
+    return new EntrySpliterator<>(f, characteristics).append(neg).append(pos);
+  }
+
+  private static class EntrySpliterator<V, T> extends TreeSpliterator<T> {
 
-      if (acc.size() > 0) {
-        result.addLast(acc);
+    private final BiFunction<Long, V, T> f;
+
+    EntrySpliterator(BiFunction<Long, V, T> f, int characteristics) {
+      super(characteristics);
+      this.f = f;
+    }
+
+    @Override
+    TreeSpliterator<T> create() {
+      return new EntrySpliterator<>(f, characteristics());
+    }
+
+    @Override
+    long size(Object node) {
+      return ((Node<V>) node).size();
+    }
+
+    @Override
+    T entry(Object node, int idx) {
+      Node<V> n = (Node<V>) node;
+      return f.apply(n.keys[idx], (V) n.content[idx]);
+    }
+
+    @Override
+    void expand(Object node) {
+      Node<V> n = (Node<V>) node;
+      PrimitiveIterator.OfInt masks = n.masks();
+      while (masks.hasNext()) {
+        int mask = masks.nextInt();
+        if (n.isEntry(mask)) {
+          push(n, n.entryIndex(mask));
+        } else {
+          push(n.node(mask), SUBTREE);
+        }
       }
     }
 
-    return result;
+    @Override
+    void forEach(Object node, Consumer<? super T> action) {
+      Node<V> n = (Node<V>) node;
+      PrimitiveIterator.OfInt masks = n.masks();
+      while (masks.hasNext()) {
+        int mask = masks.nextInt();
+        if (n.isEntry(mask)) {
+          int idx = n.entryIndex(mask);
+          action.accept(f.apply(n.keys[idx], (V) n.content[idx]));
+        } else {
+          forEach(n.node(mask), action);
+        }
+      }
+    }
   }
 
   public static <V> Node<V> merge(Object editor, Node<V> a, Node<V> b, BinaryOperator<V> mergeFn) {
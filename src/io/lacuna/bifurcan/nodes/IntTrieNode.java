@@ -0,0 +1,554 @@
+package io.lacuna.bifurcan.nodes;
+
+import io.lacuna.bifurcan.IList;
+import io.lacuna.bifurcan.LinearList;
+import io.lacuna.bifurcan.utils.Bits;
+
+import java.util.NoSuchElementException;
+import java.util.OptionalLong;
+import java.util.PrimitiveIterator;
+
+import static io.lacuna.bifurcan.nodes.Util.compressedIndex;
+import static io.lacuna.bifurcan.utils.Bits.bitOffset;
+import static io.lacuna.bifurcan.utils.Bits.highestBit;
+
+/**
+ * The parts of {@link IntMapNodes.Node} and {@link IntLongMapNodes.Node} which don't depend on how values are stored:
+ * a 16-way trie over the bits of a {@code long} key, where each node has a bitmap of its entries and of its children,
+ * and the keys of its entries in a parallel array.  Subclasses are responsible for storing the values and children.
+ *
+ * @author ztellman
+ */
+abstract class IntTrieNode<N extends IntTrieNode<N>> {
+
+  public final Object editor;
+  public final long prefix;
+  public final int offset;
+
+  public int datamap;
+  public int nodemap;
+  public long size;
+
+  public long[] keys;
+
+  IntTrieNode(Object editor, long prefix, int offset) {
+    this.editor = editor;
+    this.prefix = prefix;
+    this.offset = offset;
+  }
+
+  /**
+   * @return an empty node of the same type
+   */
+  abstract N create(Object editor, long prefix, int offset);
+
+  abstract N clone(Object editor);
+
+  abstract N node(int mask);
+
+  /**
+   * Adds the {@code idx}-th entry of {@code src} to this node, under {@code mask}.
+   */
+  abstract N copyEntry(int mask, N src, int idx);
+
+  abstract N removeEntry(int mask);
+
+  abstract N setNode(int mask, N node);
+
+  abstract N putNode(int mask, N node);
+
+  abstract N removeNode(int mask);
+
+  // lookup
+
+  public boolean contains(long k) {
+    IntTrieNode<N> n = this;
+    for (; ; ) {
+      int mask = n.mask(k);
+      if (n.isEntry(mask)) {
+        return n.key(mask) == k;
+      } else if (n.isNode(mask)) {
+        n = n.node(mask);
+      } else {
+        return false;
+      }
+    }
+  }
+
+  public long nthKey(long idx) {
+    Slot<N> slot = slot(idx);
+    return slot.node.keys[slot.idx];
+  }
+
+  public OptionalLong indexOf(long key) {
+    IntTrieNode<N> n = this;
+    long idx = 0;
+
+    for (; ; ) {
+      int mask = n.mask(key);
+      if (n.isEntry(mask)) {
+        return n.key(mask) == key ? OptionalLong.of(idx + n.offsetOf(mask)) : OptionalLong.empty();
+      } else if (n.isNode(mask)) {
+        idx += n.offsetOf(mask);
+        n = n.node(mask);
+      } else {
+        return OptionalLong.empty();
+      }
+    }
+  }
+
+  public long floorIndex(long key, long offset) {
+
+    if (min() > key) {
+      return -1;
+
+    } else {
+      offset += size;
+      PrimitiveIterator.OfInt masks = reverseMasks();
+      while (masks.hasNext()) {
+        int mask = masks.nextInt();
+        if (isEntry(mask)) {
+          offset--;
+          if (key(mask) <= key) {
+            return offset;
+          }
+        } else if (isNode(mask)) {
+          N n = node(mask);
+          offset -= n.size;
+          long idx = n.floorIndex(key, offset);
+          if (idx >= 0) {
+            return idx;
+          }
+        }
+      }
+    }
+
+    return -1;
+  }
+
+  public long ceilIndex(long key, long offset) {
+
+    if (max() < key) {
+      return -1;
+
+    } else {
+      PrimitiveIterator.OfInt masks = masks();
+      while (masks.hasNext()) {
+        int mask = masks.nextInt();
+        if (isEntry(mask)) {
+          if (key(mask) >= key) {
+            return offset;
+          }
+          offset++;
+
+        } else if (isNode(mask)) {
+          N n = node(mask);
+          long idx = n.ceilIndex(key, offset);
+          if (idx >= 0) {
+            return idx;
+          }
+          offset += n.size;
+        }
+      }
+    }
+
+    return -1;
+  }
+
+  // update
+
+  public N remove(Object editor, long k) {
+    int mask = mask(k);
+    if ((mask & (nodemap | datamap)) == 0) {
+      return self();
+    } else if (editor != this.editor) {
+      return clone(editor).remove(editor, k);
+    }
+
+    N result = null;
+
+    if (isEntry(mask)) {
+      result = key(mask) == k ? removeEntry(mask) : self();
+    } else if (isNode(mask)) {
+      N n = node(mask);
+      long prevSize = n.size();
+      boolean isLinear = n.editor == editor;
+      N nPrime = n.remove(editor, k);
+      if (isLinear) {
+        size -= prevSize - nPrime.size();
+      }
+
+      if (nPrime.size == 0) {
+        result = removeNode(mask);
+      } else if (nPrime.size == 1) {
+        result = removeNode(mask).copyEntry(mask, nPrime, 0);
+      } else {
+        result = setNode(mask, nPrime);
+      }
+    }
+
+    return result.collapse();
+  }
+
+  // misc
+
+  public long size() {
+    return size;
+  }
+
+  public long key(int mask) {
+    return keys[entryIndex(mask)];
+  }
+
+  public boolean isNode(int mask) {
+    return (nodemap & mask) != 0;
+  }
+
+  /// package-private
+
+  /**
+   * @return the leaf node and entry index of the {@code idx}-th entry within this node
+   */
+  Slot<N> slot(long idx) {
+    IntTrieNode<N> n = this;
+    PrimitiveIterator.OfInt masks = n.masks();
+    while (masks.hasNext()) {
+      int mask = masks.nextInt();
+      if (n.isEntry(mask)) {
+        if (idx-- == 0) {
+          return new Slot<>(n.self(), n.entryIndex(mask));
+        }
+
+      } else if (n.isNode(mask)) {
+        N child = n.node(mask);
+        if (idx < child.size()) {
+          n = child;
+          masks = n.masks();
+        } else {
+          idx -= child.size();
+        }
+      }
+    }
+
+    throw new IndexOutOfBoundsException();
+  }
+
+  PrimitiveIterator.OfInt masks() {
+    return Util.masks(nodemap | datamap);
+  }
+
+  PrimitiveIterator.OfInt reverseMasks() {
+    return Util.reverseMasks(nodemap | datamap);
+  }
+
+  int mask(long key) {
+    return 1 << ((key & (0xFL << offset)) >>> offset);
+  }
+
+  boolean isEntry(int mask) {
+    return (datamap & mask) != 0;
+  }
+
+  int entryIndex(int mask) {
+    return compressedIndex(datamap, mask);
+  }
+
+  int nodeIndex(int mask) {
+    return compressedIndex(nodemap, mask);
+  }
+
+  long min() {
+    long mask = prefix;
+    mask &= ~(offset == 60 ? -1 : ((1L << (offset + 4)) - 1));
+    mask |= prefix & ~Long.MAX_VALUE;
+
+    return mask;
+  }
+
+  long max() {
+    long mask = prefix;
+    mask |= offset == 60 ? (prefix < 0 ? -1 : Long.MAX_VALUE) : ((1L << (offset + 4)) - 1);
+    mask |= prefix & ~Long.MAX_VALUE;
+
+    return mask;
+  }
+
+  boolean overlap(long min, long max) {
+    return overlap(min, max, min(), max());
+  }
+
+  N collapse() {
+    if (datamap == 0 && nodemap > 0 && Bits.isPowerOfTwo(nodemap)) {
+      return node(nodemap);
+    } else if (size() == 1) {
+      N n = create(editor, keys[0], 0);
+      return n.copyEntry(n.mask(keys[0]), self(), 0);
+    } else {
+      return self();
+    }
+  }
+
+  /// private
+
+  private N self() {
+    return (N) this;
+  }
+
+  /**
+   * @return the number of entries within this node which precede those under {@code mask}
+   */
+  private long offsetOf(int mask) {
+    long offset = entryIndex(mask);
+    PrimitiveIterator.OfInt masks = Util.masks(nodemap & (mask - 1));
+    while (masks.hasNext()) {
+      offset += node(masks.nextInt()).size;
+    }
+    return offset;
+  }
+
+  static int offset(long a, long b) {
+    return bitOffset(highestBit(a ^ b)) & ~0x3;
+  }
+
+  private static boolean overlap(long min0, long max0, long min1, long max1) {
+    return (max1 - min0) >= 0 && (max0 - min1) >= 0;
+  }
+
+  static <N extends IntTrieNode<N>> IList<N> split(Object editor, N node, long targetSize) {
+    IList<N> result = new LinearList<>();
+    if ((node.size() >> 1) < targetSize) {
+      result.addLast(node);
+    } else {
+      N acc = node.create(editor, node.prefix, node.offset);
+
+      PrimitiveIterator.OfInt masks = node.masks();
+      while (masks.hasNext()) {
+        int mask = masks.nextInt();
+
+        if (acc.size() >= targetSize) {
+          result.addLast(acc);
+          acc = node.create(editor, node.prefix, node.offset);
+        }
+
+        if (node.isEntry(mask)) {
+          acc = acc.copyEntry(mask, node, node.entryIndex(mask));
+        } else if (node.isNode(mask)) {
+          N child = node.node(mask);
+          if (child.size() >= (targetSize << 1)) {
+            split(editor, child, targetSize).forEach(result::addLast);
+          } else {
+            acc = acc.putNode(mask, child);
+          }
+        }
+      }
+
+      if (acc.size() > 0) {
+        result.addLast(acc);
+      }
+    }
+
+    return result;
+  }
+
+  static class Slot<N> {
+    final N node;
+    final int idx;
+
+    Slot(N node, int idx) {
+      this.node = node;
+      this.idx = idx;
+    }
+  }
+
+  /**
+   * A stack of nodes, and the position within each, which walks the entries of a tree in either direction.
+   */
+  static class Path<N extends IntTrieNode<N>> {
+
+    private final IntTrieNode[] stack = new IntTrieNode[16];
+    private final byte[] cursors = new byte[32];
+    private final boolean reverse;
+    private final int step;
+    private int depth = 0;
+
+    /**
+     * Descends directly to the entry at {@code startIndex}, which must be within {@code [0, root.size())}.
+     */
+    Path(N root, long startIndex, boolean reverse) {
+      this.reverse = reverse;
+      this.step = reverse ? -1 : 1;
+
+      N n = root;
+      long idx = startIndex;
+      for (; ; ) {
+        stack[depth] = n;
+        int pos = depth << 1;
+        cursors[pos + 1] = (byte) limit(n);
+
+        // find the branch which contains the entry at idx
+        PrimitiveIterator.OfInt masks = n.masks();
+        int mask = masks.nextInt();
+        for (; ; ) {
+          long size = n.isEntry(mask) ? 1 : n.node(mask).size();
+          if (idx < size) {
+            break;
+          }
+          idx -= size;
+          mask = masks.nextInt();
+        }
+
+        cursors[pos] = (byte) bitOffset(mask);
+        if (n.isEntry(mask)) {
+          break;
+        }
+        cursors[pos] += step;
+        n = n.node(mask);
+        depth++;
+      }
+    }
+
+    private int start(IntTrieNode<N> n) {
+      int bits = n.nodemap | n.datamap;
+      return reverse ? Util.endIndex(bits) : Util.startIndex(bits);
+    }
+
+    private int limit(IntTrieNode<N> n) {
+      int bits = n.nodemap | n.datamap;
+      return reverse ? Util.startIndex(bits) : Util.endIndex(bits);
+    }
+
+    /**
+     * @return true, if the path is positioned at an entry
+     */
+    boolean hasNext() {
+      return depth >= 0;
+    }
+
+    /**
+     * @return the leaf node containing the current entry
+     */
+    N node() {
+      return (N) stack[depth];
+    }
+
+    /**
+     * @return the index of the current entry within {@link #node()}
+     */
+    int entryIndex() {
+      return stack[depth].entryIndex(1 << cursors[depth << 1]);
+    }
+
+    /**
+     * Moves to the next entry, or past the last entry if there are none remaining.
+     */
+    void advance() {
+      cursors[depth << 1] += step;
+      while (depth >= 0) {
+        int pos = depth << 1;
+        int idx = cursors[pos];
+        int limit = cursors[pos + 1];
+
+        if (reverse ? idx >= limit : idx <= limit) {
+          IntTrieNode<N> curr = stack[depth];
+          int mask = 1 << idx;
+
+          if (curr.isEntry(mask)) {
+            return;
+          } else if (curr.isNode(mask)) {
+            N next = curr.node(mask);
+            stack[++depth] = next;
+            cursors[pos + 2] = (byte) start(next);
+            cursors[pos + 3] = (byte) limit(next);
+            cursors[pos] += step;
+          } else {
+            cursors[pos] += step;
+          }
+        } else {
+          depth--;
+        }
+      }
+    }
+  }
+
+  /**
+   * A cursor over the entries in two nodes, which exposes each key without allocating an entry.  Subclasses expose
+   * the values.
+   */
+  abstract static class Cursor<N extends IntTrieNode<N>> {
+
+    private Path<N> path;
+    private N pending;
+    private long remaining;
+
+    private N node;
+    private int entryIdx;
+
+    Cursor(N a, N b) {
+      this.remaining = a.size() + b.size();
+      if (a.size() > 0) {
+        this.path = new Path<>(a, 0, false);
+        this.pending = b;
+      } else if (b.size() > 0) {
+        this.path = new Path<>(b, 0, false);
+      }
+    }
+
+    /**
+     * @return true, if there are entries that haven't been visited
+     */
+    public boolean hasNext() {
+      return remaining > 0;
+    }
+
+    /**
+     * Moves to the next entry, which can then be read via {@link #key()}.
+     *
+     * @return false, if there are no remaining entries
+     */
+    public boolean advance() {
+      if (remaining == 0) {
+        node = null;
+        return false;
+      }
+
+      if (node != null) {
+        path.advance();
+      }
+      if (!path.hasNext()) {
+        path = new Path<>(pending, 0, false);
+        pending = null;
+      }
+
+      node = path.node();
+      entryIdx = path.entryIndex();
+      remaining--;
+      return true;
+    }
+
+    /**
+     * @return the key of the current entry
+     * @throws NoSuchElementException if {@link #advance()} hasn't returned true
+     */
+    public long key() {
+      return node().keys[entryIdx];
+    }
+
+    /**
+     * @return the node containing the current entry
+     * @throws NoSuchElementException if {@link #advance()} hasn't returned true
+     */
+    N node() {
+      if (node == null) {
+        throw new NoSuchElementException();
+      }
+      return node;
+    }
+
+    /**
+     * @return the index of the current entry within {@link #node()}
+     */
+    int entryIndex() {
+      return entryIdx;
+    }
+  }
+}
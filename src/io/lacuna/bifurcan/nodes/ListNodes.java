@@ -1,7 +1,14 @@
 package io.lacuna.bifurcan.nodes;
 
+import io.lacuna.bifurcan.Summary;
 import io.lacuna.bifurcan.utils.Bits;
 
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
 import static java.lang.System.arraycopy;
 
 /**
@@ -14,15 +21,22 @@ public class ListNodes {
   private static final int BRANCH_MASK = MAX_BRANCHES - 1;
 
   public static Object slice(Object node, Object editor, long start, long end) {
-    if (node instanceof Object[]) {
-      Object[] ary = new Object[(int) (end - start)];
-      arraycopy(node, (int) start, ary, 0, ary.length);
-      return ary;
-    } else {
+    if (node instanceof Node) {
       return ((Node) node).slice(start, end, editor);
+    } else {
+      Object ary = node instanceof long[] ? new long[(int) (end - start)] : new Object[(int) (end - start)];
+      arraycopy(node, (int) start, ary, 0, (int) (end - start));
+      return ary;
     }
   }
 
+  /**
+   * @return the number of elements in {@code chunk}, which is either an {@code Object[]} or a {@code long[]}
+   */
+  public static int chunkSize(Object chunk) {
+    return chunk instanceof Object[] ? ((Object[]) chunk).length : ((long[]) chunk).length;
+  }
+
   public static Object[] set(Object[] elements, int idx, Object value) {
     Object[] ary = elements.clone();
     ary[idx] = value;
@@ -33,7 +47,85 @@ public class ListNodes {
     if (b instanceof Node) {
       return a.pushLast((Node) b, editor);
     } else {
-      return a.pushLast((Object[]) b, editor);
+      return a.pushLast((Object) b, editor);
+    }
+  }
+
+  /**
+   * @param cache if true, the summary of each node will be cached, which is only safe if none of them will be updated
+   *              in-place
+   * @return the combined summary of every element in {@code node}
+   */
+  public static <V, S> S summarize(Node node, Summary<V, S> summary, boolean cache) {
+    Annotation annotation = node.annotation;
+    if (annotation != null && annotation.summary == summary) {
+      return (S) annotation.value;
+    }
+
+    S acc = summary.identity;
+    for (int i = 0; i < node.numNodes; i++) {
+      acc = summary.combine(acc, summarize(node.nodes[i], summary, cache));
+    }
+
+    if (cache) {
+      node.annotation = new Annotation(summary, acc);
+    }
+    return acc;
+  }
+
+  /**
+   * @return the combined summary of the elements within {@code [start, end)}
+   */
+  public static <V, S> S summarize(Object[] elements, int start, int end, Summary<V, S> summary) {
+    S acc = summary.identity;
+    for (int i = start; i < end; i++) {
+      acc = summary.combine(acc, summary.measure((V) elements[i]));
+    }
+    return acc;
+  }
+
+  /**
+   * @param acc       the combined summary of every element preceding {@code node}
+   * @param predicate a predicate which is false for the summaries of every prefix shorter than some length, and true
+   *                  for the rest
+   * @return the index of the first element within {@code node} whose prefix, including itself, has a summary which
+   * satisfies {@code predicate}, or {@code -1} if there is no such element
+   */
+  public static <V, S> long seek(Node node, Summary<V, S> summary, Predicate<S> predicate, S acc, boolean cache) {
+    long offset = 0;
+    Node n = node;
+    for (int i = 0; i < n.numNodes; i++) {
+      Object child = n.nodes[i];
+      S next = summary.combine(acc, summarize(child, summary, cache));
+      if (!predicate.test(next)) {
+        acc = next;
+        continue;
+      }
+
+      offset += n.offset(i);
+      if (child instanceof Node) {
+        n = (Node) child;
+        i = -1;
+      } else {
+        Object[] elements = (Object[]) child;
+        for (int j = 0; j < elements.length; j++) {
+          acc = summary.combine(acc, summary.measure((V) elements[j]));
+          if (predicate.test(acc)) {
+            return offset + j;
+          }
+        }
+        return -1;
+      }
+    }
+    return -1;
+  }
+
+  private static <V, S> S summarize(Object node, Summary<V, S> summary, boolean cache) {
+    if (node instanceof Node) {
+      return summarize((Node) node, summary, cache);
+    } else {
+      Object[] elements = (Object[]) node;
+      return summarize(elements, 0, elements.length, summary);
     }
   }
 
@@ -48,6 +140,9 @@ public class ListNodes {
     public long[] offsets;
     public Object[] nodes;
 
+    // only set on nodes which will never again be updated in-place
+    Annotation annotation;
+
     // constructors
 
     public Node(Object editor, int shift) {
@@ -70,7 +165,7 @@ public class ListNodes {
       return new Node(editor, shift).pushLast(a, editor).pushLast(b, editor);
     }
 
-    private static Node from(Object editor, Object[] child) {
+    private static Node from(Object editor, Object child) {
       return new Node(editor, SHIFT_INCREMENT).pushLast(child, editor);
     }
 
@@ -79,7 +174,7 @@ public class ListNodes {
     public void assertInvariants() {
       if (shift == SHIFT_INCREMENT) {
         for (int i = 0; i < numNodes; i++) {
-          assert nodes[i] instanceof Object[];
+          assert !(nodes[i] instanceof Node);
         }
       } else {
         for (int i = 0; i < numNodes; i++) {
@@ -131,8 +226,23 @@ public class ListNodes {
         }
       }
 
-      Object[] chunk = (Object[]) n.nodes[(int) ((idx >>> SHIFT_INCREMENT) & BRANCH_MASK)];
-      return returnChunk ? chunk : chunk[(int) (idx & BRANCH_MASK)];
+      Object chunk = n.nodes[(int) ((idx >>> SHIFT_INCREMENT) & BRANCH_MASK)];
+      return returnChunk ? chunk : ((Object[]) chunk)[(int) (idx & BRANCH_MASK)];
+    }
+
+    /**
+     * @return the element at {@code idx}, in a tree whose chunks are {@code long[]}
+     */
+    public long nthLong(long idx) {
+      Node n = this;
+      for (; ; ) {
+        int nodeIdx = n.indexOf(idx);
+        idx -= n.offset(nodeIdx);
+        if (n.shift == SHIFT_INCREMENT) {
+          return ((long[]) n.nodes[nodeIdx])[(int) idx];
+        }
+        n = (Node) n.nodes[nodeIdx];
+      }
     }
 
     private Object relaxedNth(long idx, boolean returnChunk) {
@@ -149,8 +259,8 @@ public class ListNodes {
       }
 
       int nodeIdx = n.indexOf(idx);
-      Object[] chunk = (Object[]) n.nodes[nodeIdx];
-      return returnChunk ? chunk : chunk[(int) (idx - n.offset(nodeIdx))];
+      Object chunk = n.nodes[nodeIdx];
+      return returnChunk ? chunk : ((Object[]) chunk)[(int) (idx - n.offset(nodeIdx))];
     }
 
     private int indexOf(long idx) {
@@ -267,7 +377,7 @@ public class ListNodes {
 
     ///
 
-    public Node pushLast(Object[] chunk, Object editor) {
+    public Node pushLast(Object chunk, Object editor) {
 
       if (size() == 0 && shift > SHIFT_INCREMENT) {
         return pushLast(from(editor, chunk), editor);
@@ -304,14 +414,14 @@ public class ListNodes {
         Node n = stack[i];
         int lastIdx = n.numNodes - 1;
         n.nodes[lastIdx] = i == stack.length - 1 ? chunk : stack[i + 1];
-        n.offsets[lastIdx] += chunk.length;
+        n.offsets[lastIdx] += chunkSize(chunk);
         n.updateStrict();
       }
 
       return stack[0];
     }
 
-    public Node pushFirst(Object[] chunk, Object editor) {
+    public Node pushFirst(Object chunk, Object editor) {
 
       if (size() == 0 && shift > SHIFT_INCREMENT) {
         return pushLast(chunk, editor);
@@ -346,11 +456,12 @@ public class ListNodes {
       parent.offsets[0] = 0;
       parent.numNodes++;
 
+      int chunkSize = chunkSize(chunk);
       for (int i = 0; i < stack.length; i++) {
         Node n = stack[i];
         n.nodes[0] = i == stack.length - 1 ? chunk : stack[i + 1];
         for (int j = 0; j < n.numNodes; j++) {
-          n.offsets[j] += chunk.length;
+          n.offsets[j] += chunkSize;
         }
         n.updateStrict();
       }
@@ -483,12 +594,12 @@ public class ListNodes {
       }
 
       Node parent = stack[stack.length - 1];
-      Object[] chunk = (Object[]) parent.nodes[0];
+      int chunkSize = chunkSize(parent.nodes[0]);
 
       for (int i = 0; i < stack.length; i++) {
         Node n = stack[i];
         for (int j = 0; j < n.numNodes; j++) {
-          n.offsets[j] -= chunk.length;
+          n.offsets[j] -= chunkSize;
         }
         n.updateStrict();
 
@@ -532,12 +643,12 @@ public class ListNodes {
       }
 
       Node parent = stack[stack.length - 1];
-      Object[] chunk = (Object[]) parent.nodes[parent.numNodes - 1];
+      int chunkSize = chunkSize(parent.nodes[parent.numNodes - 1]);
 
       for (int i = 0; i < stack.length; i++) {
         Node n = stack[i];
         int lastIdx = n.numNodes - 1;
-        n.offsets[lastIdx] -= chunk.length;
+        n.offsets[lastIdx] -= chunkSize;
 
         if (n.offset(lastIdx + 1) == n.offset(lastIdx)) {
 
@@ -592,4 +703,155 @@ public class ListNodes {
       return n;
     }
   }
+
+  /**
+   * An iterator over the leaf chunks of a tree, which keeps a cursor for each level of the tree so that moving to the
+   * next chunk is amortized constant time.
+   */
+  public static class ChunkIterator<T> implements Iterator<T> {
+
+    private final Node[] stack;
+    private final int[] cursors;
+    private T next;
+
+    /**
+     * The offset of the starting index within the first chunk.
+     */
+    public final int offset;
+
+    /**
+     * @param root the root of the tree
+     * @param idx the index of an element within the first chunk
+     */
+    public ChunkIterator(Node root, long idx) {
+      int levels = root.shift / SHIFT_INCREMENT;
+      this.stack = new Node[levels];
+      this.cursors = new int[levels];
+
+      if (idx < 0 || idx >= root.size()) {
+        this.offset = 0;
+        return;
+      }
+
+      Node n = root;
+      for (int depth = 0; ; depth++) {
+        int nodeIdx = n.indexOf(idx);
+        idx -= n.offset(nodeIdx);
+        stack[depth] = n;
+        cursors[depth] = nodeIdx;
+
+        if (n.shift == SHIFT_INCREMENT) {
+          next = (T) n.nodes[nodeIdx];
+          break;
+        }
+        n = (Node) n.nodes[nodeIdx];
+      }
+      this.offset = (int) idx;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public T next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+
+      T chunk = next;
+
+      // head up until there's a sibling to the right, and then back down its leftmost edge
+      int depth = stack.length - 1;
+      while (depth >= 0 && ++cursors[depth] >= stack[depth].numNodes) {
+        depth--;
+      }
+
+      if (depth < 0) {
+        next = null;
+      } else {
+        for (; depth < stack.length - 1; depth++) {
+          stack[depth + 1] = (Node) stack[depth].nodes[cursors[depth]];
+          cursors[depth + 1] = 0;
+        }
+        next = (T) stack[depth].nodes[cursors[depth]];
+      }
+
+      return chunk;
+    }
+  }
+
+  /**
+   * @return a spliterator over the elements of {@code prefix} from {@code prefixStart} onwards, then the elements in
+   * {@code root}, and then the first {@code suffixLen} elements of {@code suffix}
+   */
+  public static <V> Spliterator<V> spliterator(
+      Object[] prefix,
+      int prefixStart,
+      Node root,
+      Object[] suffix,
+      int suffixLen
+  ) {
+    ElementSpliterator<V> result = new ElementSpliterator<>();
+    for (int i = prefixStart; prefix != null && i < prefix.length; i++) {
+      result.append(prefix, i);
+    }
+    result.append(root);
+    for (int i = 0; i < suffixLen; i++) {
+      result.append(suffix, i);
+    }
+    return result;
+  }
+
+  private static class ElementSpliterator<V> extends TreeSpliterator<V> {
+
+    ElementSpliterator() {
+      super(Spliterator.ORDERED);
+    }
+
+    @Override
+    TreeSpliterator<V> create() {
+      return new ElementSpliterator<>();
+    }
+
+    @Override
+    long size(Object node) {
+      return node instanceof Node ? ((Node) node).size() : ((Object[]) node).length;
+    }
+
+    @Override
+    V entry(Object node, int idx) {
+      return (V) ((Object[]) node)[idx];
+    }
+
+    @Override
+    void expand(Object node) {
+      if (node instanceof Node) {
+        Node n = (Node) node;
+        for (int i = 0; i < n.numNodes; i++) {
+          push(n.nodes[i], SUBTREE);
+        }
+      } else {
+        Object[] chunk = (Object[]) node;
+        for (int i = 0; i < chunk.length; i++) {
+          push(chunk, i);
+        }
+      }
+    }
+
+    @Override
+    void forEach(Object node, Consumer<? super V> action) {
+      if (node instanceof Node) {
+        Node n = (Node) node;
+        for (int i = 0; i < n.numNodes; i++) {
+          forEach(n.nodes[i], action);
+        }
+      } else {
+        for (Object e : (Object[]) node) {
+          action.accept((V) e);
+        }
+      }
+    }
+  }
 }
@@ -8,13 +8,18 @@ import io.lacuna.bifurcan.utils.Iterators;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.BiFunction;
 import java.util.function.BiPredicate;
 import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
 
 import static io.lacuna.bifurcan.nodes.MapNodes.Node.SHIFT_INCREMENT;
 import static io.lacuna.bifurcan.nodes.Util.*;
 import static java.lang.Integer.bitCount;
+import static java.lang.Integer.numberOfTrailingZeros;
 import static java.lang.System.arraycopy;
 
 /**
@@ -22,6 +27,11 @@ import static java.lang.System.arraycopy;
  * <p>
  * It adds in support for transient/linear updates, and allows for empty buffer space between the nodes and nodes
  * to minimize allocations when a node is repeatedly updated in-place.
+ * <p>
+ * Each node caches the hashes of its entries, which are always checked before an update or removal.  Lookups, set
+ * operations, and equality checks only check the cached hashes before calling the equality predicate if
+ * {@code compareHashes} is true, since this is an extra cache miss that is only worthwhile if key equality is
+ * expensive.
  *
  * @author ztellman
  */
@@ -49,11 +59,11 @@ public class MapNodes {
 
     IEntry<K, V> nth(long idx);
 
-    long indexOf(int shift, int hash, K key, BiPredicate<K, K> equals);
+    long indexOf(int shift, int hash, K key, BiPredicate<K, K> equals, boolean compareHashes);
 
     Iterable<IEntry<K, V>> entries();
 
-    boolean equals(INode<K, V> n, BiPredicate<K, K> keyEquals, BiPredicate<V, V> valEquals);
+    boolean equals(INode<K, V> n, BiPredicate<K, K> keyEquals, BiPredicate<V, V> valEquals, boolean compareHashes);
   }
 
   public static class Node<K, V> implements INode<K, V> {
@@ -69,6 +79,9 @@ public class MapNodes {
     Object editor;
     long size;
 
+    // the cumulative sizes of the child nodes, which are lazily computed, and discarded whenever the node is modified
+    private Offsets offsets;
+
     // constructor
 
     public Node() {
@@ -83,25 +96,20 @@ public class MapNodes {
     // lookup
 
     @Override
-    public long indexOf(int shift, int hash, K key, BiPredicate<K, K> equals) {
+    public long indexOf(int shift, int hash, K key, BiPredicate<K, K> equals, boolean compareHashes) {
       int mask = hashMask(hash, shift);
       if (isEntry(mask)) {
         int idx = entryIndex(mask);
         // checking the hash only helps when equality checks are expensive and failed lookups are common
         // in the normal case, it just leads to cache misses
-        return /*hash == hashes[idx] &&*/ equals.test(key, (K) content[idx << 1]) ? idx : -1;
+        return (!compareHashes || hash == hashes[idx]) && equals.test(key, (K) content[idx << 1]) ? idx : -1;
 
       } else if (isNode(mask)) {
-        long idx = node(mask).indexOf(shift + SHIFT_INCREMENT, hash, key, equals);
+        long idx = node(mask).indexOf(shift + SHIFT_INCREMENT, hash, key, equals, compareHashes);
         if (idx == -1) {
           return -1;
         } else {
-          int nodeIdx = nodeIndex(mask);
-          idx += bitCount(datamap);
-          for (int i = 0; i < nodeIdx; i++) {
-            idx += ((INode<K, V>) content[content.length - (i + 1)]).size();
-          }
-          return idx;
+          return idx + bitCount(datamap) + offsets().offset(nodeIndex(mask));
         }
 
       } else {
@@ -122,17 +130,30 @@ public class MapNodes {
       // see if the entry is local to our children
       if (idx < size) {
         idx -= numEntries;
-        for (INode<K, V> node : nodes()) {
-          if (idx < node.size()) {
-            return node.nth(idx);
-          }
-          idx -= node.size();
-        }
+        Offsets offsets = offsets();
+        int nodeIdx = offsets.indexOf(idx);
+        INode<K, V> node = (INode<K, V>) content[content.length - 1 - nodeIdx];
+        return node.nth(idx - offsets.offset(nodeIdx));
       }
 
       throw new IndexOutOfBoundsException();
     }
 
+    private Offsets offsets() {
+      Offsets o = offsets;
+      if (o == null) {
+        int numNodes = bitCount(nodemap);
+        long[] ary = new long[numNodes];
+        long offset = 0;
+        for (int i = 0; i < numNodes; i++) {
+          offset += ((INode<K, V>) content[content.length - 1 - i]).size();
+          ary[i] = offset;
+        }
+        o = offsets = new Offsets(ary);
+      }
+      return o;
+    }
+
     @Override
     public int hash(int idx) {
       return hashes[idx];
@@ -237,6 +258,7 @@ public class MapNodes {
         currShift = shift;
         while (currNode != n) {
           currNode.size++;
+          currNode.offsets = null;
           currNode = (Node<K, V>) currNode.node(hashMask(hash, currShift));
           currShift += SHIFT_INCREMENT;
         }
@@ -405,7 +427,12 @@ public class MapNodes {
       return size;
     }
 
-    public boolean equals(INode<K, V> o, BiPredicate<K, K> keyEquals, BiPredicate<V, V> valEquals) {
+    public boolean equals(
+        INode<K, V> o,
+        BiPredicate<K, K> keyEquals,
+        BiPredicate<V, V> valEquals,
+        boolean compareHashes
+    ) {
 
       if (this == o) {
         return true;
@@ -414,6 +441,14 @@ public class MapNodes {
       if (o instanceof Node) {
         Node<K, V> n = (Node<K, V>) o;
         if (n.size == size && n.datamap == datamap && n.nodemap == nodemap) {
+          if (compareHashes) {
+            for (int i = bitCount(datamap) - 1; i >= 0; i--) {
+              if (hashes[i] != n.hashes[i]) {
+                return false;
+              }
+            }
+          }
+
           Iterator<IEntry<K, V>> ea = entries().iterator();
           Iterator<IEntry<K, V>> eb = n.entries().iterator();
           while (ea.hasNext()) {
@@ -425,7 +460,7 @@ public class MapNodes {
           Iterator<INode<K, V>> na = nodes().iterator();
           Iterator<INode<K, V>> nb = n.nodes().iterator();
           while (na.hasNext()) {
-            if (!na.next().equals(nb.next(), keyEquals, valEquals)) {
+            if (!na.next().equals(nb.next(), keyEquals, valEquals, compareHashes)) {
               return false;
             }
           }
@@ -447,6 +482,7 @@ public class MapNodes {
       node.content = content.clone();
       node.editor = editor;
       node.size = size;
+      node.offsets = offsets;
 
       return node;
     }
@@ -527,6 +563,9 @@ public class MapNodes {
     Node<K, V> setNode(int mask, INode<K, V> node, long sizeDelta) {
       content[content.length - 1 - nodeIndex(mask)] = node;
       size += sizeDelta;
+      if (sizeDelta != 0) {
+        offsets = null;
+      }
       return this;
     }
 
@@ -547,6 +586,7 @@ public class MapNodes {
         }
         nodemap |= mask;
         size += node.size();
+        offsets = null;
 
         content[content.length - 1 - idx] = node;
 
@@ -560,6 +600,7 @@ public class MapNodes {
       int idx = nodeIndex(mask);
       int numNodes = bitCount(nodemap);
       size -= nodeSize;
+      offsets = null;
       arraycopy(content, content.length - numNodes, content, content.length + 1 - numNodes, numNodes - 1 - idx);
       nodemap &= ~mask;
 
@@ -589,6 +630,35 @@ public class MapNodes {
     }
   }
 
+  private static class Offsets {
+
+    // since this is final, the offsets can be safely shared between threads without any synchronization
+    private final long[] offsets;
+
+    Offsets(long[] offsets) {
+      this.offsets = offsets;
+    }
+
+    // the index of the child node containing the entry at `idx`
+    int indexOf(long idx) {
+      int low = 0, high = offsets.length - 1;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (idx < offsets[mid]) {
+          high = mid;
+        } else {
+          low = mid + 1;
+        }
+      }
+      return low;
+    }
+
+    // the index of the first entry within the child node at `nodeIdx`
+    long offset(int nodeIdx) {
+      return nodeIdx == 0 ? 0 : offsets[nodeIdx - 1];
+    }
+  }
+
   public static class Collision<K, V> implements INode<K, V> {
 
     public final int hash;
@@ -636,7 +706,7 @@ public class MapNodes {
     }
 
     @Override
-    public long indexOf(int shift, int hash, K key, BiPredicate<K, K> equals) {
+    public long indexOf(int shift, int hash, K key, BiPredicate<K, K> equals, boolean compareHashes) {
       if (this.hash == hash) {
         for (int i = 0; i < entries.length; i += 2) {
           if (equals.test(key, (K) entries[i])) {
@@ -712,7 +782,12 @@ public class MapNodes {
     }
 
     @Override
-    public boolean equals(INode<K, V> o, BiPredicate<K, K> keyEquals, BiPredicate<V, V> valEquals) {
+    public boolean equals(
+        INode<K, V> o,
+        BiPredicate<K, K> keyEquals,
+        BiPredicate<V, V> valEquals,
+        boolean compareHashes
+    ) {
 
       if (this == o) {
         return true;
@@ -720,7 +795,7 @@ public class MapNodes {
 
       if (o instanceof Collision) {
         Collision<K, V> c = (Collision<K, V>) o;
-        if (c.size() == size()) {
+        if (c.size() == size() && c.hash == hash) {
 
           Iterator<IEntry<K, V>> it = entries().iterator();
           while (it.hasNext()) {
@@ -755,8 +830,15 @@ public class MapNodes {
     return 1 << ((hash >>> shift) & 31);
   }
 
-  public static <K, V> boolean contains(Node<K, V> node, int shift, int hash, K key, BiPredicate<K, K> equals) {
-    return get(node, shift, hash, key, equals, DEFAULT_VALUE) != DEFAULT_VALUE;
+  public static <K, V> boolean contains(
+      Node<K, V> node,
+      int shift,
+      int hash,
+      K key,
+      BiPredicate<K, K> equals,
+      boolean compareHashes
+  ) {
+    return get(node, shift, hash, key, equals, compareHashes, DEFAULT_VALUE) != DEFAULT_VALUE;
   }
 
   public static <K, V> Object get(
@@ -765,6 +847,7 @@ public class MapNodes {
       int hash,
       K key,
       BiPredicate<K, K> equals,
+      boolean compareHashes,
       Object defaultValue
   ) {
 
@@ -776,9 +859,9 @@ public class MapNodes {
 
       // there's a potential matching entry
       if (n.isEntry(mask)) {
-        int idx = n.entryIndex(mask) << 1;
-        return /*n.hashes[idx] == hash &&*/ equals.test(key, (K) n.content[idx])
-            ? n.content[idx + 1]
+        int idx = n.entryIndex(mask);
+        return (!compareHashes || n.hashes[idx] == hash) && equals.test(key, (K) n.content[idx << 1])
+            ? n.content[(idx << 1) + 1]
             : defaultValue;
 
         // we must go deeper
@@ -849,6 +932,18 @@ public class MapNodes {
       Node<K, V> b,
       BiPredicate<K, K> equals,
       BinaryOperator<V> merge
+  ) {
+    return merge(shift, editor, a, b, equals, merge, null);
+  }
+
+  private static <K, V> Node<K, V> merge(
+      int shift,
+      Object editor,
+      Node<K, V> a,
+      Node<K, V> b,
+      BiPredicate<K, K> equals,
+      BinaryOperator<V> merge,
+      ForkJoinTask<INode<K, V>>[] forked
   ) {
     Node<K, V> result = new Node<K, V>(editor);
 
@@ -880,7 +975,12 @@ public class MapNodes {
           );
           break;
         case NODE_NODE:
-          result = result.putNode(mask, mergeNodes(shift + 5, editor, a.node(mask), b.node(mask), equals, merge));
+          result = result.putNode(
+              mask,
+              forked != null && forked[numberOfTrailingZeros(mask)] != null
+                  ? forked[numberOfTrailingZeros(mask)].join()
+                  : mergeNodes(shift + 5, editor, a.node(mask), b.node(mask), equals, merge)
+          );
           break;
         case NODE_ENTRY:
           idx = b.entryIndex(mask);
@@ -915,14 +1015,15 @@ public class MapNodes {
       Object editor,
       INode<K, V> a,
       INode<K, V> b,
-      BiPredicate<K, K> equals
+      BiPredicate<K, K> equals,
+      boolean compareHashes
   ) {
     Collision<K, V> ca, cb;
     Node<K, V> na, nb;
 
     // Node / Node
     if (a instanceof Node && b instanceof Node) {
-      return difference(shift, editor, (Node<K, V>) a, (Node<K, V>) b, equals);
+      return difference(shift, editor, (Node<K, V>) a, (Node<K, V>) b, equals, compareHashes);
 
       // Node / Collision
     } else if (a instanceof Node && b instanceof Collision) {
@@ -937,7 +1038,7 @@ public class MapNodes {
       ca = (Collision<K, V>) a;
       nb = (Node<K, V>) b;
       for (IEntry<K, V> e : ca.entries()) {
-        if (get(nb, shift, ca.hash, e.key(), equals, DEFAULT_VALUE) != DEFAULT_VALUE) {
+        if (get(nb, shift, ca.hash, e.key(), equals, compareHashes, DEFAULT_VALUE) != DEFAULT_VALUE) {
           ca = (Collision<K, V>) ca.remove(shift, editor, ca.hash, e.key(), equals);
         }
       }
@@ -961,7 +1062,20 @@ public class MapNodes {
       Object editor,
       Node<K, V> a,
       Node<K, V> b,
-      BiPredicate<K, K> equals
+      BiPredicate<K, K> equals,
+      boolean compareHashes
+  ) {
+    return difference(shift, editor, a, b, equals, compareHashes, null);
+  }
+
+  private static <K, V> Node<K, V> difference(
+      int shift,
+      Object editor,
+      Node<K, V> a,
+      Node<K, V> b,
+      BiPredicate<K, K> equals,
+      boolean compareHashes,
+      ForkJoinTask<INode<K, V>>[] forked
   ) {
     Node<K, V> result = new Node<K, V>(editor);
 
@@ -986,7 +1100,9 @@ public class MapNodes {
           }
           break;
         case NODE_NODE:
-          n = diffNodes(shift + 5, editor, a.node(mask), b.node(mask), equals);
+          n = forked != null && forked[numberOfTrailingZeros(mask)] != null
+              ? forked[numberOfTrailingZeros(mask)].join()
+              : diffNodes(shift + 5, editor, a.node(mask), b.node(mask), equals, compareHashes);
           if (n != null) {
             result = result.putNode(mask, n);
           }
@@ -1000,7 +1116,8 @@ public class MapNodes {
           break;
         case ENTRY_NODE:
           idx = a.entryIndex(mask);
-          if (get(b, shift, a.hashes[idx], (K) a.content[idx << 1], equals, DEFAULT_VALUE) == DEFAULT_VALUE) {
+          if (get(b, shift, a.hashes[idx], (K) a.content[idx << 1], equals, compareHashes, DEFAULT_VALUE)
+              == DEFAULT_VALUE) {
             result = transferEntry(mask, a, result);
           }
           break;
@@ -1017,14 +1134,15 @@ public class MapNodes {
       Object editor,
       INode<K, V> a,
       INode<K, V> b,
-      BiPredicate<K, K> equals
+      BiPredicate<K, K> equals,
+      boolean compareHashes
   ) {
     Collision<K, V> ca, cb;
     Node<K, V> na, nb;
 
     // Node / Node
     if (a instanceof Node && b instanceof Node) {
-      return intersection(shift, editor, (Node<K, V>) a, (Node<K, V>) b, equals);
+      return intersection(shift, editor, (Node<K, V>) a, (Node<K, V>) b, equals, compareHashes);
 
       // Node / Collision
     } else if (a instanceof Node && b instanceof Collision) {
@@ -1032,7 +1150,7 @@ public class MapNodes {
       na = (Node<K, V>) a;
       Collision<K, V> result = new Collision<K, V>(cb.hash, new Object[0]);
       for (IEntry<K, V> e : b.entries()) {
-        Object val = get(na, shift, cb.hash, e.key(), equals, DEFAULT_VALUE);
+        Object val = get(na, shift, cb.hash, e.key(), equals, compareHashes, DEFAULT_VALUE);
         if (val != DEFAULT_VALUE) {
           result = (Collision<K, V>) result.put(shift, editor, cb.hash, e.key(), (V) val, equals, null);
         }
@@ -1046,7 +1164,7 @@ public class MapNodes {
       nb = (Node<K, V>) b;
 
       for (IEntry<K, V> e : ca.entries()) {
-        if (!contains(nb, shift, ca.hash, e.key(), equals)) {
+        if (!contains(nb, shift, ca.hash, e.key(), equals, compareHashes)) {
           ca = (Collision<K, V>) ca.remove(shift, editor, ca.hash, e.key(), equals);
         }
       }
@@ -1074,7 +1192,20 @@ public class MapNodes {
       Object editor,
       Node<K, V> a,
       Node<K, V> b,
-      BiPredicate<K, K> equals
+      BiPredicate<K, K> equals,
+      boolean compareHashes
+  ) {
+    return intersection(shift, editor, a, b, equals, compareHashes, null);
+  }
+
+  private static <K, V> Node<K, V> intersection(
+      int shift,
+      Object editor,
+      Node<K, V> a,
+      Node<K, V> b,
+      BiPredicate<K, K> equals,
+      boolean compareHashes,
+      ForkJoinTask<INode<K, V>>[] forked
   ) {
     Node<K, V> result = new Node<K, V>(editor);
 
@@ -1092,7 +1223,9 @@ public class MapNodes {
           }
           break;
         case NODE_NODE:
-          INode<K, V> n = intersectNodes(shift + 5, editor, a.node(mask), b.node(mask), equals);
+          INode<K, V> n = forked != null && forked[numberOfTrailingZeros(mask)] != null
+              ? forked[numberOfTrailingZeros(mask)].join()
+              : intersectNodes(shift + 5, editor, a.node(mask), b.node(mask), equals, compareHashes);
           if (n != null) {
             result = result.putNode(mask, n);
           }
@@ -1101,14 +1234,15 @@ public class MapNodes {
           idx = b.entryIndex(mask);
           int hash = b.hashes[idx];
           K key = (K) b.content[idx << 1];
-          Object val = get(a, shift, hash, key, equals, DEFAULT_VALUE);
+          Object val = get(a, shift, hash, key, equals, compareHashes, DEFAULT_VALUE);
           if (val != DEFAULT_VALUE) {
             result = result.put(shift, editor, hash, key, (V) val, equals, null);
           }
           break;
         case ENTRY_NODE:
           idx = a.entryIndex(mask);
-          if (get(b, shift, a.hashes[idx], (K) a.content[idx << 1], equals, DEFAULT_VALUE) != DEFAULT_VALUE) {
+          if (get(b, shift, a.hashes[idx], (K) a.content[idx << 1], equals, compareHashes, DEFAULT_VALUE)
+              != DEFAULT_VALUE) {
             result = transferEntry(mask, a, result);
           }
           break;
@@ -1120,6 +1254,119 @@ public class MapNodes {
     return result.size() > 0 ? result : null;
   }
 
+  /// Parallel set operations
+
+  /**
+   * The minimum combined size of two child nodes for them to be combined in their own fork-join task.
+   */
+  public static final int PARALLEL_THRESHOLD = 1 << 10;
+
+  public static <K, V> Node<K, V> merge(
+      Object editor,
+      Node<K, V> a,
+      Node<K, V> b,
+      BiPredicate<K, K> equals,
+      BinaryOperator<V> merge,
+      ForkJoinPool pool
+  ) {
+    return pool.invoke(ForkJoinTask.adapt(() -> parallelMerge(0, editor, a, b, equals, merge)));
+  }
+
+  public static <K, V> Node<K, V> difference(
+      Object editor,
+      Node<K, V> a,
+      Node<K, V> b,
+      BiPredicate<K, K> equals,
+      boolean compareHashes,
+      ForkJoinPool pool
+  ) {
+    return pool.invoke(ForkJoinTask.adapt(() -> parallelDifference(0, editor, a, b, equals, compareHashes)));
+  }
+
+  public static <K, V> Node<K, V> intersection(
+      Object editor,
+      Node<K, V> a,
+      Node<K, V> b,
+      BiPredicate<K, K> equals,
+      boolean compareHashes,
+      ForkJoinPool pool
+  ) {
+    return pool.invoke(ForkJoinTask.adapt(() -> parallelIntersection(0, editor, a, b, equals, compareHashes)));
+  }
+
+  private static <K, V> Node<K, V> parallelMerge(
+      int shift,
+      Object editor,
+      Node<K, V> a,
+      Node<K, V> b,
+      BiPredicate<K, K> equals,
+      BinaryOperator<V> merge
+  ) {
+    ForkJoinTask<INode<K, V>>[] forked = fork(a, b, (x, y) ->
+        x instanceof Node && y instanceof Node
+            ? parallelMerge(shift + SHIFT_INCREMENT, editor, (Node<K, V>) x, (Node<K, V>) y, equals, merge)
+            : mergeNodes(shift + SHIFT_INCREMENT, editor, x, y, equals, merge));
+    return merge(shift, editor, a, b, equals, merge, forked);
+  }
+
+  private static <K, V> Node<K, V> parallelDifference(
+      int shift,
+      Object editor,
+      Node<K, V> a,
+      Node<K, V> b,
+      BiPredicate<K, K> equals,
+      boolean compareHashes
+  ) {
+    ForkJoinTask<INode<K, V>>[] forked = fork(a, b, (x, y) ->
+        x instanceof Node && y instanceof Node
+            ? parallelDifference(shift + SHIFT_INCREMENT, editor, (Node<K, V>) x, (Node<K, V>) y, equals, compareHashes)
+            : diffNodes(shift + SHIFT_INCREMENT, editor, x, y, equals, compareHashes));
+    return difference(shift, editor, a, b, equals, compareHashes, forked);
+  }
+
+  private static <K, V> Node<K, V> parallelIntersection(
+      int shift,
+      Object editor,
+      Node<K, V> a,
+      Node<K, V> b,
+      BiPredicate<K, K> equals,
+      boolean compareHashes
+  ) {
+    ForkJoinTask<INode<K, V>>[] forked = fork(a, b, (x, y) ->
+        x instanceof Node && y instanceof Node
+            ? parallelIntersection(shift + SHIFT_INCREMENT, editor, (Node<K, V>) x, (Node<K, V>) y, equals, compareHashes)
+            : intersectNodes(shift + SHIFT_INCREMENT, editor, x, y, equals, compareHashes));
+    return intersection(shift, editor, a, b, equals, compareHashes, forked);
+  }
+
+  /**
+   * Forks a task for each pair of child nodes sharing a mask whose combined size is above {@code PARALLEL_THRESHOLD},
+   * indexed by the offset of the mask.  These are joined as the sequential operation reaches each mask, so the
+   * remaining entries and smaller nodes are handled while the forked tasks run.
+   *
+   * @return the forked tasks, or null if there are none
+   */
+  private static <K, V> ForkJoinTask<INode<K, V>>[] fork(
+      Node<K, V> a,
+      Node<K, V> b,
+      BinaryOperator<INode<K, V>> f
+  ) {
+    ForkJoinTask<INode<K, V>>[] forked = null;
+    PrimitiveIterator.OfInt masks = Util.masks(a.nodemap & b.nodemap);
+    while (masks.hasNext()) {
+      int mask = masks.nextInt();
+      INode<K, V> x = a.node(mask);
+      INode<K, V> y = b.node(mask);
+      if (x.size() + y.size() >= PARALLEL_THRESHOLD) {
+        if (forked == null) {
+          forked = new ForkJoinTask[32];
+        }
+        forked[numberOfTrailingZeros(mask)] = ForkJoinTask.adapt(() -> f.apply(x, y)).fork();
+      }
+    }
+    return forked;
+  }
+
   public static <K, V> IList<Node<K, V>> split(Object editor, Node<K, V> node, int targetSize) {
     IList<Node<K, V>> result = new LinearList<>();
     if ((node.size() >> 1) < targetSize) {
@@ -1158,6 +1405,80 @@ public class MapNodes {
     return result;
   }
 
+  /**
+   * @return a spliterator over the entries in {@code node}, with each key and value transformed by {@code f}
+   */
+  public static <K, V, T> Spliterator<T> spliterator(
+      Node<K, V> node,
+      BiFunction<K, V, T> f,
+      int characteristics
+  ) {
+    return new EntrySpliterator<>(f, characteristics).append(node);
+  }
+
+  private static class EntrySpliterator<K, V, T> extends TreeSpliterator<T> {
+
+    private final BiFunction<K, V, T> f;
+
+    EntrySpliterator(BiFunction<K, V, T> f, int characteristics) {
+      super(characteristics);
+      this.f = f;
+    }
+
+    @Override
+    TreeSpliterator<T> create() {
+      return new EntrySpliterator<>(f, characteristics());
+    }
+
+    @Override
+    long size(Object node) {
+      return ((INode<K, V>) node).size();
+    }
+
+    @Override
+    T entry(Object node, int idx) {
+      Object[] content = node instanceof Node ? ((Node<K, V>) node).content : ((Collision<K, V>) node).entries;
+      return f.apply((K) content[idx << 1], (V) content[(idx << 1) + 1]);
+    }
+
+    @Override
+    void expand(Object node) {
+      if (node instanceof Node) {
+        Node<K, V> n = (Node<K, V>) node;
+        for (int i = 0; i < bitCount(n.datamap); i++) {
+          push(n, i);
+        }
+        for (int i = 0; i < bitCount(n.nodemap); i++) {
+          push(n.content[n.content.length - 1 - i], SUBTREE);
+        }
+      } else {
+        Collision<K, V> c = (Collision<K, V>) node;
+        for (int i = 0; i < (c.entries.length >> 1); i++) {
+          push(c, i);
+        }
+      }
+    }
+
+    @Override
+    void forEach(Object node, Consumer<? super T> action) {
+      if (node instanceof Node) {
+        Node<K, V> n = (Node<K, V>) node;
+        Object[] content = n.content;
+        for (int i = 0; i < (bitCount(n.datamap) << 1); i += 2) {
+          action.accept(f.apply((K) content[i], (V) content[i + 1]));
+        }
+        for (int i = 0; i < bitCount(n.nodemap); i++) {
+          forEach(content[content.length - 1 - i], action);
+        }
+      } else {
+        Object[] entries = ((Collision<K, V>) node).entries;
+        for (int i = 0; i < entries.length; i += 2) {
+          action.accept(f.apply((K) entries[i], (V) entries[i + 1]));
+        }
+      }
+    }
+  }
+
   private static <K, V> Node<K, V> transferNode(int mask, Node<K, V> src, Node<K, V> dst) {
     return dst.putNode(mask, src.node(mask));
   }
@@ -1,7 +1,11 @@
 package io.lacuna.bifurcan.nodes;
 
+import io.lacuna.bifurcan.Summary;
 import io.lacuna.bifurcan.utils.UnicodeChunk;
 
+import java.util.PrimitiveIterator;
+import java.util.function.Predicate;
+
 import static java.lang.System.arraycopy;
 
 /**
@@ -41,6 +45,14 @@ public class RopeNodes {
     }
   }
 
+  public static int numNewlines(Object node) {
+    if (node instanceof byte[]) {
+      return UnicodeChunk.numNewlines((byte[]) node);
+    } else {
+      return ((Node) node).numNewlines();
+    }
+  }
+
   public static Node pushLast(Node a, Object b, Object editor) {
     if (b instanceof byte[]) {
       return a.pushLast((byte[]) b, editor);
@@ -49,21 +61,164 @@ public class RopeNodes {
     }
   }
 
+  /**
+   * @param cache if true, the summary of each node will be cached, which is only safe if none of them will be updated
+   *              in-place
+   * @return the combined summary of every code point in {@code node}
+   */
+  public static <S> S summarize(Node node, Summary<Integer, S> summary, boolean cache) {
+    Annotation annotation = node.annotation;
+    if (annotation != null && annotation.summary == summary) {
+      return (S) annotation.value;
+    }
+
+    S acc = summary.identity;
+    for (int i = 0; i < node.numNodes; i++) {
+      acc = summary.combine(acc, summarize(node.nodes[i], summary, cache));
+    }
+
+    if (cache) {
+      node.annotation = new Annotation(summary, acc);
+    }
+    return acc;
+  }
+
+  /**
+   * @param acc       the combined summary of every code point preceding {@code node}
+   * @param predicate a predicate which is false for the summaries of every prefix shorter than some length, and true
+   *                  for the rest
+   * @return the index of the first code point within {@code node} whose prefix, including itself, has a summary which
+   * satisfies {@code predicate}, or {@code -1} if there is no such code point
+   */
+  public static <S> int seek(Node node, Summary<Integer, S> summary, Predicate<S> predicate, S acc, boolean cache) {
+    int offset = 0;
+    Node n = node;
+    for (int i = 0; i < n.numNodes; i++) {
+      Object child = n.nodes[i];
+      S next = summary.combine(acc, summarize(child, summary, cache));
+      if (!predicate.test(next)) {
+        acc = next;
+        continue;
+      }
+
+      offset += Node.offsetFor(i, n.pointOffsets);
+      if (child instanceof Node) {
+        n = (Node) child;
+        i = -1;
+      } else {
+        PrimitiveIterator.OfInt it = UnicodeChunk.codePointIterator((byte[]) child);
+        for (int j = 0; it.hasNext(); j++) {
+          acc = summary.combine(acc, summary.measure(it.nextInt()));
+          if (predicate.test(acc)) {
+            return offset + j;
+          }
+        }
+        return -1;
+      }
+    }
+    return -1;
+  }
+
+  private static <S> S summarize(Object node, Summary<Integer, S> summary, boolean cache) {
+    if (node instanceof Node) {
+      return summarize((Node) node, summary, cache);
+    }
+
+    S acc = summary.identity;
+    PrimitiveIterator.OfInt it = UnicodeChunk.codePointIterator((byte[]) node);
+    while (it.hasNext()) {
+      acc = summary.combine(acc, summary.measure(it.nextInt()));
+    }
+    return acc;
+  }
+
+  /**
+   * Provides lookups of code units within a tree, which remembers the last chunk it visited and the last code point it
+   * decoded within that chunk, so that sequential or nearby lookups don't need to descend the tree or rescan the chunk.
+   * All of the cached state for a chunk is held in a single {@link Leaf}, so concurrent lookups are safe.
+   */
+  public static class UnitCursor {
+
+    private static class Leaf {
+      final byte[] chunk;
+      final int start, end;
+
+      // see UnicodeChunk.seekUnit(), which is packed into a single field so that it's updated atomically, and is 0
+      // if we haven't scanned the chunk yet
+      int position;
+
+      Leaf(byte[] chunk, int start) {
+        this.chunk = chunk;
+        this.start = start;
+        this.end = start + UnicodeChunk.numCodeUnits(chunk);
+      }
+    }
+
+    private final Node root;
+    private Leaf leaf;
+
+    public UnitCursor(Node root) {
+      this.root = root;
+    }
+
+    public char nthUnit(int idx) {
+      Leaf l = leaf;
+      if (l == null || idx < l.start || idx >= l.end) {
+        l = seek(idx);
+        leaf = l;
+      }
+
+      int unit = idx - l.start;
+      int position = l.position;
+      if (position == 0 || unit < (position >>> 16)) {
+        position = UnicodeChunk.START_POSITION;
+      }
+      position = UnicodeChunk.seekUnit(l.chunk, position, unit);
+      l.position = position;
+
+      return UnicodeChunk.nthUnit(l.chunk, position, unit);
+    }
+
+    private Leaf seek(int idx) {
+      if (idx < 0 || idx >= root.numCodeUnits()) {
+        throw new IndexOutOfBoundsException(idx + " is not within [0," + root.numCodeUnits() + ")");
+      }
+
+      Node n = root;
+      int start = 0;
+      for (; ; ) {
+        int nodeIdx = n.indexFor(idx - start, n.unitOffsets);
+        start += Node.offsetFor(nodeIdx, n.unitOffsets);
+        Object o = n.nodes[nodeIdx];
+        if (o instanceof Node) {
+          n = (Node) o;
+        } else {
+          return new Leaf((byte[]) o, start);
+        }
+      }
+    }
+  }
+
   public static class Node {
 
     public byte shift;
     public int[] unitOffsets;
     public int[] pointOffsets;
+    public int[] lineOffsets;
     public Object[] nodes;
     public int numNodes;
     public final Object editor;
 
+    // only set on nodes which will never again be updated in-place
+    Annotation annotation;
+
     // constructors
 
     public Node(Object editor, int shift) {
       this.shift = (byte) shift;
       this.unitOffsets = new int[2];
       this.pointOffsets = new int[2];
+      this.lineOffsets = new int[2];
       this.nodes = new Object[2];
       this.numNodes = 0;
       this.editor = editor;
@@ -119,6 +274,24 @@ public class RopeNodes {
       }
     }
 
+    /**
+     * @return the index of the first code point within the chunk returned by {@code chunkFor(idx)}
+     */
+    public int chunkStart(int idx) {
+      Node n = this;
+      int start = 0;
+      for (; ; ) {
+        int nodeIdx = n.indexFor(idx - start, n.pointOffsets);
+        start += offsetFor(nodeIdx, n.pointOffsets);
+        Object o = n.nodes[nodeIdx];
+        if (o instanceof Node) {
+          n = (Node) o;
+        } else {
+          return start;
+        }
+      }
+    }
+
     public int nthPoint(int idx) {
       Node n = this;
       for (; ; ) {
@@ -147,10 +320,60 @@ public class RopeNodes {
       }
     }
 
+    /**
+     * @return the index of the code point which is the {@code idx}-th newline
+     */
+    public int nthNewline(int idx) {
+      Node n = this;
+      int offset = 0;
+      for (; ; ) {
+        int nodeIdx = 0;
+        while (idx >= n.lineOffsets[nodeIdx]) {
+          nodeIdx++;
+        }
+
+        idx -= offsetFor(nodeIdx, n.lineOffsets);
+        offset += offsetFor(nodeIdx, n.pointOffsets);
+        Object o = n.nodes[nodeIdx];
+        if (o instanceof Node) {
+          n = (Node) o;
+        } else {
+          return offset + UnicodeChunk.nthNewline((byte[]) o, idx);
+        }
+      }
+    }
+
+    /**
+     * @return the number of newlines within the first {@code idx} code points
+     */
+    public int numNewlines(int idx) {
+      Node n = this;
+      int lines = 0;
+      for (; ; ) {
+        if (idx == n.numCodePoints()) {
+          return lines + n.numNewlines();
+        }
+
+        int nodeIdx = n.indexFor(idx, n.pointOffsets);
+        idx -= offsetFor(nodeIdx, n.pointOffsets);
+        lines += offsetFor(nodeIdx, n.lineOffsets);
+        Object o = n.nodes[nodeIdx];
+        if (o instanceof Node) {
+          n = (Node) o;
+        } else {
+          return lines + UnicodeChunk.numNewlines((byte[]) o, idx);
+        }
+      }
+    }
+
     public int numCodeUnits() {
       return numNodes == 0 ? 0 : unitOffsets[numNodes - 1];
     }
 
+    public int numNewlines() {
+      return numNodes == 0 ? 0 : lineOffsets[numNodes - 1];
+    }
+
     public int numCodePoints() {
       return numNodes == 0 ? 0 : pointOffsets[numNodes - 1];
     }
@@ -173,6 +396,7 @@ public class RopeNodes {
       Object child = nodes[nodeIdx];
       int numUnits = RopeNodes.numCodeUnits(child);
       int numPoints = RopeNodes.numCodePoints(child);
+      int numLines = RopeNodes.numNewlines(child);
 
       Object newChild = shift == SHIFT_INCREMENT
           ? updater.update(offset + nodeOffset, (byte[]) child)
@@ -184,6 +408,7 @@ public class RopeNodes {
 
       int deltaUnits = RopeNodes.numCodeUnits(newChild) - numUnits;
       int deltaPoints = RopeNodes.numCodePoints(newChild) - numPoints;
+      int deltaLines = RopeNodes.numNewlines(newChild) - numLines;
 
       Node node = editor == this.editor ? this : clone(editor);
       node.nodes[nodeIdx] = newChild;
@@ -191,6 +416,7 @@ public class RopeNodes {
       for (int i = nodeIdx; i < numNodes; i++) {
         node.unitOffsets[i] += deltaUnits;
         node.pointOffsets[i] += deltaPoints;
+        node.lineOffsets[i] += deltaLines;
       }
 
       return node;
@@ -297,6 +523,7 @@ public class RopeNodes {
 
       int numCodePoints = UnicodeChunk.numCodePoints(chunk);
       int numCodeUnits = UnicodeChunk.numCodeUnits(chunk);
+      int numLines = UnicodeChunk.numNewlines(chunk);
 
       Node parent = stack[stack.length - 1];
       if (parent.nodes.length == parent.numNodes) {
@@ -304,6 +531,7 @@ public class RopeNodes {
       }
       parent.unitOffsets[parent.numNodes] = parent.numCodeUnits();
       parent.pointOffsets[parent.numNodes] = parent.numCodePoints();
+      parent.lineOffsets[parent.numNodes] = parent.numNewlines();
       parent.numNodes++;
 
       for (int i = 0; i < stack.length; i++) {
@@ -312,6 +540,7 @@ public class RopeNodes {
         n.nodes[lastIdx] = i == stack.length - 1 ? chunk : stack[i + 1];
         n.unitOffsets[lastIdx] += numCodeUnits;
         n.pointOffsets[lastIdx] += numCodePoints;
+        n.lineOffsets[lastIdx] += numLines;
       }
 
       return stack[0];
@@ -353,10 +582,12 @@ public class RopeNodes {
       }
       parent.unitOffsets[parent.numNodes] = parent.numCodeUnits();
       parent.pointOffsets[parent.numNodes] = parent.numCodePoints();
+      parent.lineOffsets[parent.numNodes] = parent.numNewlines();
       parent.numNodes++;
 
       int numCodePoints = node.numCodePoints();
       int numCodeUnits = node.numCodeUnits();
+      int numLines = node.numNewlines();
 
       for (int i = 0; i < stack.length; i++) {
         Node n = stack[i];
@@ -364,6 +595,7 @@ public class RopeNodes {
         n.nodes[lastIdx] = i == stack.length - 1 ? node : stack[i + 1];
         n.unitOffsets[lastIdx] += numCodeUnits;
         n.pointOffsets[lastIdx] += numCodePoints;
+        n.lineOffsets[lastIdx] += numLines;
       }
 
       return stack[0];
@@ -406,12 +638,15 @@ public class RopeNodes {
       arraycopy(parent.nodes, 0, parent.nodes, 1, parent.numNodes);
       arraycopy(parent.unitOffsets, 0, parent.unitOffsets, 1, parent.numNodes);
       arraycopy(parent.pointOffsets, 0, parent.pointOffsets, 1, parent.numNodes);
+      arraycopy(parent.lineOffsets, 0, parent.lineOffsets, 1, parent.numNodes);
       parent.numNodes++;
       parent.unitOffsets[0] = 0;
       parent.pointOffsets[0] = 0;
+      parent.lineOffsets[0] = 0;
 
       int numCodePoints = node.numCodePoints();
       int numCodeUnits = node.numCodeUnits();
+      int numLines = node.numNewlines();
 
       for (int i = 0; i < stack.length; i++) {
         Node n = stack[i];
@@ -419,6 +654,7 @@ public class RopeNodes {
         for (int j = 0; j < n.numNodes; j++) {
           n.unitOffsets[j] += numCodeUnits;
           n.pointOffsets[j] += numCodePoints;
+          n.lineOffsets[j] += numLines;
         }
       }
 
@@ -429,15 +665,18 @@ public class RopeNodes {
       len = Math.min(MAX_BRANCHES, len);
       int[] newUnitOffsets = new int[len];
       int[] newPointOffsets = new int[len];
+      int[] newLineOffsets = new int[len];
       Object[] newNodes = new Object[len];
 
       arraycopy(unitOffsets, 0, newUnitOffsets, 0, numNodes);
       arraycopy(pointOffsets, 0, newPointOffsets, 0, numNodes);
+      arraycopy(lineOffsets, 0, newLineOffsets, 0, numNodes);
       arraycopy(nodes, 0, newNodes, 0, numNodes);
 
       nodes = newNodes;
       unitOffsets = newUnitOffsets;
       pointOffsets = newPointOffsets;
+      lineOffsets = newLineOffsets;
     }
 
     public Node clone(Object editor) {
@@ -447,6 +686,7 @@ public class RopeNodes {
       n.numNodes = numNodes;
       n.unitOffsets = unitOffsets.clone();
       n.pointOffsets = pointOffsets.clone();
+      n.lineOffsets = lineOffsets.clone();
       n.nodes = nodes.clone();
 
       return n;
@@ -9,8 +9,11 @@ import io.lacuna.bifurcan.utils.Iterators;
 import java.util.BitSet;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
 import java.util.function.BiFunction;
 import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 import static io.lacuna.bifurcan.nodes.SortedMapNodes.Color.*;
@@ -27,13 +30,23 @@ public class SortedMapNodes {
   }
 
   public static class Node<K, V> {
-    public final Color c;
-    public final K k;
-    public final V v;
-    public final Node<K, V> l, r;
-    public final long size;
+    public final Object editor;
+    public Color c;
+    public K k;
+    public V v;
+    public Node<K, V> l, r;
+    public long size;
+
+    // the number of black nodes between this node and its leaves, including this node, which lets us join trees
+    // without walking their spines
+    public byte blackHeight;
 
     public Node(Color c, Node<K, V> l, K k, V v, Node<K, V> r) {
+      this(null, c, l, k, v, r);
+    }
+
+    public Node(Object editor, Color c, Node<K, V> l, K k, V v, Node<K, V> r) {
+      this.editor = editor;
       this.c = c;
       this.k = k;
       this.v = v;
@@ -41,61 +54,60 @@ public class SortedMapNodes {
       this.r = r;
 
       this.size = l == null ? 0 : l.size + r.size + 1;
+      this.blackHeight = blackHeight(c, l);
     }
 
     public Node<K, V> redden() {
-      return c == BLACK && size > 0 && l.c == BLACK && r.c == BLACK
-          ? node(RED, l, k, v, r)
-          : this;
+      return redden(null);
     }
 
     public Node<K, V> blacken() {
-      return c == RED ? node(BLACK, l, k, v, r) : this;
+      return blacken(null);
     }
 
     public Node<K, V> unblacken() {
       return c == DOUBLE_BLACK ? node(BLACK, l, k, v, r) : this;
     }
 
-    public Node<K, V> remove(K key, Comparator<K> comparator) {
-      return redden()._remove(key, comparator);
+    public Node<K, V> remove(Object editor, K key, Comparator<K> comparator) {
+      return redden(editor)._remove(editor, key, comparator);
     }
 
-    private Node<K, V> _remove(K key, Comparator<K> comparator) {
+    private Node<K, V> _remove(Object editor, K key, Comparator<K> comparator) {
       if (size == 0) {
         return this;
       } else {
         int cmp = comparator.compare(key, k);
         if (cmp < 0) {
-          return node(c, l._remove(key, comparator), k, v, r).rotate();
+          return update(editor, c, l._remove(editor, key, comparator), k, v, r).rotate();
         } else if (cmp > 0) {
-          return node(c, l, k, v, r._remove(key, comparator)).rotate();
+          return update(editor, c, l, k, v, r._remove(editor, key, comparator)).rotate();
         } else if (size == 1) {
           return c == BLACK ? DOUBLE_EMPTY_NODE : EMPTY_NODE;
         } else if (r.size == 0) {
-          return l.blacken();
+          return l.blacken(editor);
         } else {
           Node<K, V> min = min(r);
-          return node(c, l, min.k, min.v, r.removeMin()).rotate();
+          return update(editor, c, l, min.k, min.v, r.removeMin(editor)).rotate();
         }
       }
     }
 
-    public Node<K, V> put(K key, V value, BinaryOperator<V> merge, Comparator<K> comparator) {
-      return _put(key, value, merge, comparator).blacken();
+    public Node<K, V> put(Object editor, K key, V value, BinaryOperator<V> merge, Comparator<K> comparator) {
+      return _put(editor, key, value, merge, comparator).blacken(editor);
     }
 
-    private Node<K, V> _put(K key, V value, BinaryOperator<V> merge, Comparator<K> comparator) {
+    private Node<K, V> _put(Object editor, K key, V value, BinaryOperator<V> merge, Comparator<K> comparator) {
       if (size == 0) {
-        return node(c == DOUBLE_BLACK ? BLACK : RED, EMPTY_NODE, key, value, EMPTY_NODE);
+        return new Node<>(editor, c == DOUBLE_BLACK ? BLACK : RED, EMPTY_NODE, key, value, EMPTY_NODE);
       } else {
         int cmp = comparator.compare(key, this.k);
         if (cmp < 0) {
-          return node(c, l._put(key, value, merge, comparator), k, v, r).balance();
+          return update(editor, c, l._put(editor, key, value, merge, comparator), k, v, r).balance();
         } else if (cmp > 0) {
-          return node(c, l, k, v, r._put(key, value, merge, comparator)).balance();
+          return update(editor, c, l, k, v, r._put(editor, key, value, merge, comparator)).balance();
         } else {
-          return node(c, l, key, merge.apply(v, value), r);
+          return update(editor, c, l, key, merge.apply(v, value), r);
         }
       }
     }
@@ -231,18 +243,50 @@ public class SortedMapNodes {
       return this;
     }
 
-    private Node<K, V> removeMin() {
+    private Node<K, V> removeMin(Object editor) {
       if (l.size == 0) {
         if (c == RED) {
           return EMPTY_NODE;
         } else if (r.size == 0) {
           return DOUBLE_EMPTY_NODE;
         } else {
-          return r.blacken();
+          return r.blacken(editor);
         }
       }
 
-      return node(c, l.removeMin(), k, v, r).rotate();
+      return update(editor, c, l.removeMin(editor), k, v, r).rotate();
+    }
+
+    private Node<K, V> redden(Object editor) {
+      return c == BLACK && size > 0 && l.c == BLACK && r.c == BLACK
+          ? update(editor, RED, l, k, v, r)
+          : this;
+    }
+
+    private Node<K, V> blacken(Object editor) {
+      return c == RED ? update(editor, BLACK, l, k, v, r) : this;
+    }
+
+    private boolean isOwned(Object editor) {
+      return editor != null && editor == this.editor;
+    }
+
+    /**
+     * @return this node, modified in-place if it belongs to {@code editor}, otherwise a new node owned by {@code editor}
+     */
+    private Node<K, V> update(Object editor, Color c, Node<K, V> l, K k, V v, Node<K, V> r) {
+      if (isOwned(editor)) {
+        this.c = c;
+        this.l = l;
+        this.k = k;
+        this.v = v;
+        this.r = r;
+        this.size = l.size + r.size + 1;
+        this.blackHeight = blackHeight(c, l);
+        return this;
+      } else {
+        return new Node<>(editor, c, l, k, v, r);
+      }
     }
 
     public long floorIndex(K key, Comparator<K> comparator, long offset) {
@@ -324,6 +368,10 @@ public class SortedMapNodes {
         n++;
       }
 
+      if (n - 1 != blackHeight) {
+        throw new IllegalStateException();
+      }
+
       return n;
     }
   }
@@ -350,6 +398,231 @@ public class SortedMapNodes {
     return new Node<>(c, l, k, v, r);
   }
 
+  /// join-based set operations, per Blelloch et al. 2016 (https://arxiv.org/abs/1602.02120)
+
+  private static class Split<K, V> {
+    final Node<K, V> l, m, r;
+
+    Split(Node<K, V> l, Node<K, V> m, Node<K, V> r) {
+      this.l = l;
+      this.m = m;
+      this.r = r;
+    }
+  }
+
+  private static byte blackHeight(Color c, Node l) {
+    if (l == null) {
+      return 0;
+    }
+
+    switch (c) {
+      case BLACK:
+        return (byte) (l.blackHeight + 1);
+      case DOUBLE_BLACK:
+        return (byte) (l.blackHeight + 2);
+      default:
+        return l.blackHeight;
+    }
+  }
+
+  /**
+   * @return a tree containing the entries of {@code l}, then {@code k} and {@code v}, then the entries of {@code r},
+   * where every key in {@code l} is less than {@code k}, and every key in {@code r} is greater
+   */
+  public static <K, V> Node<K, V> join(Node<K, V> l, K k, V v, Node<K, V> r) {
+    l = l.blacken();
+    r = r.blacken();
+    int hl = l.blackHeight;
+    int hr = r.blackHeight;
+
+    if (hl > hr) {
+      Node<K, V> n = joinRight(l, hl, k, v, r, hr);
+      return n.c == RED && n.r.c == RED ? n.blacken() : n;
+    } else if (hl < hr) {
+      Node<K, V> n = joinLeft(l, hl, k, v, r, hr);
+      return n.c == RED && n.l.c == RED ? n.blacken() : n;
+    } else {
+      return red(l, k, v, r);
+    }
+  }
+
+  private static <K, V> Node<K, V> joinRight(Node<K, V> l, int hl, K k, V v, Node<K, V> r, int hr) {
+    if (l.c == BLACK && hl == hr) {
+      return red(l, k, v, r);
+    }
+
+    Node<K, V> rPrime = joinRight(l.r, l.c == BLACK ? hl - 1 : hl, k, v, r, hr);
+    if (l.c == BLACK && rPrime.c == RED && rPrime.r.c == RED) {
+      // rotate left
+      return red(black(l.l, l.k, l.v, rPrime.l), rPrime.k, rPrime.v, rPrime.r.blacken());
+    } else {
+      return node(l.c, l.l, l.k, l.v, rPrime);
+    }
+  }
+
+  private static <K, V> Node<K, V> joinLeft(Node<K, V> l, int hl, K k, V v, Node<K, V> r, int hr) {
+    if (r.c == BLACK && hl == hr) {
+      return red(l, k, v, r);
+    }
+
+    Node<K, V> lPrime = joinLeft(l, hl, k, v, r.l, r.c == BLACK ? hr - 1 : hr);
+    if (r.c == BLACK && lPrime.c == RED && lPrime.l.c == RED) {
+      // rotate right
+      return red(lPrime.l.blacken(), lPrime.k, lPrime.v, black(lPrime.r, r.k, r.v, r.r));
+    } else {
+      return node(r.c, lPrime, r.k, r.v, r.r);
+    }
+  }
+
+  /**
+   * @return a tree containing the entries of {@code l} followed by the entries of {@code r}
+   */
+  private static <K, V> Node<K, V> join(Node<K, V> l, Node<K, V> r) {
+    if (l.size == 0) {
+      return r;
+    } else if (r.size == 0) {
+      return l;
+    }
+
+    Node<K, V> max = l;
+    while (max.r.size > 0) {
+      max = max.r;
+    }
+    return join(removeMax(l), max.k, max.v, r);
+  }
+
+  private static <K, V> Node<K, V> removeMax(Node<K, V> n) {
+    return n.r.size == 0 ? n.l : join(n.l, n.k, n.v, removeMax(n.r));
+  }
+
+  private static <K, V> Split<K, V> split(Node<K, V> n, K key, Comparator<K> comparator) {
+    if (n.size == 0) {
+      return new Split<>(n, null, n);
+    }
+
+    int cmp = comparator.compare(key, n.k);
+    if (cmp == 0) {
+      return new Split<>(n.l, n, n.r);
+    } else if (cmp < 0) {
+      Split<K, V> s = split(n.l, key, comparator);
+      return new Split<>(s.l, s.m, join(s.r, n.k, n.v, n.r));
+    } else {
+      Split<K, V> s = split(n.r, key, comparator);
+      return new Split<>(join(n.l, n.k, n.v, s.l), s.m, s.r);
+    }
+  }
+
+  /**
+   * @return a tree containing every entry in {@code a} and {@code b}, with {@code mergeFn} invoked on the values of
+   * shared keys, which shares any subtrees of either that don't overlap with the other
+   */
+  public static <K, V> Node<K, V> merge(Node<K, V> a, Node<K, V> b, BinaryOperator<V> mergeFn, Comparator<K> comparator) {
+    return union(a, b, mergeFn, comparator).blacken();
+  }
+
+  private static <K, V> Node<K, V> union(Node<K, V> a, Node<K, V> b, BinaryOperator<V> mergeFn, Comparator<K> comparator) {
+    if (a.size == 0) {
+      return b;
+    } else if (b.size == 0) {
+      return a;
+    }
+
+    Split<K, V> s = split(b, a.k, comparator);
+    Node<K, V> l = union(a.l, s.l, mergeFn, comparator);
+    Node<K, V> r = union(a.r, s.r, mergeFn, comparator);
+    return join(l, a.k, s.m == null ? a.v : mergeFn.apply(a.v, s.m.v), r);
+  }
+
+  /**
+   * @return a tree containing every entry in {@code a} whose key isn't in {@code b}
+   */
+  public static <K, V> Node<K, V> difference(Node<K, V> a, Node<K, ?> b, Comparator<K> comparator) {
+    return _difference(a, b, comparator).blacken();
+  }
+
+  private static <K, V> Node<K, V> _difference(Node<K, V> a, Node<K, ?> b, Comparator<K> comparator) {
+    if (a.size == 0 || b.size == 0) {
+      return a;
+    }
+
+    Split<K, V> s = split(a, b.k, comparator);
+    return join(_difference(s.l, b.l, comparator), _difference(s.r, b.r, comparator));
+  }
+
+  /**
+   * @return a tree containing every entry in {@code a} whose key is also in {@code b}
+   */
+  public static <K, V> Node<K, V> intersection(Node<K, V> a, Node<K, ?> b, Comparator<K> comparator) {
+    return _intersection(a, b, comparator).blacken();
+  }
+
+  private static <K, V> Node<K, V> _intersection(Node<K, V> a, Node<K, ?> b, Comparator<K> comparator) {
+    if (a.size == 0) {
+      return a;
+    } else if (b.size == 0) {
+      return EMPTY_NODE;
+    }
+
+    Split<K, V> s = split(a, b.k, comparator);
+    Node<K, V> l = _intersection(s.l, b.l, comparator);
+    Node<K, V> r = _intersection(s.r, b.r, comparator);
+    return s.m == null ? join(l, r) : join(l, s.m.k, s.m.v, r);
+  }
+
+  /// bulk-loading
+
+  /**
+   * Builds a perfectly balanced tree from the first {@code size} entries of {@code it}, which must be in strictly
+   * ascending order.  Every node is black, except for the bottom level of an incomplete tree, which is red.
+   *
+   * @throws IllegalArgumentException if the keys are not in strictly ascending order
+   * @throws java.util.NoSuchElementException if there are fewer than {@code size} entries
+   */
+  public static <K, V> Node<K, V> fromSorted(Iterator<IEntry<K, V>> it, long size, Comparator<K> comparator) {
+    if (size < 0) {
+      throw new IllegalArgumentException("size must be non-negative: " + size);
+    }
+
+    int redLevel = 0;
+    for (long n = size - 1; n >= 0; n = n / 2 - 1) {
+      redLevel++;
+    }
+
+    return new SortedBuilder<>(it, comparator, redLevel).build(0, size);
+  }
+
+  private static class SortedBuilder<K, V> {
+    private final Iterator<IEntry<K, V>> it;
+    private final Comparator<K> comparator;
+    private final int redLevel;
+    private IEntry<K, V> prev;
+
+    SortedBuilder(Iterator<IEntry<K, V>> it, Comparator<K> comparator, int redLevel) {
+      this.it = it;
+      this.comparator = comparator;
+      this.redLevel = redLevel;
+    }
+
+    Node<K, V> build(int level, long size) {
+      if (size == 0) {
+        return EMPTY_NODE;
+      }
+
+      long leftSize = (size - 1) / 2;
+      Node<K, V> l = build(level + 1, leftSize);
+
+      IEntry<K, V> e = it.next();
+      if (prev != null && comparator.compare(prev.key(), e.key()) >= 0) {
+        throw new IllegalArgumentException("keys must be in strictly ascending order, but "
+            + e.key() + " followed " + prev.key());
+      }
+      prev = e;
+
+      Node<K, V> r = build(level + 1, size - leftSize - 1);
+      return node(level == redLevel ? RED : BLACK, l, e.key(), e.value(), r);
+    }
+  }
+
   public static <K, V> Node<K, V> slice(Node<K, V> n, K min, K max, Comparator<K> comparator) {
     return null;
   }
@@ -406,8 +679,21 @@ public class SortedMapNodes {
   }
 
   public static <K, V> Iterator<IEntry<K, V>> iterator(Node<K, V> root) {
+    return iterator(root, 0, false);
+  }
+
+  public static <K, V> Iterator<IEntry<K, V>> iterator(Node<K, V> root, long startIndex) {
+    return iterator(root, startIndex, false);
+  }
+
+  /**
+   * @param reverse if true, the entries are returned in descending order, from {@code startIndex} down to the first
+   *                entry
+   * @return an iterator over the entries from {@code startIndex} onwards, which descends directly to the first entry
+   */
+  public static <K, V> Iterator<IEntry<K, V>> iterator(Node<K, V> root, long startIndex, boolean reverse) {
 
-    if (root.size == 0) {
+    if (startIndex < 0 || startIndex >= root.size) {
       return Iterators.EMPTY;
     }
 
@@ -417,8 +703,32 @@ public class SortedMapNodes {
       int depth = 0;
 
       {
-        stack[0] = root;
-        nextValue();
+        // in reverse, we walk the mirror image of the tree, where the left and right children are swapped
+        Node<K, V> n = root;
+        long idx = reverse ? root.size - 1 - startIndex : startIndex;
+        for (; ; ) {
+          stack[depth] = n;
+          long prefix = first(n).size;
+          if (idx < prefix) {
+            cursor[depth++] = 0;
+            n = first(n);
+          } else if (idx > prefix) {
+            idx -= prefix + 1;
+            cursor[depth++] = 2;
+            n = second(n);
+          } else {
+            cursor[depth] = 1;
+            break;
+          }
+        }
+      }
+
+      private Node<K, V> first(Node<K, V> n) {
+        return reverse ? n.r : n.l;
+      }
+
+      private Node<K, V> second(Node<K, V> n) {
+        return reverse ? n.l : n.r;
       }
 
       private void nextValue() {
@@ -426,23 +736,23 @@ public class SortedMapNodes {
           Node<K, V> n = stack[depth];
           switch (cursor[depth]) {
             case 0:
-              if (n.l.size == 0) {
+              if (first(n).size == 0) {
                 cursor[depth]++;
                 return;
               } else {
-                stack[++depth] = n.l;
+                stack[++depth] = first(n);
                 cursor[depth] = 0;
               }
               break;
             case 1:
               return;
             case 2:
-              if (n.r.size == 0) {
+              if (second(n).size == 0) {
                 if (--depth >= 0) {
                   cursor[depth]++;
                 }
               } else {
-                stack[++depth] = n.r;
+                stack[++depth] = second(n);
                 cursor[depth] = 0;
               }
               break;
@@ -461,6 +771,10 @@ public class SortedMapNodes {
 
       @Override
       public IEntry<K, V> next() {
+        if (depth < 0) {
+          throw new NoSuchElementException();
+        }
+
         Node<K, V> n = stack[depth];
         IEntry<K, V> e = IEntry.of(n.k, n.v);
 
@@ -470,4 +784,59 @@ public class SortedMapNodes {
       }
     };
   }
+
+  /**
+   * @return a spliterator over the entries in {@code root}, with each key and value transformed by {@code f}
+   */
+  public static <K, V, T> Spliterator<T> spliterator(Node<K, V> root, BiFunction<K, V, T> f, int characteristics) {
+    return new EntrySpliterator<>(f, characteristics).append(root);
+  }
+
+  private static class EntrySpliterator<K, V, T> extends TreeSpliterator<T> {
+
+    private final BiFunction<K, V, T> f;
+
+    EntrySpliterator(BiFunction<K, V, T> f, int characteristics) {
+      super(characteristics);
+      this.f = f;
+    }
+
+    @Override
+    TreeSpliterator<T> create() {
+      return new EntrySpliterator<>(f, characteristics());
+    }
+
+    @Override
+    long size(Object node) {
+      return ((Node<K, V>) node).size;
+    }
+
+    @Override
+    T entry(Object node, int idx) {
+      Node<K, V> n = (Node<K, V>) node;
+      return f.apply(n.k, n.v);
+    }
+
+    @Override
+    void expand(Object node) {
+      Node<K, V> n = (Node<K, V>) node;
+      if (n.l.size > 0) {
+        push(n.l, SUBTREE);
+      }
+      push(n, 0);
+      if (n.r.size > 0) {
+        push(n.r, SUBTREE);
+      }
+    }
+
+    @Override
+    void forEach(Object node, Consumer<? super T> action) {
+      Node<K, V> n = (Node<K, V>) node;
+      while (n.size > 0) {
+        forEach(n.l, action);
+        action.accept(f.apply(n.k, n.v));
+        n = n.r;
+      }
+    }
+  }
 }
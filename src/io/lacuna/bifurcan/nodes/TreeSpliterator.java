@@ -0,0 +1,197 @@
+package io.lacuna.bifurcan.nodes;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A spliterator over a tree, which keeps a stack of the entries and subtrees that remain to be traversed, with the
+ * next one on top.  Splitting divides the stack in two, and if only a single subtree remains it is first replaced by
+ * its children, so every split is along a subtree boundary and has an exact size.
+ *
+ * @author ztellman
+ */
+abstract class TreeSpliterator<T> implements Spliterator<T> {
+
+  /**
+   * Denotes a stack element which is an entire subtree, rather than a single entry within it.
+   */
+  static final int SUBTREE = -1;
+
+  private Object[] nodes = new Object[16];
+  private int[] indices = new int[16];
+  private int depth = 0;
+  private long size = 0;
+  private final int characteristics;
+
+  TreeSpliterator(int characteristics) {
+    this.characteristics = characteristics | SIZED | SUBSIZED;
+  }
+
+  /**
+   * @return an empty spliterator of the same type
+   */
+  abstract TreeSpliterator<T> create();
+
+  /**
+   * @return the number of entries within {@code node}
+   */
+  abstract long size(Object node);
+
+  /**
+   * @return the entry at {@code idx} within {@code node}
+   */
+  abstract T entry(Object node, int idx);
+
+  /**
+   * Pushes the entries and subtrees directly within {@code node}, in order.
+   */
+  abstract void expand(Object node);
+
+  /**
+   * Invokes {@code action} on every entry within {@code node}, in order.
+   */
+  abstract void forEach(Object node, Consumer<? super T> action);
+
+  /**
+   * Pushes a stack element, which will be traversed before everything that was previously pushed.  Since
+   * {@link #expand(Object)} pushes elements in order, they are reversed once it's finished.
+   */
+  final void push(Object node, int idx) {
+    if (depth == nodes.length) {
+      Object[] nodesPrime = new Object[depth << 1];
+      int[] indicesPrime = new int[depth << 1];
+      System.arraycopy(nodes, 0, nodesPrime, 0, depth);
+      System.arraycopy(indices, 0, indicesPrime, 0, depth);
+      nodes = nodesPrime;
+      indices = indicesPrime;
+    }
+    nodes[depth] = node;
+    indices[depth] = idx;
+    depth++;
+  }
+
+  /**
+   * Adds {@code node} to the bottom of the stack, so that it's traversed after everything that was previously added.
+   */
+  final TreeSpliterator<T> append(Object node) {
+    long n = size(node);
+    if (n > 0) {
+      pushBottom(node, SUBTREE);
+      size += n;
+    }
+    return this;
+  }
+
+  /**
+   * Adds the entry at {@code idx} within {@code node} to the bottom of the stack.
+   */
+  final TreeSpliterator<T> append(Object node, int idx) {
+    pushBottom(node, idx);
+    size++;
+    return this;
+  }
+
+  private void pushBottom(Object node, int idx) {
+    push(node, idx);
+    System.arraycopy(nodes, 0, nodes, 1, depth - 1);
+    System.arraycopy(indices, 0, indices, 1, depth - 1);
+    nodes[0] = node;
+    indices[0] = idx;
+  }
+
+  private void expandTop() {
+    Object node = nodes[--depth];
+    int start = depth;
+    expand(node);
+
+    // reverse the children, so that the first is on top
+    for (int i = start, j = depth - 1; i < j; i++, j--) {
+      Object n = nodes[i];
+      nodes[i] = nodes[j];
+      nodes[j] = n;
+      int idx = indices[i];
+      indices[i] = indices[j];
+      indices[j] = idx;
+    }
+  }
+
+  private long elementSize(int i) {
+    return indices[i] == SUBTREE ? size(nodes[i]) : 1;
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super T> action) {
+    while (depth > 0) {
+      int i = depth - 1;
+      if (indices[i] == SUBTREE) {
+        expandTop();
+      } else {
+        depth--;
+        size--;
+        action.accept(entry(nodes[i], indices[i]));
+        nodes[i] = null;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public void forEachRemaining(Consumer<? super T> action) {
+    while (depth > 0) {
+      int i = --depth;
+      Object node = nodes[i];
+      nodes[i] = null;
+      if (indices[i] == SUBTREE) {
+        forEach(node, action);
+      } else {
+        action.accept(entry(node, indices[i]));
+      }
+    }
+    size = 0;
+  }
+
+  @Override
+  public Spliterator<T> trySplit() {
+    while (depth == 1 && indices[0] == SUBTREE) {
+      expandTop();
+    }
+
+    if (depth < 2) {
+      return null;
+    }
+
+    // move elements off the top of the stack until we have roughly half the entries, but always leave at least one
+    long half = size >> 1;
+    long acc = 0;
+    int split = depth;
+    while (split > 1 && acc < half) {
+      acc += elementSize(--split);
+    }
+
+    if (split == depth) {
+      return null;
+    }
+
+    TreeSpliterator<T> prefix = create();
+    for (int i = split; i < depth; i++) {
+      prefix.push(nodes[i], indices[i]);
+      nodes[i] = null;
+    }
+    prefix.size = acc;
+    depth = split;
+    size -= acc;
+
+    return prefix;
+  }
+
+  @Override
+  public long estimateSize() {
+    return size;
+  }
+
+  @Override
+  public int characteristics() {
+    return characteristics;
+  }
+}
@@ -1,5 +1,6 @@
 package io.lacuna.bifurcan.utils;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.PrimitiveIterator;
 import java.util.PrimitiveIterator.OfInt;
@@ -9,13 +10,19 @@ import static java.lang.System.arraycopy;
 
 /**
  * An immutable UTF-8 encoded block of no more than 255 UTF-16 code units, which allows lookups by both code point and
- * code unit.
+ * code unit.  The encoded bytes are preceded by a header holding the number of code points, code units, and
+ * {@code '\n'} code points in the block.
  */
 public class UnicodeChunk {
 
   private static final Charset UTF8 = Charset.forName("utf-8");
 
-  public static final byte[] EMPTY = new byte[]{0, 0};
+  /**
+   * The number of bytes which precede the encoded code points in a chunk.
+   */
+  public static final int HEADER_LENGTH = 3;
+
+  public static final byte[] EMPTY = new byte[]{0, 0, 0};
 
   public static final byte[] LENGTHS = new byte[]{
       1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
@@ -32,6 +39,7 @@ public class UnicodeChunk {
 
     int numBytes = 0;
     int numCodePoints = 0;
+    int numNewlines = 0;
     for (int charIdx = start; charIdx < end; numCodePoints++) {
       char c = cs.charAt(charIdx);
       if (isHighSurrogate(c)) {
@@ -40,14 +48,18 @@ public class UnicodeChunk {
       } else {
         numBytes += encodedLength(c & 0xFFFF);
         charIdx += 1;
+        if (c == '\n') {
+          numNewlines++;
+        }
       }
     }
 
-    byte[] chunk = new byte[numBytes + 2];
+    byte[] chunk = new byte[numBytes + HEADER_LENGTH];
     chunk[0] = (byte) numCodePoints;
     chunk[1] = (byte) (end - start);
+    chunk[2] = (byte) numNewlines;
 
-    for (int charIdx = start, offset = 2; charIdx < end; ) {
+    for (int charIdx = start, offset = HEADER_LENGTH; charIdx < end; ) {
       char c = cs.charAt(charIdx);
       int codePoint;
       if (isHighSurrogate(c)) {
@@ -64,6 +76,58 @@ public class UnicodeChunk {
     return chunk;
   }
 
+  /**
+   * @param bytes         an array containing UTF-8 encoded bytes, which must already have been validated
+   * @param numCodePoints the number of code points within {@code [offset, offset + length)}
+   * @param numCodeUnits  the number of UTF-16 code units required to represent those code points
+   * @param numNewlines   the number of {@code '\n'} code points among them
+   * @return a chunk containing a copy of the encoded bytes
+   */
+  public static byte[] fromUtf8(byte[] bytes, int offset, int length, int numCodePoints, int numCodeUnits,
+                                int numNewlines) {
+    if (numCodeUnits > 255) {
+      throw new IllegalArgumentException("cannot encode a block of more than 255 UTF-16 code units");
+    }
+
+    byte[] chunk = new byte[length + HEADER_LENGTH];
+    chunk[0] = (byte) numCodePoints;
+    chunk[1] = (byte) numCodeUnits;
+    chunk[2] = (byte) numNewlines;
+    arraycopy(bytes, offset, chunk, HEADER_LENGTH, length);
+
+    return chunk;
+  }
+
+  /**
+   * @param len the length of the encoded code point, as given by {@link #prefixLength(byte)} for its first byte
+   * @return true if the {@code len} bytes starting at {@code offset} are a well-formed UTF-8 encoding of a code point,
+   * which is neither overlong nor a surrogate
+   */
+  public static boolean isValidUtf8(byte[] bytes, int offset, int len) {
+    switch (len) {
+      case 1:
+        return bytes[offset] >= 0;
+      case 2:
+      case 3:
+      case 4:
+        for (int i = offset + 1; i < offset + len; i++) {
+          if ((bytes[i] & 0b11000000) != 0b10000000) {
+            return false;
+          }
+        }
+        int codePoint = decode(bytes, offset);
+        if (len == 2) {
+          return codePoint >= 0x80;
+        } else if (len == 3) {
+          return codePoint >= 0x800 && !isSurrogate((char) codePoint);
+        } else {
+          return codePoint >= MIN_SUPPLEMENTARY_CODE_POINT && codePoint <= MAX_CODE_POINT;
+        }
+      default:
+        return false;
+    }
+  }
+
   public static CharSequence toCharSequence(byte[] chunk) {
     return new CharSequence() {
       @Override
@@ -90,7 +154,7 @@ public class UnicodeChunk {
 
   public static String toString(byte[] chunk) {
     char[] cs = new char[numCodeUnits(chunk)];
-    for (int bi = 2, ci = 0; ci < cs.length; ) {
+    for (int bi = HEADER_LENGTH, ci = 0; ci < cs.length; ) {
       int codePoint = decode(chunk, bi);
       bi += codePoint < 0x80 ? 1 : prefixLength(chunk[bi]);
 
@@ -109,11 +173,12 @@ public class UnicodeChunk {
       throw new IllegalArgumentException("cannot create a chunk larger than 255 UTF-16 code units");
     }
 
-    byte[] newChunk = new byte[a.length + b.length - 2];
-    arraycopy(a, 2, newChunk, 2, a.length - 2);
-    arraycopy(b, 2, newChunk, a.length, b.length - 2);
+    byte[] newChunk = new byte[a.length + b.length - HEADER_LENGTH];
+    arraycopy(a, HEADER_LENGTH, newChunk, HEADER_LENGTH, a.length - HEADER_LENGTH);
+    arraycopy(b, HEADER_LENGTH, newChunk, a.length, b.length - HEADER_LENGTH);
     newChunk[0] = (byte) (numCodePoints(a) + numCodePoints(b));
     newChunk[1] = (byte) (numCodeUnits(a) + numCodeUnits(b));
+    newChunk[2] = (byte) (numNewlines(a) + numNewlines(b));
 
     return newChunk;
   }
@@ -124,12 +189,13 @@ public class UnicodeChunk {
     }
 
     int offset = offset(a, idx);
-    byte[] newChunk = new byte[a.length + b.length - 2];
-    arraycopy(a, 2, newChunk, 2, offset - 2);
-    arraycopy(b, 2, newChunk, offset, b.length - 2);
-    arraycopy(a, offset, newChunk, offset + b.length - 2, a.length - offset);
+    byte[] newChunk = new byte[a.length + b.length - HEADER_LENGTH];
+    arraycopy(a, HEADER_LENGTH, newChunk, HEADER_LENGTH, offset - HEADER_LENGTH);
+    arraycopy(b, HEADER_LENGTH, newChunk, offset, b.length - HEADER_LENGTH);
+    arraycopy(a, offset, newChunk, offset + b.length - HEADER_LENGTH, a.length - offset);
     newChunk[0] = (byte) (numCodePoints(a) + numCodePoints(b));
     newChunk[1] = (byte) (numCodeUnits(a) + numCodeUnits(b));
+    newChunk[2] = (byte) (numNewlines(a) + numNewlines(b));
 
     return newChunk;
   }
@@ -146,8 +212,8 @@ public class UnicodeChunk {
     int codeUnits = 0;
     int endOffset;
     if (isAscii(chunk)) {
-      startOffset = start + 2;
-      endOffset = end + 2;
+      startOffset = start + HEADER_LENGTH;
+      endOffset = end + HEADER_LENGTH;
       codeUnits = end - start;
     } else {
       startOffset = offset(chunk, start);
@@ -160,22 +226,82 @@ public class UnicodeChunk {
       }
     }
 
-    byte[] newChunk = new byte[(endOffset - startOffset) + 2];
-    arraycopy(chunk, startOffset, newChunk, 2, newChunk.length - 2);
+    byte[] newChunk = new byte[(endOffset - startOffset) + HEADER_LENGTH];
+    arraycopy(chunk, startOffset, newChunk, HEADER_LENGTH, newChunk.length - HEADER_LENGTH);
     newChunk[0] = (byte) (end - start);
     newChunk[1] = (byte) codeUnits;
+    newChunk[2] = (byte) numNewlines(chunk, startOffset, endOffset);
 
     return newChunk;
   }
 
   public static char nthUnit(byte[] chunk, int idx) {
     if (isAscii(chunk)) {
-      return (char) chunk[idx + 2];
+      return (char) chunk[idx + HEADER_LENGTH];
     } else {
       return findNthUnit(chunk, idx);
     }
   }
 
+  /**
+   * The position of the first code point in a chunk, for use with {@link #seekUnit(byte[], int, int)}.
+   */
+  public static final int START_POSITION = HEADER_LENGTH;
+
+  /**
+   * Scans forward from a known code point to the one containing the code unit at {@code idx}.  A position encodes both
+   * the index of the code point's first code unit, and its byte offset within the chunk.
+   *
+   * @param position the position of a code point at or before the code unit at {@code idx}
+   * @return the position of the code point which contains the code unit at {@code idx}
+   */
+  public static int seekUnit(byte[] chunk, int position, int idx) {
+    if (isAscii(chunk)) {
+      return (idx << 16) | (idx + HEADER_LENGTH);
+    }
+
+    int unit = position >>> 16;
+    int offset = position & 0xFFFF;
+
+    for (int limit = chunk.length - 8; offset <= limit; offset += 8) {
+      int next = unit + codeUnitsIn(word(chunk, offset));
+      if (idx < next) {
+        break;
+      }
+      unit = next;
+    }
+
+    // we may have skipped into the middle of a code point, whose code units have already been counted
+    while (offset < chunk.length && isContinuation(chunk[offset])) {
+      offset++;
+    }
+
+    for (; ; ) {
+      byte b = chunk[offset];
+      int len = b >= 0 ? 1 : prefixLength(b);
+      int next = unit + (len == 4 ? 2 : 1);
+      if (idx < next) {
+        return (unit << 16) | offset;
+      }
+      unit = next;
+      offset += len;
+    }
+  }
+
+  /**
+   * @param position the position of the code point which contains the code unit at {@code idx}, as returned by
+   *                 {@link #seekUnit(byte[], int, int)}
+   * @return the code unit at {@code idx}
+   */
+  public static char nthUnit(byte[] chunk, int position, int idx) {
+    int point = decode(chunk, position & 0xFFFF);
+    if (isBmpCodePoint(point)) {
+      return (char) point;
+    } else {
+      return idx == position >>> 16 ? highSurrogate(point) : lowSurrogate(point);
+    }
+  }
+
   public static int nthPoint(byte[] chunk, int idx) {
     return decode(chunk, offset(chunk, idx));
   }
@@ -188,9 +314,72 @@ public class UnicodeChunk {
     return chunk[1] & 0xFF;
   }
 
+  /**
+   * @return the number of {@code '\n'} code points in the chunk
+   */
+  public static int numNewlines(byte[] chunk) {
+    return chunk[2] & 0xFF;
+  }
+
+  /**
+   * @return the number of {@code '\n'} code points within the first {@code numPoints} code points of the chunk
+   */
+  public static int numNewlines(byte[] chunk, int numPoints) {
+    return numNewlines(chunk, HEADER_LENGTH, offset(chunk, numPoints));
+  }
+
+  /**
+   * Copies the UTF-8 encoding of as many whole code points as will fit into {@code dst}, starting with the
+   * {@code start}-th code point of the chunk.
+   *
+   * @return the number of code points copied
+   */
+  public static int copyUtf8(byte[] chunk, int start, ByteBuffer dst) {
+    int numPoints = numCodePoints(chunk);
+    int startOffset = offset(chunk, start);
+    int remaining = dst.remaining();
+
+    int endOffset, end;
+    if (chunk.length - startOffset <= remaining) {
+      endOffset = chunk.length;
+      end = numPoints;
+    } else if (isAscii(chunk)) {
+      endOffset = startOffset + remaining;
+      end = start + remaining;
+    } else {
+      endOffset = startOffset;
+      end = start;
+      for (; ; ) {
+        byte b = chunk[endOffset];
+        int len = b >= 0 ? 1 : prefixLength(b);
+        if (endOffset + len - startOffset > remaining) {
+          break;
+        }
+        endOffset += len;
+        end++;
+      }
+    }
+
+    dst.put(chunk, startOffset, endOffset - startOffset);
+    return end - start;
+  }
+
+  /**
+   * @return the index of the code point which is the {@code idx}-th {@code '\n'} within the chunk
+   */
+  public static int nthNewline(byte[] chunk, int idx) {
+    for (int offset = HEADER_LENGTH, pointIdx = 0; ; pointIdx++) {
+      byte b = chunk[offset];
+      if (b == '\n' && idx-- == 0) {
+        return pointIdx;
+      }
+      offset += b >= 0 ? 1 : prefixLength(b);
+    }
+  }
+
   public static OfInt codePointIterator(byte[] chunk) {
     return new OfInt() {
-      private int idx = 2;
+      private int idx = HEADER_LENGTH;
 
       @Override
       public int nextInt() {
@@ -222,7 +411,7 @@ public class UnicodeChunk {
 
       @Override
       public boolean hasNext() {
-        return idx > 2;
+        return idx > HEADER_LENGTH;
       }
     };
   }
@@ -286,7 +475,7 @@ public class UnicodeChunk {
   }
 
   public static int writeCodeUnits(char[] array, int offset, byte[] chunk) {
-    for (int aryIdx = offset, chunkIdx = 2; chunkIdx < chunk.length; ) {
+    for (int aryIdx = offset, chunkIdx = HEADER_LENGTH; chunkIdx < chunk.length; ) {
       byte b = chunk[chunkIdx];
       if (b >= 0) {
         array[aryIdx++] = (char) b;
@@ -307,7 +496,7 @@ public class UnicodeChunk {
   }
 
   public static int writeCodePoints(int[] array, int offset, byte[] chunk) {
-    for (int aryIdx = offset, chunkIdx = 2; chunkIdx < chunk.length; ) {
+    for (int aryIdx = offset, chunkIdx = HEADER_LENGTH; chunkIdx < chunk.length; ) {
       int codePoint = decode(chunk, chunkIdx);
       array[aryIdx++] = codePoint;
       chunkIdx += encodedLength(codePoint);
@@ -319,40 +508,43 @@ public class UnicodeChunk {
   ///
 
   private static char findNthUnit(byte[] chunk, int idx) {
-    int offset = 2;
+    return nthUnit(chunk, seekUnit(chunk, START_POSITION, idx), idx);
+  }
 
-    for (; ; ) {
-      if (idx == 0) {
-        int point = decode(chunk, offset);
-        return isBmpCodePoint(point) ? (char) point : highSurrogate(point);
-      }
-
-      byte b = chunk[offset];
-      if (b >= 0) {
-        idx--;
-        offset++;
-      } else {
-        int len = prefixLength(b);
-        int codeUnits = 1 << (len >> 2);
-        idx -= codeUnits;
-        if (idx < 0) {
-          return lowSurrogate(decode(chunk, offset));
-        }
-        offset += len;
+  // since every byte of a multi-byte UTF-8 sequence has its high bit set, we don't need to decode the code points
+  private static int numNewlines(byte[] chunk, int start, int end) {
+    int count = 0;
+    for (int i = start; i < end; i++) {
+      if (chunk[i] == '\n') {
+        count++;
       }
     }
+    return count;
   }
 
   private static int offset(byte[] chunk, int idx) {
     if (isAscii(chunk)) {
-      return idx + 2;
+      return idx + HEADER_LENGTH;
     } else {
       return findNthPoint(chunk, idx);
     }
   }
 
   private static int findNthPoint(byte[] chunk, int idx) {
-    int offset = 2;
+    int offset = HEADER_LENGTH;
+
+    for (int limit = chunk.length - 8; offset <= limit; offset += 8) {
+      int n = codePointsIn(word(chunk, offset));
+      if (idx < n) {
+        break;
+      }
+      idx -= n;
+    }
+
+    while (offset < chunk.length && isContinuation(chunk[offset])) {
+      offset++;
+    }
+
     while (idx-- > 0) {
       byte b = chunk[offset];
       if (b >= 0) {
@@ -364,8 +556,45 @@ public class UnicodeChunk {
     return offset;
   }
 
+  // SWAR helpers, which operate on eight bytes at a time.  Since we only ever count bytes within a word, the order in
+  // which the bytes are packed doesn't matter.
+
+  private static final long HIGH_BITS = 0x8080808080808080L;
+
+  private static long word(byte[] chunk, int offset) {
+    return (chunk[offset] & 0xFFL)
+        | (chunk[offset + 1] & 0xFFL) << 8
+        | (chunk[offset + 2] & 0xFFL) << 16
+        | (chunk[offset + 3] & 0xFFL) << 24
+        | (chunk[offset + 4] & 0xFFL) << 32
+        | (chunk[offset + 5] & 0xFFL) << 40
+        | (chunk[offset + 6] & 0xFFL) << 48
+        | (chunk[offset + 7] & 0xFFL) << 56;
+  }
+
+  /**
+   * @return the number of code points which begin within the word, which is every byte except those matching
+   * {@code 10xxxxxx}
+   */
+  private static int codePointsIn(long word) {
+    return 8 - Long.bitCount(word & ~(word << 1) & HIGH_BITS);
+  }
+
+  /**
+   * @return the number of code units in the code points which begin within the word, which is one for each code point,
+   * plus one for each byte matching {@code 11110xxx}
+   */
+  private static int codeUnitsIn(long word) {
+    long fourByteLeads = word & (word << 1) & (word << 2) & (word << 3) & ~(word << 4) & HIGH_BITS;
+    return codePointsIn(word) + Long.bitCount(fourByteLeads);
+  }
+
+  private static boolean isContinuation(byte b) {
+    return (b & 0b11000000) == 0b10000000;
+  }
+
   private static boolean isAscii(byte[] chunk) {
-    return (chunk[0] & 0xFF) == (chunk.length - 2);
+    return (chunk[0] & 0xFF) == (chunk.length - HEADER_LENGTH);
   }
 
   private static int encodedLength(int codePoint) {
@@ -58,6 +58,7 @@
     IntMap
     Map
     SortedMap
+    BTreeMap
     List
     IMap
     IList
@@ -682,6 +683,11 @@
     (base-map "bifurcan.SortedMap" SortedMap)
     {:entries generate-numbers}))
 
+(def bifurcan-btree-map
+  (merge
+    (base-map "bifurcan.BTreeMap" BTreeMap)
+    {:entries generate-numbers}))
+
 (def int-map
   (merge
     (base-map "bifurcan.IntMap" IntMap)
@@ -1050,7 +1056,7 @@
 
 (def sets [bifurcan-set java-hash-set clojure-set vavr-set scala-set paguro-set linear-set capsule-set #_pcollections-set])
 
-(def sorted-maps [bifurcan-sorted-map java-sorted-map clojure-sorted-map vavr-sorted-map scala-sorted-map paguro-sorted-map int-map scala-int-map])
+(def sorted-maps [bifurcan-sorted-map bifurcan-btree-map java-sorted-map clojure-sorted-map vavr-sorted-map scala-sorted-map paguro-sorted-map int-map scala-int-map])
 
 (def lists [bifurcan-list java-array-list clojure-vector vavr-vector scala-vector paguro-vector linear-list #_pcollections-vector])
 
@@ -26,6 +26,9 @@
     IntMap
     FloatMap
     SortedMap
+    BTreeMap
+    ISortedMap
+    ISortedSet$Bound
     Map
     Maps
     List
@@ -39,7 +42,15 @@
     LinearList
     LinearMap
     LinearSet
-    SortedSet]))
+    LinearLongMap
+    LinearLongSet
+    SortedSet
+    IntSet
+    LongList
+    DoubleList
+    IntLongMap
+    IntDoubleMap
+    SparseVectors]))
 
 (set! *warn-on-reflection* false)
 
@@ -157,6 +168,13 @@
      :remove-first []
      :remove-last  []}))
 
+(def primitive-list-actions
+  (merge
+    common-actions
+    {:add-last [gen/large-integer]
+     :slice    [gen/pos-int gen/pos-int]
+     :concat   [(gen/vector gen/large-integer 0 1e3)]}))
+
 (def map-actions
   (merge
     common-actions
@@ -209,6 +227,59 @@
    :linear       #(.linear ^IList %)
    :forked       #(.forked ^IList %)})
 
+(def long-list
+  {:add-last #(.addLast ^LongList %1 (long %2))
+   :slice    #(let [^LongList l %1
+                    [s e]       (sort [%2 %3])]
+                (.slice l
+                  (max 0 (min (.size l) s))
+                  (min (.size l) e)))
+   :concat   #(.concat ^LongList %1 (LongList/of (long-array %2)))
+   :linear   #(.linear ^LongList %)
+   :forked   #(.forked ^LongList %)})
+
+(def double-list
+  {:add-last #(.addLast ^DoubleList %1 (double %2))
+   :slice    #(let [^DoubleList l %1
+                    [s e]         (sort [%2 %3])]
+                (.slice l
+                  (max 0 (min (.size l) s))
+                  (min (.size l) e)))
+   :concat   #(.concat ^DoubleList %1 (DoubleList/of (double-array %2)))
+   :linear   #(.linear ^DoubleList %)
+   :forked   #(.forked ^DoubleList %)})
+
+(defn int-long-map [m]
+  (IntLongMap/from (IntMap/from ^java.util.Map m)))
+
+(defn int-double-map [m]
+  (IntDoubleMap/from (IntMap/from ^java.util.Map m)))
+
+(def int-long-map-actions
+  {:put          #(.put ^IntLongMap %1 (long %2) (long %3))
+   :remove       #(.remove ^IntLongMap %1 (long %2))
+   :union        #(.union ^IntLongMap %1 (int-long-map (zipmap %2 %2)))
+   :intersection #(.intersection ^IntLongMap %1 (int-long-map (zipmap %2 %2)))
+   :difference   #(.difference ^IntLongMap %1 (int-long-map (zipmap %2 %2)))
+   :linear       #(.linear ^IntLongMap %)
+   :forked       #(.forked ^IntLongMap %)})
+
+(def int-double-map-actions
+  {:put          #(.put ^IntDoubleMap %1 (long %2) (double %3))
+   :remove       #(.remove ^IntDoubleMap %1 (long %2))
+   :union        #(.union ^IntDoubleMap %1 (int-double-map (zipmap %2 %2)))
+   :intersection #(.intersection ^IntDoubleMap %1 (int-double-map (zipmap %2 %2)))
+   :difference   #(.difference ^IntDoubleMap %1 (int-double-map (zipmap %2 %2)))
+   :linear       #(.linear ^IntDoubleMap %)
+   :forked       #(.forked ^IntDoubleMap %)})
+
+(defn primitive-map-entries [m]
+  (let [cursor (.cursor m)]
+    (loop [acc []]
+      (if (.advance cursor)
+        (recur (conj acc [(.key cursor) (.value cursor)]))
+        acc))))
+
 (def clj-map
   {:put          assoc
    :remove       dissoc
@@ -237,6 +308,16 @@
    :forked       #(.forked ^IMap %)
    })
 
+(def bifurcan-btree-map
+  {:put          #(.put ^IMap %1 %2 %3)
+   :remove       #(.remove ^IMap %1 %2)
+   :union        #(.union ^IMap %1 (BTreeMap/from ^java.util.Map (zipmap %2 %2)))
+   :intersection #(.intersection ^IMap %1 (BTreeMap/from ^java.util.Map (zipmap %2 %2)))
+   :difference   #(.difference ^IMap %1 (BTreeMap/from ^java.util.Map (zipmap %2 %2)))
+   :linear       #(.linear ^IMap %)
+   :forked       #(.forked ^IMap %)
+   })
+
 (def int-map
   {:put          #(.put ^IMap %1 %2 %3)
    :remove       #(.remove ^IMap %1 %2)
@@ -247,6 +328,16 @@
    :forked       #(.forked ^IMap %)
    })
 
+(def linear-long-map
+  {:put          #(.put ^IMap %1 %2 %3)
+   :remove       #(.remove ^IMap %1 %2)
+   :union        #(.union ^IMap %1 (LinearLongMap/from ^IMap (IntMap/from (zipmap %2 %2))))
+   :intersection #(.intersection ^IMap %1 (LinearLongMap/from ^IMap (IntMap/from (zipmap %2 %2))))
+   :difference   #(.difference ^IMap %1 (LinearLongMap/from ^IMap (IntMap/from (zipmap %2 %2))))
+   :linear       #(.linear ^IMap %)
+   :forked       #(.forked ^IMap %)
+   })
+
 (def float-map
   {:put          #(.put ^IMap %1 %2 %3)
    :remove       #(.remove ^IMap %1 %2)
@@ -266,9 +357,11 @@
    })
 
 (defn construct-set [template elements]
-  (if (instance? Set template)
-    (Set/from elements)
-    (LinearSet/from elements)))
+  (cond
+    (instance? Set template)           (Set/from elements)
+    (instance? LinearLongSet template) (LinearLongSet/from ^java.util.Iterator (.iterator elements))
+    (instance? SortedSet template)     (reduce #(.add ^SortedSet %1 %2) (.linear (SortedSet.)) elements)
+    :else                              (LinearSet/from elements)))
 
 (def bifurcan-set
   {:add          #(.add ^ISet %1 %2)
@@ -319,6 +412,18 @@
    b (LinearMap.) bifurcan-map]
   (map= a b))
 
+(defspec test-linear-map-batch iterations
+  (prop/for-all [m (map-gen #(LinearMap.))
+                 ks (gen/vector gen/large-integer 0 100)]
+    (let [vs (map - ks)
+          a  (reduce (fn [^IMap m [k v]] (.put m k v)) (LinearMap/from ^IMap m) (map vector ks vs))
+          b  (.putAll (LinearMap/from ^IMap m) (object-array ks) (object-array vs))
+          ks (concat ks (map inc ks))]
+      (and
+        (= a b)
+        (= (map #(.get ^IMap b % ::none) ks)
+          (vec (.getAll ^LinearMap b (object-array ks) (object-array (count ks)) ::none)))))))
+
 (u/def-collection-check test-map iterations map-actions
   []
   [a {} clj-map
@@ -329,6 +434,21 @@
     (map= a b)
     (map= a c)))
 
+(u/def-collection-check test-map-compare-hashes iterations map-actions
+  []
+  [a {} clj-map
+   b (Map. Maps/DEFAULT_HASH_CODE Maps/DEFAULT_EQUALS true) bifurcan-map
+   c (.linear (Map.)) bifurcan-map]
+  (and
+    (= b c)
+    (= c b)
+    (map= a b)
+    (valid-map-indices? b)))
+
+(defn check-invariant [^SortedMap m]
+  (.checkInvariant (.root m))
+  m)
+
 (u/def-collection-check test-sorted-map iterations map-actions
   []
   [a (sorted-map) clj-map
@@ -337,7 +457,9 @@
   (and
     (= b c)
     (map= a b)
-    (map= a c)))
+    (map= a c)
+    (check-invariant b)
+    (check-invariant c)))
 
 (defspec test-linear-forked-map iterations
   (prop/for-all [actions (u/actions->generator map-actions)]
@@ -375,16 +497,44 @@
   [a (Map.) bifurcan-map]
   (valid-map-indices? a))
 
+(defspec test-linear-map-indices-after-update iterations
+  (prop/for-all [kss (gen/vector (gen/vector gen/large-integer 0 200) 1 8)]
+    (let [m (.linear (Map.))]
+      (every?
+        (fn [ks]
+          (doseq [k ks]
+            (.put ^IMap m k k))
+          (doseq [k (take-nth 3 ks)]
+            (.remove ^IMap m k))
+          (valid-map-indices? m))
+        kss))))
+
 (u/def-collection-check test-sorted-map-indices iterations map-actions
   []
   [a (SortedMap.) bifurcan-sorted-map]
   (valid-map-indices? a))
 
+(u/def-collection-check test-btree-map iterations map-actions
+  []
+  [a (sorted-map) clj-map
+   b (BTreeMap.) bifurcan-btree-map
+   c (.linear (BTreeMap.)) bifurcan-btree-map]
+  (and
+    (= b c)
+    (map= a b)
+    (map= a c)
+    (valid-map-indices? b)))
+
 (u/def-collection-check test-int-map-indices iterations map-actions
   []
   [a (IntMap.) int-map]
   (valid-map-indices? a))
 
+(u/def-collection-check test-linear-long-map-indices iterations map-actions
+  []
+  [a (LinearLongMap.) linear-long-map]
+  (valid-map-indices? a))
+
 (u/def-collection-check test-float-map-indices iterations float-map-actions
   []
   [a (FloatMap.) float-map]
@@ -398,6 +548,12 @@
    b (LinearSet.) bifurcan-set]
   (set= a b))
 
+(u/def-collection-check test-linear-long-set iterations set-actions
+  []
+  [a #{} clj-set
+   b (LinearLongSet.) bifurcan-set]
+  (set= a b))
+
 (u/def-collection-check test-set iterations set-actions
   []
   [a #{} clj-set
@@ -436,6 +592,47 @@
     (list= a b)
     (list= a c)))
 
+(u/def-collection-check test-primitive-lists iterations primitive-list-actions
+  []
+  [a [] clj-list
+   b (LongList.) long-list
+   c (DoubleList.) double-list]
+  (and
+    (= (seq a)
+      (seq b)
+      (seq (map #(.nth ^LongList b %) (range (.size ^LongList b)))))
+    (= (seq (map double a))
+      (seq c)
+      (seq (map #(.nth ^DoubleList c %) (range (.size ^DoubleList c)))))))
+
+(u/def-collection-check test-list-iterator-from-index iterations list-actions
+  [idx gen/pos-int]
+  [l (List.) bifurcan-list]
+  (let [idx (min idx (.size ^List l))]
+    (= (map #(.nth ^List l %) (range idx (.size ^List l)))
+      (-> ^List l (.iterator idx) iterator-seq (or ())))))
+
+(u/def-collection-check test-list-chunks iterations list-actions
+  []
+  [l (List.) bifurcan-list]
+  (= (map #(.nth ^List l %) (range (.size ^List l)))
+    (->> (.chunks ^List l) iterator-seq (mapcat seq))))
+
+(u/def-collection-check test-list-summary iterations list-actions
+  [t gen/pos-int]
+  [a [] clj-list
+   b (List.) (u/summarized-actions bifurcan-list)]
+  (let [weights (map u/weight a)
+        total   (reduce + 0 weights)
+        t       (mod t (inc total))
+        idx     (.seek ^List b u/weight-summary
+                  (reify java.util.function.Predicate
+                    (test [_ x] (> (long x) t))))]
+    (and
+      (= total (.summarize ^List b u/weight-summary))
+      (= (first (keep-indexed #(when (> %2 t) %1) (reductions + weights)))
+        (when (.isPresent idx) (.getAsLong idx))))))
+
 (defspec test-list-range iterations
   (prop/for-all [n (gen/choose 1 1e4)]
     (list= (range n)
@@ -485,6 +682,88 @@
     (= (->> m .keys .toSet (drop-while #(< % k)) first)
       (some-> m (.ceil k) .key))))
 
+(u/def-collection-check test-int-map-unboxed iterations map-actions
+  []
+  [m (IntMap.) int-map]
+  (let [entries (map #(vector (.key ^IEntry %) (.value ^IEntry %)) m)
+        acc     (atom [])
+        cursor  (.cursor m)]
+    (.forEach m (reify io.lacuna.bifurcan.IntMap$LongObjConsumer
+                  (accept [_ k v] (swap! acc conj [k v]))))
+    (and
+      (= entries @acc)
+      (= (seq (map first entries)) (iterator-seq (.keyIterator m)))
+      (= entries (map #(vector (.nthKey m %) (.nthValue m %)) (range (.size m))))
+      (= entries (loop [acc []]
+                   (if (.advance cursor)
+                     (recur (conj acc [(.key cursor) (.value cursor)]))
+                     acc))))))
+
+(u/def-collection-check test-primitive-int-maps iterations map-actions
+  []
+  [a {} clj-map
+   b (IntLongMap.) int-long-map-actions
+   c (IntDoubleMap.) int-double-map-actions]
+  (let [entries (sort a)]
+    (and
+      (= entries (primitive-map-entries b))
+      (= (map (fn [[k v]] [k (double v)]) entries) (primitive-map-entries c))
+      (= entries (map #(vector (.nthKey ^IntLongMap b %) (.nthValue ^IntLongMap b %)) (range (.size ^IntLongMap b))))
+      (let [m (IntMap/from ^java.util.Map a)]
+        (every? (fn [[k v]]
+                  (and (= v (.get ^IntLongMap b (long k) -1))
+                    (= (.indexOf ^IntLongMap b (long k)) (.indexOf m (long k)))
+                    (= (.floorIndex ^IntLongMap b (unchecked-dec (long k))) (.floorIndex m (unchecked-dec (long k))))
+                    (= (.ceilIndex ^IntLongMap b (unchecked-inc (long k))) (.ceilIndex m (unchecked-inc (long k))))))
+          entries))
+      (= b (int-long-map a))
+      (= (.hashCode b) (.hashCode (IntMap/from ^java.util.Map a))))))
+
+(defspec test-primitive-int-map-merge iterations
+  (prop/for-all [a (gen/map gen/large-integer gen/large-integer)
+                 b (gen/map gen/large-integer gen/large-integer)]
+    (let [expected (sort (merge-with +' a b))]
+      (and
+        (= (map (fn [[k v]] [k (unchecked-long v)]) expected)
+          (primitive-map-entries
+            (.merge ^IntLongMap (int-long-map a) (int-long-map b)
+              (reify java.util.function.LongBinaryOperator
+                (applyAsLong [_ x y] (unchecked-add x y))))))
+        (= (map (fn [[k v]] [k (double v)]) (sort (merge-with #(+ (double %1) (double %2)) a b)))
+          (primitive-map-entries
+            (.merge ^IntDoubleMap (int-double-map a) (int-double-map b)
+              (reify java.util.function.DoubleBinaryOperator
+                (applyAsDouble [_ x y] (+ x y))))))))))
+
+(def gen-sparse-vector
+  (gen/map
+    (gen/one-of [gen/large-integer (gen/choose -64 64)])
+    (gen/fmap double (gen/choose -100 100))))
+
+(defn sparse-dot [a b]
+  (->> a (keep (fn [[k v]] (some-> (get b k) (* v)))) (reduce + 0.0)))
+
+(defspec test-sparse-vectors iterations
+  (prop/for-all [a gen-sparse-vector
+                 b gen-sparse-vector
+                 rows (gen/resize 16 (gen/map gen/large-integer gen-sparse-vector))]
+    (let [a' (int-double-map a)
+          b' (int-double-map b)]
+      (and
+        (== (sparse-dot a b) (SparseVectors/dot a' b'))
+        (= (int-double-map (merge-with + a b)) (SparseVectors/add a' b'))
+        (= (int-double-map (merge-with + (zipmap (keys a) (map #(* 2 %) (vals a))) b))
+          (SparseVectors/axpy 2.0 a' b'))
+        (== (Math/sqrt (sparse-dot a a)) (SparseVectors/norm a'))
+        (= (->> rows
+             (map (fn [[r v]] [r (sparse-dot v a)]))
+             (remove #(zero? (second %)))
+             (into {})
+             int-double-map)
+          (SparseVectors/multiply
+            (IntMap/from ^java.util.Map (zipmap (keys rows) (map int-double-map (vals rows))))
+            a'))))))
+
 ;;; SortedMap
 
 (defspec test-sorted-map-slice iterations
@@ -516,6 +795,94 @@
           SortedMap/from
           (.sliceIndices start end))))))
 
+(defspec test-sorted-map-nested-slices iterations
+  (prop/for-all [m (gen/map gen/large-integer gen/large-integer)
+                 bounds (gen/vector (gen/tuple gen/large-integer gen/large-integer) 1 4)
+                 k gen/large-integer
+                 linear? gen/boolean
+                 init (gen/elements [#(SortedMap.) #(BTreeMap.)])]
+    (let [m' (reduce #(.put ^IMap %1 (key %2) (val %2)) (.linear ^IMap (init)) m)
+          m' (if linear? m' (.forked ^IMap m'))]
+      (loop [m (into (sorted-map) m), m' m', bounds bounds]
+        (if (empty? bounds)
+          (and
+            (map= (assoc m k 0) (.put ^IMap m' k 0))
+            (map= (dissoc m k) (.remove ^IMap m' k)))
+          (let [[lo hi] (sort (first bounds))
+                m       (into (sorted-map) (subseq m >= lo < hi))
+                m'      (.slice ^ISortedMap m' lo hi)
+                ks      (keys m)]
+            (if (and
+                  (map= m m')
+                  (every? #(= (get m %) (.get ^IMap m' % nil)) (cons k ks))
+                  (= (seq (map-indexed vector ks)) (seq (map #(vector (.getAsLong (.indexOf ^IMap m' %)) %) ks)))
+                  (= (last (take-while #(<= % k) ks)) (some-> ^ISortedMap m' (.floor k) .key))
+                  (= (first (drop-while #(< % k) ks)) (some-> ^ISortedMap m' (.ceil k) .key))
+                  (= (some #(when (<= k (nth ks %)) %) (range (count ks)))
+                    (let [idx (.ceilIndex ^ISortedMap m' k)] (when (.isPresent idx) (.getAsLong idx))))
+                  (= (seq (drop 1 ks)) (seq (map #(.key ^IEntry %) (iterator-seq (.iterator ^IMap m' (min 1 (count ks))))))))
+              (recur m m' (rest bounds))
+              false)))))))
+
+;; the expected entries are compared as vectors, since a `sorted-map` yields `MapEntry` instances
+(defn- entry-seq [^java.util.Iterator it]
+  (seq (map (fn [^IEntry e] [(.key e) (.value e)]) (iterator-seq it))))
+
+(defspec test-sorted-map-directional-iterators iterations
+  (prop/for-all [m (gen/map gen/large-integer gen/large-integer)
+                 k gen/large-integer
+                 linear? gen/boolean
+                 [init f] (gen/elements [[#(SortedMap.) identity]
+                                         [#(BTreeMap.) identity]
+                                         [#(IntMap.) identity]
+                                         [#(FloatMap.) double]])]
+    (let [es  (map (fn [[k v]] [(f k) v]) m)
+          k   (f k)
+          m'  (reduce #(.put ^IMap %1 (first %2) (second %2)) (.linear ^IMap (init)) es)
+          m'  (if linear? m' (.forked ^IMap m'))
+          m   (into (sorted-map) es)
+          idx (if (empty? m) -1 (mod (long k) (count m)))]
+      (and
+        (= (seq (drop (max 0 idx) m)) (entry-seq (.iterator m' (long (max 0 idx)))))
+        (= (rseq m) (entry-seq (.reverseIterator m')))
+        (= (seq (reverse (take (inc idx) m))) (entry-seq (.reverseIterator m' (long idx))))
+        (= (subseq m >= k) (entry-seq (.iterator m' k ISortedSet$Bound/INCLUSIVE)))
+        (= (subseq m > k) (entry-seq (.iterator m' k ISortedSet$Bound/EXCLUSIVE)))
+        (= (rsubseq m <= k) (entry-seq (.reverseIterator m' k ISortedSet$Bound/INCLUSIVE)))
+        (= (rsubseq m < k) (entry-seq (.reverseIterator m' k ISortedSet$Bound/EXCLUSIVE)))
+        (= (rsubseq m < k) (entry-seq (.reverseIterator (.slice ^ISortedMap m' (f Long/MIN_VALUE) k) k ISortedSet$Bound/EXCLUSIVE)))))))
+
+(defspec test-sorted-set-directional-iterators iterations
+  (prop/for-all [s (gen/set gen/large-integer)
+                 k gen/large-integer
+                 init (gen/elements [#(SortedSet.) #(IntSet.)])]
+    (let [s'  (reduce #(.add ^ISet %1 %2) (init) s)
+          s   (into (sorted-set) s)
+          idx (if (empty? s) -1 (mod k (count s)))]
+      (and
+        (= (seq (drop (max 0 idx) s)) (seq (iterator-seq (.iterator s' (long (max 0 idx))))))
+        (= (rseq s) (seq (iterator-seq (.reverseIterator s'))))
+        (= (seq (reverse (take (inc idx) s))) (seq (iterator-seq (.reverseIterator s' (long idx)))))
+        (= (subseq s > k) (seq (iterator-seq (.iterator s' k ISortedSet$Bound/EXCLUSIVE))))
+        (= (rsubseq s <= k) (seq (iterator-seq (.reverseIterator s' k ISortedSet$Bound/INCLUSIVE))))))))
+
+;; a forward iterator may start anywhere in [0, size], and a reverse iterator anywhere in [-1, size)
+(deftest test-iterator-start-index-bounds
+  (let [n    8
+        maps (map #(.forked ^IMap (reduce (fn [^IMap m k] (.put m k k)) (.linear ^IMap (%1)) (map %2 (range n))))
+               [#(SortedMap.) #(BTreeMap.) #(IntMap.) #(FloatMap.)]
+               [identity identity identity double])
+        sets (map #(.forked ^ISet (reduce (fn [^ISet s k] (.add s k)) (.linear ^ISet (%)) (range n)))
+               [#(SortedSet.) #(IntSet.)])]
+    (doseq [c (concat maps sets [(Maps/slice (first maps) 2 6)])
+            :let [size (.size c)]]
+      (is (thrown? IndexOutOfBoundsException (.iterator c -1)))
+      (is (thrown? IndexOutOfBoundsException (.iterator c (inc size))))
+      (is (thrown? IndexOutOfBoundsException (.reverseIterator c -2)))
+      (is (thrown? IndexOutOfBoundsException (.reverseIterator c size)))
+      (is (not (.hasNext (.iterator c size))))
+      (is (not (.hasNext (.reverseIterator c -1)))))))
+
 (defspec test-sorted-map-floor iterations
   (prop/for-all [m (sorted-map-gen #(SortedMap.))
                  k gen/pos-int]
@@ -528,6 +895,72 @@
     (= (->> m .keys .toSet (drop-while #(< % k)) first)
       (some-> m (.ceil k) .key))))
 
+(defspec test-sorted-map-set-operations iterations
+  (prop/for-all [a (gen/map gen/large-integer gen/large-integer)
+                 b (gen/map gen/large-integer gen/large-integer)
+                 n (gen/choose 0 2000)]
+    (let [a  (merge a (zipmap (range 0 n 3) (range)))
+          b  (merge b (zipmap (range 0 n 5) (range)))
+          a' (SortedMap/from ^java.util.Map a)
+          b' (SortedMap/from ^java.util.Map b)]
+      (and
+        (map= (merge-with - a b)
+          (check-invariant
+            (.merge a' b' (reify java.util.function.BinaryOperator
+                            (apply [_ x y] (- x y))))))
+        (map= (apply dissoc a (keys b)) (check-invariant (.difference a' ^IMap b')))
+        (map= (select-keys a (keys b)) (check-invariant (.intersection a' ^IMap b')))
+        (= (sort (keys (merge a b)))
+          (seq (.union ^SortedSet (construct-set (SortedSet.) (keys a)) (construct-set (SortedSet.) (keys b)))))))))
+
+(defspec test-sorted-from-sorted iterations
+  (prop/for-all [m (gen/map gen/large-integer gen/large-integer)
+                 n (gen/choose 0 2000)
+                 k gen/large-integer]
+    (let [m  (into (sorted-map) (merge m (zipmap (range n) (range))))
+          m' (SortedMap/fromSorted (.iterator ^Iterable (map #(IEntry/of (key %) (val %)) m)) (count m))
+          s' (SortedSet/fromSorted (.iterator ^Iterable (keys m)) (count m))]
+      (and
+        (map= m (check-invariant m'))
+        (valid-map-indices? m')
+        (map= (assoc m k 0) (check-invariant (.put m' k 0)))
+        (map= (dissoc m k) (check-invariant (.remove m' k)))
+        (= (keys m) (seq s'))
+        (valid-set-indices? s')
+        (try
+          (SortedSet/fromSorted (.iterator ^Iterable (concat (keys m) (keys m))) (* 2 (count m)))
+          (empty? m)
+          (catch IllegalArgumentException _
+            true))))))
+
+(defn check-btree-invariant [^BTreeMap m]
+  (.checkInvariant (.root m) (.comparator m) true)
+  m)
+
+(defspec test-btree-map-large iterations
+  (prop/for-all [n (gen/choose 0 5000)
+                 removes (gen/vector gen/large-integer 0 100)
+                 k gen/large-integer
+                 parts (gen/choose 1 16)]
+    (let [ks  (->> (range n) (map #(* 3 (- % (/ n 2)))) shuffle)
+          rks (concat removes (take (quot n 2) ks))
+          a   (apply dissoc (zipmap ks ks) rks)
+          b   (reduce #(.remove ^BTreeMap %1 %2) (reduce #(.put ^BTreeMap %1 %2 %2) (BTreeMap.) ks) rks)
+          c   (.forked ^BTreeMap (reduce #(.remove ^BTreeMap %1 %2) (reduce #(.put ^BTreeMap %1 %2 %2) (.linear (BTreeMap.)) ks) rks))
+          s   (sort (keys a))]
+      (and
+        (map= a (check-btree-invariant b))
+        (map= a (check-btree-invariant c))
+        (= b c)
+        (valid-map-indices? b)
+        (= (last (take-while #(<= % k) s)) (some-> b (.floor k) .key))
+        (= (first (drop-while #(< % k) s)) (some-> b (.ceil k) .key))
+        (= (range 1 (count s)) (keep #(let [idx (.ceilIndex b (inc %))] (when (.isPresent idx) (.getAsLong idx))) s))
+        (= (seq (butlast s)) (seq (keep #(some-> b (.floor (dec %)) .key) s)))
+        (= (seq (drop (quot n 3) s))
+          (seq (map #(.key ^IEntry %) (iterator-seq (.iterator b (min (count s) (quot n 3)))))))
+        (= s (mapcat #(map (fn [^IEntry e] (.key e)) %) (.split b parts)))))))
+
 ;;; FloatMap
 
 (defspec test-float-map-slice iterations
@@ -558,6 +991,87 @@
     (= (->> m .keys .toSet (drop-while #(< % k)) first)
       (some-> m (.ceil k) .key))))
 
+;; Parallel set operations
+
+(def pool (java.util.concurrent.ForkJoinPool. 4))
+
+(defspec test-map-parallel-set-operations (/ iterations 100)
+  (prop/for-all [n (gen/choose 0 5e4)
+                 k (gen/choose 0 5e4)
+                 offset (gen/choose 0 5e4)
+                 linear? gen/boolean]
+    (let [m  (Map/from ^java.util.Map (zipmap (range n) (range n)))
+          ;; linear set operations may reuse the nodes of the original map, so each needs its own copy
+          a  #(if linear? (.linear m) m)
+          b  (Map/from ^java.util.Map (zipmap (range offset (+ offset k)) (repeat -1)))
+          s  (.keys b)
+          f  (reify java.util.function.BinaryOperator (apply [_ x y] (+ x y)))]
+      (and
+        (= (.union (a) b) (.union ^Map (a) b pool))
+        (= (.merge (a) b f) (.merge ^Map (a) b f pool))
+        (= (.difference (a) b) (.difference ^Map (a) b pool))
+        (= (.intersection (a) b) (.intersection ^Map (a) b pool))
+        (= (.union (.keys (a)) s) (.union (.keys ^Map (a)) s pool))
+        (= (.difference (.keys (a)) s) (.difference (.keys ^Map (a)) s pool))
+        (= (.intersection (.keys (a)) s) (.intersection (.keys ^Map (a)) s pool))))))
+
+;; Spliterators
+
+(defn spliterator-seq
+  "Recursively splits the spliterator, and returns the elements of the pieces in order, or `nil` if any piece's
+   reported size is inexact."
+  [^java.util.Spliterator s]
+  (let [size     (.getExactSizeIfKnown s)
+        prefix   (.trySplit s)
+        acc      (ArrayList.)
+        consumer (reify java.util.function.Consumer (accept [_ x] (.add acc x)))
+        elements (if prefix
+                   (let [a (spliterator-seq prefix)
+                         b (spliterator-seq s)]
+                     (when (and a b)
+                       (concat a b)))
+                   (do
+                     (.tryAdvance s consumer)
+                     (.forEachRemaining s consumer)
+                     (seq acc)))]
+    (when (= size (count elements))
+      (or elements ()))))
+
+(defn spliterator= [coll]
+  (= (-> coll .iterator iterator-seq) (-> coll .spliterator spliterator-seq seq)))
+
+(u/def-collection-check test-list-spliterator iterations list-actions
+  []
+  [l (List.) bifurcan-list]
+  (spliterator= l))
+
+(u/def-collection-check test-map-spliterator iterations map-actions
+  []
+  [m (Map.) bifurcan-map]
+  (and (spliterator= m) (spliterator= (.keys ^IMap m))))
+
+(u/def-collection-check test-int-map-spliterator iterations map-actions
+  []
+  [m (IntMap.) int-map]
+  (spliterator= m))
+
+(u/def-collection-check test-sorted-map-spliterator iterations map-actions
+  []
+  [m (SortedMap.) bifurcan-sorted-map]
+  (spliterator= m))
+
+(u/def-collection-check test-set-spliterator iterations set-actions
+  []
+  [a (Set.) bifurcan-set
+   b (IntSet.) bifurcan-set
+   c (SortedSet.) bifurcan-set]
+  (and (spliterator= a) (spliterator= b) (spliterator= c)))
+
+(defspec test-list-parallel-stream iterations
+  (prop/for-all [n (gen/choose 0 1e4)]
+    (= (reduce + (range n))
+      (-> (List/from (range n)) .stream .parallel (.reduce 0 (reify java.util.function.BinaryOperator (apply [_ a b] (+ a b))))))))
+
 ;; Collection split/merge
 
 (defn map-union [maps init]
@@ -586,6 +1100,11 @@
   [m (IntMap.) int-map]
   (= m (-> m (.split 2) (map-union (IntMap.)))))
 
+(u/def-collection-check test-linear-long-map-split iterations map-actions
+  []
+  [m (LinearLongMap.) linear-long-map]
+  (= m (-> m (.split 2) (map-union (LinearLongMap.)))))
+
 (u/def-collection-check test-float-map-split iterations float-map-actions
   []
   [m (FloatMap.) float-map]
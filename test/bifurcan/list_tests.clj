@@ -102,3 +102,12 @@
     (is (= (.isLinear l2) true) "l2 is linear")
     (is (= (.isLinear l3) false) "l3 is forked")))
 
+(deftest forked-set-is-persistent-test
+  ;; setting an element of a forked list used to update the nodes created
+  ;; by a previous `set` in-place, which changed the earlier list as well
+  (let [l1 (List/from (range 1000))
+        l2 (.set l1 50 :x)
+        l3 (.set l2 50 :y)]
+    (is (= 50 (.nth l1 50)))
+    (is (= :x (.nth l2 50)))
+    (is (= :y (.nth l3 50)))))
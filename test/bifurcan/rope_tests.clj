@@ -2,11 +2,26 @@
   (:require
    [clojure.pprint :refer [pprint]]
    [clojure.test :refer :all]
+   [clojure.string :as str]
    [clojure.test.check.generators :as gen]
    [clojure.test.check.properties :as prop]
    [clojure.test.check.clojure-test :as ct :refer [defspec]]
    [bifurcan.test-utils :as u :refer [iterations]])
   (:import
+   [java.io
+    ByteArrayInputStream
+    ByteArrayOutputStream
+    OutputStream
+    StringReader]
+   [java.nio
+    ByteBuffer]
+   [java.nio.channels
+    Channels
+    GatheringByteChannel
+    ReadableByteChannel
+    WritableByteChannel]
+   [java.nio.charset
+    MalformedInputException]
    [io.lacuna.bifurcan
     Rope]
    [io.lacuna.bifurcan.nodes
@@ -54,7 +69,7 @@
 (def gen-string-unicode
   (gen/fmap
     codepoints->str
-    (gen/vector (gen/elements [0 0x80 0x800 0x10000]) 0 128)))
+    (gen/vector (gen/elements [0 10 0x80 0x800 0x10000]) 0 128)))
 
 (def actions
   {:insert [gen/pos-int gen-string-unicode]
@@ -87,16 +102,40 @@
                (str (.substring a 0 s) (.substring a e (count a)))))
    :concat str})
 
+(defn lines= [^Rope r ^String s]
+  (let [points (-> s .codePoints .toArray vec)
+        starts (cons 0 (keep-indexed #(when (= 10 %2) (inc %1)) points))]
+    (and
+      (= (count starts) (.lineCount r))
+      (= starts (map #(.lineStart r %) (range (.lineCount r))))
+      (= (reductions + 0 (map #(if (= 10 %) 1 0) points)) (map #(.lineOf r %) (range (inc (count points)))))
+      (= (str/split s #"\n" -1) (map #(str (.line r %)) (range (.lineCount r)))))))
+
 (u/def-collection-check test-rope iterations actions
   []
   [a (Rope/from "") rope-actions
    b "" string-actions]
-  (if (= (str a) b)
+  (if (and (= (str a) b) (lines= a b))
     true
     (do
       (prn (count b))
       false)))
 
+(u/def-collection-check test-rope-summary iterations actions
+  [t gen/pos-int]
+  [a (Rope/from "") (u/summarized-actions rope-actions)
+   b "" string-actions]
+  (let [weights (map u/weight (-> ^String b .codePoints .toArray))
+        total   (reduce + 0 weights)
+        t       (mod t (inc total))
+        idx     (.seek ^Rope a u/weight-summary
+                  (reify java.util.function.Predicate
+                    (test [_ x] (> (long x) t))))]
+    (and
+      (= total (.summarize ^Rope a u/weight-summary))
+      (= (first (keep-indexed #(when (> %2 t) %1) (reductions + weights)))
+        (when (.isPresent idx) (.getAsInt idx))))))
+
 (defn sign [x]
   (cond
     (< x 0) -1
@@ -107,6 +146,17 @@
   (prop/for-all [points (gen/vector gen-code-point 0 256)]
     (= points (-> points codepoints->str Rope/from .codePoints iterator-seq vec))))
 
+(defspec test-char-sequence iterations
+  (prop/for-all [points (gen/vector gen-code-point 0 1024)
+                 idxs (gen/vector gen/large-integer)]
+    (let [s   (codepoints->str points)
+          cs  (.toCharSequence (Rope/from s))
+          ;; revisit a few random indices between two sequential scans, to exercise seeking backwards
+          idxs (map #(mod % (max 1 (count s))) idxs)
+          all  (concat (range (count s)) (when (seq s) idxs) (range (count s)))]
+      (= (map #(.charAt s (int %)) all)
+         (map #(.charAt cs (int %)) all)))))
+
 (defspec test-compare iterations
   (prop/for-all [a (gen/vector gen-code-point 0 256)
                  b (gen/vector gen-code-point 0 256)]
@@ -116,6 +166,94 @@
         (sign (compare a b))
         (sign (compare (Rope/from a') (Rope/from b')))))))
 
+(defn trickle-channel
+  "A channel which yields at most `n` bytes per read, to exercise code points which straddle reads."
+  [^bytes bytes n]
+  (let [offset (atom 0)]
+    (reify ReadableByteChannel
+      (isOpen [_] true)
+      (close [_])
+      (read [_ buf]
+        (let [o @offset
+              k (min n (- (alength bytes) o) (.remaining buf))]
+          (if (and (zero? k) (= o (alength bytes)))
+            -1
+            (do
+              (.put buf bytes o k)
+              (swap! offset + k)
+              k)))))))
+
+(def gen-encodable-code-point
+  (gen/such-that #(not (<= 0xD800 % 0xDFFF)) gen-code-point))
+
+(defspec test-from-channel iterations
+  (prop/for-all [points (gen/vector gen-encodable-code-point 0 1024)
+                 n (gen/choose 1 8)]
+    (let [s (codepoints->str points)]
+      (and
+        (= (Rope/from s) (Rope/from (trickle-channel (.getBytes s "UTF-8") n)))
+        (= (Rope/from s) (Rope/from (ByteArrayInputStream. (.getBytes s "UTF-8"))))))))
+
+(defspec test-from-reader iterations
+  (prop/for-all [points (gen/vector gen-code-point 0 1024)]
+    (let [s (codepoints->str points)]
+      (= points (-> s StringReader. Rope/from .codePoints iterator-seq vec)))))
+
+(deftest test-from-malformed-utf8
+  (doseq [bs [[0x80] [0xC0 0x80] [0xE0 0x80 0x80] [0xED 0xA0 0x80] [0xF4 0x90 0x80 0x80] [0xE2 0x82] [0x61 0xF0]]]
+    (is (thrown? MalformedInputException
+          (Rope/from (ByteArrayInputStream. (byte-array (map unchecked-byte bs))))))))
+
+(defn trickle-gathering-channel
+  "A gathering channel which accepts at most `n` bytes per write, to exercise partial writes."
+  [^ByteArrayOutputStream out n]
+  (reify GatheringByteChannel
+    (isOpen [_] true)
+    (close [_])
+    (^int write [this ^ByteBuffer buf]
+      (.write this (into-array ByteBuffer [buf]) 0 1))
+    (^long write [_ ^"[Ljava.nio.ByteBuffer;" bufs ^int offset ^int len]
+      (loop [i offset, budget n, written 0]
+        (if (or (zero? budget) (= i (+ offset len)))
+          written
+          (let [^ByteBuffer b (aget bufs i)
+                k (min budget (.remaining b))]
+            (dotimes [_ k]
+              (.write out (int (.get b))))
+            (recur (inc i) (- budget k) (+ written k))))))))
+
+(defspec test-write-to iterations
+  (prop/for-all [points (gen/vector gen-encodable-code-point 0 1024)
+                 n (gen/choose 1 64)]
+    (let [s (codepoints->str points)
+          r (Rope/from s)
+          expected (vec (.getBytes s "UTF-8"))
+          write (fn [f]
+                  (let [out (ByteArrayOutputStream.)]
+                    (f out)
+                    (vec (.toByteArray out))))]
+      (= expected
+        (write #(.writeTo r ^OutputStream %))
+        (write #(.writeTo r (Channels/newChannel ^OutputStream %)))
+        (write #(.writeTo r ^WritableByteChannel (trickle-gathering-channel % n)))))))
+
+(defspec test-copy-to iterations
+  (prop/for-all [points (gen/vector gen-encodable-code-point 0 1024)
+                 start gen/nat
+                 n (gen/choose 4 64)]
+    (let [s (codepoints->str points)
+          r (Rope/from s)
+          start (mod start (inc (count points)))
+          buf (ByteBuffer/allocate n)
+          out (ByteArrayOutputStream.)]
+      (loop [idx start]
+        (if (< idx (count points))
+          (let [idx' (.copyTo r (.clear buf) idx)]
+            (.write out (.array buf) 0 (.position buf))
+            (recur idx'))
+          (= (vec (.getBytes (codepoints->str (drop start points)) "UTF-8"))
+            (vec (.toByteArray out))))))))
+
 ;;;
 
 (defn compare-outcomes [actions]
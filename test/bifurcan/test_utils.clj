@@ -2,7 +2,10 @@
   (:require
    [clojure.test.check.generators :as gen]
    [clojure.test.check.properties :as prop]
-   [clojure.test.check.clojure-test :as ct :refer (defspec)]))
+   [clojure.test.check.clojure-test :as ct :refer (defspec)])
+  (:import
+   [io.lacuna.bifurcan
+    Summary]))
 
 (def iterations 1e4)
 
@@ -46,6 +49,28 @@
     (apply [_ a b]
       (f a b))))
 
+;; the weight of each list element or code point is 1 or 2, so the prefix sums are strictly increasing
+(defn weight ^long [x]
+  (inc (mod (long x) 2)))
+
+(def weight-summary
+  (Summary/of 0
+    (->fn weight)
+    (reify java.util.function.BinaryOperator
+      (apply [_ a b] (+ (long a) (long b))))))
+
+(defn summarized-actions
+  "Wraps each action so that the collection it returns is summarized, so that the next action is applied to a
+   collection whose nodes may have cached summaries."
+  [action->fn]
+  (->> action->fn
+    (map (fn [[k f]]
+           [k (fn [& args]
+                (let [c (apply f args)]
+                  (.summarize c weight-summary)
+                  c))]))
+    (into {})))
+
 (defn log-steps [n exponent steps]
   (let [log (int (/ (Math/log n) (Math/log exponent)))]
     (->> log